@@ -49,4 +49,40 @@ public interface InputAdapter {
      * @throws Exception    if an error occurs during event submission
     */
     void send(CSV_Event event) throws Exception;
+
+    /**
+     *
+     * Converts and sends a batch of events generated by FINCoS to the target system,
+     * in the order they appear in the array. Implementations should amortize the
+     * per-call cost of submission (e.g., locking, round-trips) over the whole batch.
+     *
+     *
+     * @param events        array holding the events to be converted and sent
+     * @param count         number of events in the batch (the first <tt>count</tt>
+     *                      positions of the array)
+     * @throws Exception    if an error occurs during event submission
+     */
+    void send(Event[] events, int count) throws Exception;
+
+    /**
+     *
+     * Converts and sends a batch of events read from data files to the target system,
+     * in the order they appear in the array.
+     *
+     *
+     * @param events        array holding the events to be converted and sent
+     * @param count         number of events in the batch (the first <tt>count</tt>
+     *                      positions of the array)
+     * @throws Exception    if an error occurs during event submission
+     */
+    void send(CSV_Event[] events, int count) throws Exception;
+
+    /**
+     * Indicates if the target system keeps references to the arrays of
+     * values of the events it is sent (e.g., in its windows). Events sent
+     * through such adapters are not recycled.
+     *
+     * @return  <tt>true</tt> if the arrays of values of sent events are retained
+     */
+    boolean retainsEventValues();
 }
@@ -22,6 +22,8 @@ import java.util.Properties;
 
 import pt.uc.dei.fincos.adapters.InputAdapter;
 import pt.uc.dei.fincos.adapters.OutputListener;
+import pt.uc.dei.fincos.basic.CSV_Event;
+import pt.uc.dei.fincos.basic.Event;
 import pt.uc.dei.fincos.basic.Status;
 import pt.uc.dei.fincos.sink.Sink;
 
@@ -117,6 +119,50 @@ public abstract class CEP_EngineInterface implements InputAdapter {
      */
     public abstract String[] getOutputStreamList() throws Exception;
 
+    /**
+     * Indicates if the CEP engine keeps the arrays of values of the events it
+     * is sent. Vendor-specific adapters that pass these arrays to the engine
+     * as they are must override this method.
+     *
+     * @return  <tt>false</tt>, by default
+     */
+    @Override
+    public boolean retainsEventValues() {
+        return false;
+    }
+
+    /**
+     * Sends a batch of events, one at a time. Vendor-specific adapters
+     * should override this method if the CEP engine can take advantage
+     * of batched submission.
+     *
+     * @param events        array holding the events to be sent
+     * @param count         number of events in the batch
+     * @throws Exception    if an error occurs during event submission
+     */
+    @Override
+    public void send(Event[] events, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            send(events[i]);
+        }
+    }
+
+    /**
+     * Sends a batch of events, one at a time. Vendor-specific adapters
+     * should override this method if the CEP engine can take advantage
+     * of batched submission.
+     *
+     * @param events        array holding the events to be sent
+     * @param count         number of events in the batch
+     * @throws Exception    if an error occurs during event submission
+     */
+    @Override
+    public void send(CSV_Event[] events, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            send(events[i]);
+        }
+    }
+
     /**
      * Sets the CEP engine's connection properties.
      *
@@ -470,37 +470,91 @@ public final class EsperInterface extends CEP_EngineInterface {
     @Override
     public synchronized void send(Event e) throws Exception {
         if (this.status.getStep() == Step.READY || this.status.getStep() == Step.CONNECTED) {
-            if (this.eventFormat == OBJECT_ARRAY_FORMAT) {
-                sendObjectArrayEvent(e);
-            } else if (this.eventFormat == POJO_FORMAT) {
-                sendPOJOEvent(e);
-            } else {
-                sendMapEvent(e);
-            }
-
-            if (this.useExternalTimer && e.getType().getName().equals(extTSEventType)) {
-                advanceClock((Long) e.getAttributeValue(extTSIndex));
-            }
+            dispatch(e);
         }
     }
 
     @Override
     public synchronized void send(CSV_Event event) {
         if (this.status.getStep() == Step.READY || this.status.getStep() == Step.CONNECTED) {
-            if (this.eventFormat == OBJECT_ARRAY_FORMAT) {
-                sendObjectArrayEvent(event);
-            } else if (this.eventFormat == POJO_FORMAT) {
-                sendPOJOEvent(event);
-            } else {
-                sendMapEvent(event);
+            dispatch(event);
+        }
+    }
+
+    /**
+     * Sends a batch of events to Esper, holding the adapter and engine locks
+     * only once for the whole batch.
+     *
+     * @param events    array holding the events to be sent
+     * @param count     number of events in the batch
+     */
+    @Override
+    public synchronized void send(Event[] events, int count) {
+        if (this.status.getStep() == Step.READY || this.status.getStep() == Step.CONNECTED) {
+            synchronized (runtime) {
+                for (int i = 0; i < count; i++) {
+                    dispatch(events[i]);
+                }
             }
+        }
+    }
 
-            if (this.useExternalTimer && event.getType().equals(extTSEventType)) {
-                advanceClock(Long.parseLong(event.getPayload()[extTSIndex]));
+    /**
+     * Sends a batch of events to Esper, holding the adapter and engine locks
+     * only once for the whole batch.
+     *
+     * @param events    array holding the events to be sent
+     * @param count     number of events in the batch
+     */
+    @Override
+    public synchronized void send(CSV_Event[] events, int count) {
+        if (this.status.getStep() == Step.READY || this.status.getStep() == Step.CONNECTED) {
+            synchronized (runtime) {
+                for (int i = 0; i < count; i++) {
+                    dispatch(events[i]);
+                }
             }
         }
     }
 
+    /**
+     * Converts an event to the configured format and sends it to Esper.
+     *
+     * @param e     the event to be sent
+     */
+    private void dispatch(Event e) {
+        if (this.eventFormat == OBJECT_ARRAY_FORMAT) {
+            sendObjectArrayEvent(e);
+        } else if (this.eventFormat == POJO_FORMAT) {
+            sendPOJOEvent(e);
+        } else {
+            sendMapEvent(e);
+        }
+
+        if (this.useExternalTimer && e.getType().getName().equals(extTSEventType)) {
+            advanceClock((Long) e.getAttributeValue(extTSIndex));
+        }
+    }
+
+    /**
+     * Converts an event to the configured format and sends it to Esper.
+     *
+     * @param event     the event to be sent
+     */
+    private void dispatch(CSV_Event event) {
+        if (this.eventFormat == OBJECT_ARRAY_FORMAT) {
+            sendObjectArrayEvent(event);
+        } else if (this.eventFormat == POJO_FORMAT) {
+            sendPOJOEvent(event);
+        } else {
+            sendMapEvent(event);
+        }
+
+        if (this.useExternalTimer && event.getType().equals(extTSEventType)) {
+            advanceClock(Long.parseLong(event.getPayload()[extTSIndex]));
+        }
+    }
+
     /**
      * Sends a Map event to Esper.
      *
@@ -647,6 +701,18 @@ public final class EsperInterface extends CEP_EngineInterface {
         }
     }
 
+    /**
+     * Object-array events are passed to Esper with the event's own array of
+     * values when response times are not measured.
+     *
+     * @return  <tt>true</tt> if events are sent in the Object-array format
+     *          without response time measurement
+     */
+    @Override
+    public boolean retainsEventValues() {
+        return this.eventFormat == OBJECT_ARRAY_FORMAT && this.rtMode == Globals.NO_RT;
+    }
+
     /**
      * Sends an Object-array event to Esper.
      *
@@ -676,6 +742,7 @@ public final class EsperInterface extends CEP_EngineInterface {
             }
 
             if (this.rtMode == Globals.NO_RT) { // No RT measurement: send event's payload
+                // Kept by Esper; such events are not recycled (see retainsEventValues)
                 objArrEvent = payload;
             } else { // With RT measurement: send event's payload and timestamp
                 objArrEvent = new Object[fieldCount];
@@ -61,6 +61,23 @@ public abstract class JMS_Adapter {
      */
     public JMS_Adapter(Properties connProps, String connFactoryName, Converter msgConverter)
     throws NamingException, JMSException {
+        this(connProps, connFactoryName, msgConverter, false);
+    }
+
+    /**
+     * Connects to a JMS provider.
+     *
+     * @param connProps             connection properties
+     * @param connFactoryName       name of the connection factory at the JNDI server
+     * @param msgConverter          converts events, as represented in FINCoS, into JMS
+     *                              messages and vice-versa
+     * @param transacted            indicates if the session is transacted
+     *
+     * @throws NamingException  if a naming exception is encountered
+     * @throws JMSException     if an error occurs during connection with JMS provider
+     */
+    public JMS_Adapter(Properties connProps, String connFactoryName, Converter msgConverter,
+            boolean transacted) throws NamingException, JMSException {
         // Set the JNDI properties; specific to the naming service vendor
         this.ctxt = new InitialContext(connProps);
         // Retrieve the queue connection factory.
@@ -68,7 +85,8 @@ public abstract class JMS_Adapter {
         // Create the JMS connection.
         this.conn  = cf.createQueueConnection();
         // Create the JMS session over the JMS connection.
-        session = conn.createQueueSession(false, Session.AUTO_ACKNOWLEDGE);
+        session = conn.createQueueSession(transacted,
+                transacted ? Session.SESSION_TRANSACTED : Session.AUTO_ACKNOWLEDGE);
         // Message converter
         this.msgConverter = msgConverter;
     }
@@ -37,6 +37,9 @@ import pt.uc.dei.fincos.basic.Event;
  * By default, NON-PERSISTENT messages are used, as to minimize
  * the impact on the JMS server.
  *
+ * Messages are published on a single transacted session, so that a batch
+ * of events is committed at once; single events are committed one by one.
+ *
  * @author  Marcelo R.N. Mendes
  */
 public final class JMS_Writer extends JMS_Adapter implements InputAdapter {
@@ -78,7 +81,7 @@ public final class JMS_Writer extends JMS_Adapter implements InputAdapter {
      */
     public JMS_Writer(Properties connProps, String connFactoryName, String[] inputChannels,
             Converter msgConverter) throws NamingException, JMSException {
-        super(connProps, connFactoryName, msgConverter);
+        super(connProps, connFactoryName, msgConverter, true);
         // Start the queue connection.
         conn.start();
         // Creates a sender for each input channel
@@ -96,20 +99,65 @@ public final class JMS_Writer extends JMS_Adapter implements InputAdapter {
      * @param ev            the event to be sent
      * @throws Exception    if an error occurs during message publishing
      */
-    public void send(Event ev) throws Exception {
-        // Retrieves the appropriate sender
-        String dest = ev.getType().getName();
-        MessageProducer sender = senders.get(dest);
-        if (sender == null) {
-           sender = createMessageProducerFor(dest);
+    public synchronized void send(Event ev) throws Exception {
+        try {
+            // Converts the event into a JMS message and sends it
+            Message msg = this.msgConverter.toMessage(ev, this.session);
+            getSenderFor(ev.getType().getName()).send(msg);
+            session.commit();
+        } catch (JMSException jmse) {
+            session.rollback();
+            throw jmse;
         }
-        //Converts the event into a JMS message
-        Message msg = this.msgConverter.toMessage(ev, this.session);
-        // Sends the message
-        sender.send(msg);
     }
 
 
+    /**
+     * Converts the events passed as argument into JMS messages and sends them
+     * to the messaging system within a single transaction, so that the whole
+     * batch is acknowledged by the provider at once.
+     *
+     * @param events        array holding the events to be sent
+     * @param count         number of events in the batch
+     * @throws Exception    if an error occurs during message publishing
+     */
+    @Override
+    public synchronized void send(Event[] events, int count) throws Exception {
+        try {
+            for (int i = 0; i < count; i++) {
+                Message msg = this.msgConverter.toMessage(events[i], this.session);
+                getSenderFor(events[i].getType().getName()).send(msg);
+            }
+            session.commit();
+        } catch (JMSException jmse) {
+            session.rollback();
+            throw jmse;
+        }
+    }
+
+    /**
+     * Converts the events passed as argument into JMS messages and sends them
+     * to the messaging system within a single transaction, so that the whole
+     * batch is acknowledged by the provider at once.
+     *
+     * @param events        array holding the events to be sent
+     * @param count         number of events in the batch
+     * @throws Exception    if an error occurs during message publishing
+     */
+    @Override
+    public synchronized void send(CSV_Event[] events, int count) throws Exception {
+        try {
+            for (int i = 0; i < count; i++) {
+                Message msg = this.msgConverter.toMessage(events[i], this.session);
+                getSenderFor(events[i].getType()).send(msg);
+            }
+            session.commit();
+        } catch (JMSException jmse) {
+            session.rollback();
+            throw jmse;
+        }
+    }
+
     @Override
     public void disconnect() throws JMSException {
         // Closes the senders, the JMS session and the JMS connection.
@@ -122,17 +170,46 @@ public final class JMS_Writer extends JMS_Adapter implements InputAdapter {
     }
 
     @Override
-    public void send(CSV_Event event) throws Exception {
-     // Retrieves the appropriate sender
-        String dest = event.getType();
+    public synchronized void send(CSV_Event event) throws Exception {
+        try {
+            // Converts the event into a JMS message and sends it
+            Message msg = this.msgConverter.toMessage(event, this.session);
+            getSenderFor(event.getType()).send(msg);
+            session.commit();
+        } catch (JMSException jmse) {
+            session.rollback();
+            throw jmse;
+        }
+    }
+
+    /**
+     * Events are converted into JMS messages, which do not refer to the
+     * events' arrays of values.
+     *
+     * @return  <tt>false</tt>
+     */
+    @Override
+    public boolean retainsEventValues() {
+        return false;
+    }
+
+    /**
+     * Retrieves the message producer for a given JMS destination, creating
+     * it if needed.
+     *
+     * @param dest      the name of the JMS destination
+     * @return          an instance of {@link MessageProducer}
+     *
+     * @throws NamingException  if a naming exception is encountered
+     * @throws JMSException     if an error occurs while creating the message producer
+     */
+    private MessageProducer getSenderFor(String dest)
+    throws NamingException, JMSException {
         MessageProducer sender = senders.get(dest);
         if (sender == null) {
             sender = createMessageProducerFor(dest);
         }
-        //Converts the event into a JMS message
-        Message msg = this.msgConverter.toMessage(event, this.session);
-        // Sends the message
-        sender.send(msg);
+        return sender;
     }
 
     /**
@@ -30,7 +30,9 @@ import java.io.Serializable;
  *
  * @see PredefinedListDomain
  * @see RandomDomain
+ * @see RandomWalkDomain
  * @see SequentialDomain
+ * @see SkewedDomain
  *
  */
 public abstract class Domain implements Serializable {
@@ -46,6 +48,60 @@ public abstract class Domain implements Serializable {
      */
     public abstract Object generateValue();
 
+    /**
+     * Generates a value for an attribute of an event whose preceding
+     * attributes have already been filled. Domains whose values depend on
+     * other attributes of the event override this method.
+     *
+     * @param event     the event being generated
+     * @return          A data value.
+     */
+    public Object generateValue(Event event) {
+        return generateValue();
+    }
+
+    /**
+     * Indicates whether this domain generates numbers, so that its values
+     * can be obtained as primitives through {@link #generateDouble(Event)},
+     * {@link #generateLong(Event)} and {@link #generateInt(Event)}.
+     *
+     * @return  <tt>true</tt> if all values of this domain are numbers
+     */
+    public boolean isNumeric() {
+        return false;
+    }
+
+    /**
+     * Generates a numeric value as a primitive <tt>double</tt>.
+     * Numeric domains override this method to avoid boxing.
+     *
+     * @param event     the event being generated
+     * @return          A data value.
+     */
+    public double generateDouble(Event event) {
+        return ((Number) generateValue(event)).doubleValue();
+    }
+
+    /**
+     * Generates a numeric value rounded to a primitive <tt>long</tt>.
+     *
+     * @param event     the event being generated
+     * @return          A data value.
+     */
+    public long generateLong(Event event) {
+        return Math.round(generateDouble(event));
+    }
+
+    /**
+     * Generates a numeric value rounded to a primitive <tt>int</tt>.
+     *
+     * @param event     the event being generated
+     * @return          A data value.
+     */
+    public int generateInt(Event event) {
+        return (int) generateLong(event);
+    }
+
     /**
      * Sets seed for random number generation.
      *
@@ -95,6 +95,17 @@ public final class Event implements Serializable {
         return this.payload;
     }
 
+    /**
+     * Clears the values and the timestamp of this event, so that the
+     * instance can be refilled and reused.
+     */
+    public void clear() {
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = null;
+        }
+        this.timestamp = 0;
+    }
+
     /**
      * Sets the value of an Event's attribute. (Checks if they are compatible)
      *
@@ -18,7 +18,6 @@
 
 package pt.uc.dei.fincos.basic;
 
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
 import java.util.Random;
@@ -46,8 +45,14 @@ public final class PredefinedListDomain extends Domain {
     /** Random number generator. */
     private Random rnd;
 
-    /** Keeps the frequencies of each item as an interval in the [0,1) range. */
-    private LinkedHashMap<? extends Object, Double> itemSetRanges;
+    /** The items of the alias table (stochastic behavior). */
+    private Object[] aliasItems;
+
+    /** Probability of keeping the i-th item of the alias table, rather than its alias. */
+    private double[] aliasProbabilities;
+
+    /** Index of the item that shares the i-th slot of the alias table. */
+    private int[] aliases;
 
     /** Keeps track of the last generated item. */
     private int index;
@@ -85,7 +90,7 @@ public final class PredefinedListDomain extends Domain {
 
         this.itemMix = new LinkedHashMap<Object, Double>(itemMix.size());
         this.itemMix.putAll(itemMix);
-        this.setItemSetRanges(itemMix);
+        this.buildAliasTable(itemMix);
     }
 
     /**
@@ -107,16 +112,16 @@ public final class PredefinedListDomain extends Domain {
                 return item;
             }
         } else {
-            if (this.itemSetRanges != null) {
-                double number = rnd.nextDouble();
-                Object key = "";
-                for (Entry<? extends Object, Double> e : this.itemSetRanges.entrySet()) {
-                    if (number < e.getValue()) {
-                        key = e.getKey();
-                        break;
-                    }
+            if (this.aliasItems != null && this.aliasItems.length > 0) {
+                // Picks a slot of the table and then either its item or its alias
+                double number = rnd.nextDouble() * aliasItems.length;
+                int slot = (int) number;
+                if (slot == aliasItems.length) { // rounding
+                    slot--;
                 }
-                return key;
+                return (number - slot < aliasProbabilities[slot])
+                       ? aliasItems[slot]
+                       : aliasItems[aliases[slot]];
             } else {
                 return null;
             }
@@ -125,32 +130,63 @@ public final class PredefinedListDomain extends Domain {
 
     /**
      * Normalizes the frequencies, so that it is not required that
-     * frequencies sum up 1 and distributes the items in the range [0,1).
+     * frequencies sum up 1, and builds an alias table (Vose's method), which
+     * allows items to be drawn in constant time.
      *
      * @param itemMix   the items frequencies
      */
-    private void setItemSetRanges(LinkedHashMap<Object, Double> itemMix) {
+    private void buildAliasTable(LinkedHashMap<Object, Double> itemMix) {
         if (itemMix != null) {
+            int n = itemMix.size();
+            Object[] its = new Object[n];
+            double[] probs = new double[n];
+            int[] als = new int[n];
+
             double total = 0;
+            int i = 0;
+            for (Entry<Object, Double> e : itemMix.entrySet()) {
+                its[i] = e.getKey();
+                probs[i] = e.getValue();
+                total += probs[i];
+                i++;
+            }
 
-            Iterator<Double> freqIter = itemMix.values().iterator();
-            while (freqIter.hasNext()) {
-                total += freqIter.next();
+            // Scales the frequencies so that they average 1
+            int[] small = new int[n];
+            int[] large = new int[n];
+            int smallCount = 0, largeCount = 0;
+            for (i = 0; i < n; i++) {
+                probs[i] = probs[i] * n / total;
+                if (probs[i] < 1) {
+                    small[smallCount++] = i;
+                } else {
+                    large[largeCount++] = i;
+                }
             }
 
-            Iterator<Entry<Object, Double>> setValueIter =
-                itemMix.entrySet().iterator();
-            Entry<Object, Double> e;
-            Double value;
-            Double previousValue = 0.0;
-            while (setValueIter.hasNext()) {
-                e = setValueIter.next();
-                value = previousValue + e.getValue() / total;
-                previousValue = value;
-                itemMix.put(e.getKey(), value);
+            // Each "small" slot is topped up by a "large" item
+            while (smallCount > 0 && largeCount > 0) {
+                int s = small[--smallCount];
+                int l = large[--largeCount];
+                als[s] = l;
+                probs[l] = (probs[l] + probs[s]) - 1;
+                if (probs[l] < 1) {
+                    small[smallCount++] = l;
+                } else {
+                    large[largeCount++] = l;
+                }
+            }
+            // Remaining slots are full (up to rounding errors)
+            while (largeCount > 0) {
+                probs[large[--largeCount]] = 1;
+            }
+            while (smallCount > 0) {
+                probs[small[--smallCount]] = 1;
             }
 
-            this.itemSetRanges = itemMix;
+            this.aliasItems = its;
+            this.aliasProbabilities = probs;
+            this.aliases = als;
         } else {
             System.err.println("WARNING: PredefinedListDomain's itemset"
                              + " was set to null.");
@@ -55,6 +55,26 @@ public final class RandomDomain extends Domain {
         return this.variate.generate();
     }
 
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double generateDouble(Event event) {
+        return this.variate.generate();
+    }
+
+    @Override
+    public long generateLong(Event event) {
+        return this.variate.generateLong();
+    }
+
+    @Override
+    public int generateInt(Event event) {
+        return this.variate.generateInt();
+    }
+
     /**
      *
      * @return  the random variate used for generating this domain's values
@@ -0,0 +1,276 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.basic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import pt.uc.dei.fincos.random.Variate;
+
+/**
+ * A domain that generates, for each key (e.g., a stock symbol), a random
+ * walk that departs from the last value generated for that key, like the
+ * price of a stock. The key is the value of another attribute of the same
+ * event, which must precede this one in the event type.
+ *
+ * The last value of each key is kept in a primitive array, indexed by the
+ * key: numeric keys are used as indexes and string keys by their trailing
+ * number (e.g., "SYM42" is key 42), both modulo the cardinality; other keys
+ * are indexed by their hash code. Values are updated without locking.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Domain
+ * @see SkewedDomain
+ * @see Variate
+ *
+ */
+public final class RandomWalkDomain extends Domain {
+    /** serial id. */
+    private static final long serialVersionUID = 2046375531709282216L;
+
+    /** How steps are applied to the last value. */
+    public enum Mode {
+        /** value = last value + step. */
+        ADDITIVE,
+        /** value = last value * (1 + step). */
+        GEOMETRIC
+    };
+
+    /** Mixed into the seed of the step variate, so that it differs from the initial one. */
+    private static final long STEP_SEED_MASK = 0x5DEECE66DL;
+
+    /** Marks keys for which no value has been generated yet. */
+    private static final long UNSET = 0x7ff8dead0000beefL;
+
+    /** The index of the attribute that holds the key of the event. */
+    private final int keyIndex;
+
+    /** The number of distinct keys. */
+    private final int cardinality;
+
+    /** How steps are applied to the last value. */
+    private final Mode mode;
+
+    /** A random variate used for generating the initial value of each key. */
+    private final Variate initialVariate;
+
+    /** A random variate used for generating the steps of the walks. */
+    private final Variate stepVariate;
+
+    /** The lowest value the walks can take. */
+    private double min = Double.NEGATIVE_INFINITY;
+
+    /** The highest value the walks can take. */
+    private double max = Double.POSITIVE_INFINITY;
+
+    /** The last value generated for each key (as the bits of a double). */
+    private final AtomicLongArray lastValues;
+
+    /**
+     * Creates a new Random Walk domain.
+     *
+     * @param keyIndex          the index of the attribute that holds the key
+     * @param cardinality       the number of distinct keys
+     * @param mode              how steps are applied to the last value
+     * @param initialVariate    a random variate used for generating the
+     *                          initial value of each key
+     * @param stepVariate       a random variate used for generating the steps
+     */
+    public RandomWalkDomain(int keyIndex, int cardinality, Mode mode,
+            Variate initialVariate, Variate stepVariate) {
+        if (keyIndex < 0 || cardinality < 1) {
+            throw new IllegalArgumentException("Invalid random walk parameters ("
+                                             + keyIndex + ", " + cardinality + ").");
+        }
+        this.keyIndex = keyIndex;
+        this.cardinality = cardinality;
+        this.mode = mode;
+        this.initialVariate = initialVariate;
+        this.stepVariate = stepVariate;
+        this.lastValues = new AtomicLongArray(cardinality);
+        for (int i = 0; i < cardinality; i++) {
+            lastValues.set(i, UNSET);
+        }
+    }
+
+    /**
+     * Limits the values the walks can take (values beyond the bounds are
+     * clamped).
+     *
+     * @param min   the lowest value
+     * @param max   the highest value
+     */
+    public void setBounds(double min, double max) {
+        if (min > max) {
+            throw new IllegalArgumentException("Invalid bounds (" + min + ", " + max + ").");
+        }
+        this.min = min;
+        this.max = max;
+    }
+
+    @Override
+    public Object generateValue() {
+        return nextValue(0);
+    }
+
+    @Override
+    public Object generateValue(Event event) {
+        return nextValue(indexOf(event.getAttributeValue(keyIndex)));
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double generateDouble(Event event) {
+        return nextValue(indexOf(event.getAttributeValue(keyIndex)));
+    }
+
+    /**
+     * Advances the walk of a key.
+     *
+     * @param index     the index of the key
+     * @return          the new value of the key
+     */
+    private double nextValue(int index) {
+        double step = stepVariate.generate();
+        long previous, next;
+        double value;
+        do {
+            previous = lastValues.get(index);
+            if (previous == UNSET) {
+                value = initialVariate.generate();
+            } else if (mode == Mode.GEOMETRIC) {
+                value = Double.longBitsToDouble(previous) * (1 + step);
+            } else {
+                value = Double.longBitsToDouble(previous) + step;
+            }
+            value = Math.min(max, Math.max(min, value));
+            next = Double.doubleToLongBits(value);
+        } while (!lastValues.compareAndSet(index, previous, next));
+        return value;
+    }
+
+    /**
+     * Maps a key to an index of the array of last values.
+     *
+     * @param key   the key
+     * @return      an index in the range [0, cardinality)
+     */
+    private int indexOf(Object key) {
+        long k;
+        if (key instanceof Number) {
+            k = ((Number) key).longValue();
+        } else if (key instanceof String) {
+            k = trailingNumber((String) key);
+        } else {
+            k = key != null ? key.hashCode() : 0;
+        }
+        int index = (int) (k % cardinality);
+        return index >= 0 ? index : index + cardinality;
+    }
+
+    /**
+     * Extracts the number at the end of a string key (e.g., 42 in "SYM42"),
+     * or its hash code if it does not end with a number.
+     *
+     * @param key   the key
+     * @return      the number at the end of the key
+     */
+    private static long trailingNumber(String key) {
+        long number = 0;
+        long weight = 1;
+        int i = key.length() - 1;
+        while (i >= 0 && key.charAt(i) >= '0' && key.charAt(i) <= '9' && weight <= 1000000000000000L) {
+            number += (key.charAt(i) - '0') * weight;
+            weight *= 10;
+            i--;
+        }
+        return weight > 1 ? number : key.hashCode();
+    }
+
+    /**
+     *
+     * @return  the index of the attribute that holds the key of the event
+     */
+    public int getKeyIndex() {
+        return keyIndex;
+    }
+
+    /**
+     *
+     * @return  the number of distinct keys
+     */
+    public int getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     *
+     * @return  how steps are applied to the last value
+     */
+    public Mode getMode() {
+        return mode;
+    }
+
+    /**
+     *
+     * @return  the random variate used for generating the initial value of each key
+     */
+    public Variate getInitialVariate() {
+        return initialVariate;
+    }
+
+    /**
+     *
+     * @return  the random variate used for generating the steps of the walks
+     */
+    public Variate getStepVariate() {
+        return stepVariate;
+    }
+
+    /**
+     *
+     * @return  the lowest value the walks can take
+     */
+    public double getMin() {
+        return min;
+    }
+
+    /**
+     *
+     * @return  the highest value the walks can take
+     */
+    public double getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return "Random walk";
+    }
+
+    @Override
+    public void setRandomSeed(Long seed) {
+        this.initialVariate.setRandomSeed(seed);
+        this.stepVariate.setRandomSeed(seed != null ? seed ^ STEP_SEED_MASK : null);
+    }
+}
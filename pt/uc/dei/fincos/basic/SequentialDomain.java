@@ -18,6 +18,8 @@
 
 package pt.uc.dei.fincos.basic;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 import pt.uc.dei.fincos.random.Variate;
 
 /**
@@ -25,6 +27,12 @@ import pt.uc.dei.fincos.random.Variate;
  * are specified. Both the initial value and the increment are instances of the
  * <tt>Variate</tt> class.
  *
+ * Values are generated without locking. Optionally, the domain can be
+ * partitioned among the threads that generate events: each thread then
+ * owns an interleaved sub-sequence (with constant increments, thread i out
+ * of n generates the (i+1)-th, (n+i+1)-th, (2n+i+1)-th... values of the
+ * sequence), so that threads do not share any state at all.
+ *
  * @author  Marcelo R.N. Mendes
  *
  * @see Domain
@@ -37,8 +45,14 @@ public final class SequentialDomain extends Domain {
     /** serial id. */
     private static final long serialVersionUID = -6565555446467539524L;
 
-    /** Keeps track of the previously generated value. */
-    private double previousValue;
+    /** Keeps track of the previously generated value (as the bits of a double). */
+    private final AtomicLong previousValue;
+
+    /** Indicates if the sequence is partitioned among the generating threads. */
+    private boolean partitioned = false;
+
+    /** The number of partitions of the sequence this domain generates values for. */
+    private final int stride;
 
     /** A random variate used for generating the initial value for this domain. */
     private Variate initialVariate;
@@ -56,20 +70,91 @@ public final class SequentialDomain extends Domain {
      */
     public SequentialDomain(Variate initialValueVariate,
             Variate incrementVariate) {
-        this.previousValue = initialValueVariate.generate();
+        this(initialValueVariate, incrementVariate,
+             initialValueVariate.generate(), 1);
+    }
+
+    /**
+     *
+     * @param initialValueVariate   A random variate used for generating the
+     *                              initial value for this domain.
+     * @param incrementVariate      A random variate used for generating the
+     *                              increment for this domain.
+     * @param previousValue         The value preceding the first generated value
+     * @param stride                The number of partitions of the sequence
+     */
+    private SequentialDomain(Variate initialValueVariate, Variate incrementVariate,
+            double previousValue, int stride) {
+        this.previousValue = new AtomicLong(Double.doubleToLongBits(previousValue));
         this.initialVariate = initialValueVariate;
         this.incrementVariate = incrementVariate;
+        this.stride = stride;
     }
 
 
     @Override
     public Object generateValue() {
-        double incrementValue = this.incrementVariate.generate();
-        synchronized (this) {
-            double value = this.previousValue + incrementValue;
-            this.previousValue = value;
-            return value;
-        }
+        return nextValue();
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return true;
+    }
+
+    @Override
+    public double generateDouble(Event event) {
+        return nextValue();
+    }
+
+    /**
+     * Advances the sequence.
+     *
+     * @return  the next value of the sequence
+     */
+    private double nextValue() {
+        double incrementValue = stride * this.incrementVariate.generate();
+        long previous, next;
+        do {
+            previous = this.previousValue.get();
+            next = Double.doubleToLongBits(Double.longBitsToDouble(previous) + incrementValue);
+        } while (!this.previousValue.compareAndSet(previous, next));
+        return Double.longBitsToDouble(next);
+    }
+
+    /**
+     * Creates the sub-sequence of this domain owned by one of the threads
+     * that generate its values (partitioned mode).
+     *
+     * @param index     the index of the partition (in [0, count))
+     * @param count     the number of partitions
+     * @return          a domain generating the values of the partition
+     */
+    public SequentialDomain partition(int index, int count) {
+        double first = Double.longBitsToDouble(previousValue.get())
+                       + (index + 1) * incrementVariate.generate();
+        return new SequentialDomain(initialVariate, incrementVariate,
+                                    first - count * incrementVariate.generate(),
+                                    count);
+    }
+
+    /**
+     * Makes the sequence be partitioned among the threads that generate
+     * events, rather than shared by them.
+     *
+     * @param partitioned   <tt>true</tt> for partitioning the sequence
+     */
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if the sequence is partitioned among the
+     *          generating threads, <tt>false</tt> if it is shared
+     */
+    public boolean isPartitioned() {
+        return partitioned;
     }
 
     /**
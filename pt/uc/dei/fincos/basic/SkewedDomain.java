@@ -0,0 +1,335 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.basic;
+
+import java.util.Random;
+
+/**
+ * A domain that generates keys (e.g., symbols, customer ids) from a set of
+ * <tt>cardinality</tt> keys, with a skewed popularity. Two distributions
+ * are supported:
+ * <ul>
+ *  <li>ZIPF: the i-th most popular key has a probability proportional to
+ *      1/i^exponent. Keys are drawn in constant time by rejection-inversion
+ *      (W. Hormann and G. Derflinger, "Rejection-inversion to generate
+ *      variates from monotone discrete distributions", 1996), without any
+ *      per-key table;</li>
+ *  <li>HOTSPOT: a fraction of the keys (the "hot set") receives a fixed
+ *      fraction of the accesses, uniformly; the remaining keys share the
+ *      remaining accesses, also uniformly.</li>
+ * </ul>
+ *
+ * Keys are generated as numbers (0 being the most popular key) or, if a
+ * prefix is specified, as strings (e.g., "SYM0", "SYM1", ...).
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Domain
+ * @see PredefinedListDomain
+ *
+ */
+public final class SkewedDomain extends Domain {
+    /** serial id. */
+    private static final long serialVersionUID = -1785004526388131626L;
+
+    /** Distribution of the popularity of keys. */
+    public enum Distribution {
+        /** popularity of the i-th key proportional to 1/i^exponent. */
+        ZIPF,
+        /** a hot set of keys receives a fixed fraction of the accesses. */
+        HOTSPOT
+    };
+
+    /** The distribution of the popularity of keys. */
+    private final Distribution distribution;
+
+    /** The number of distinct keys. */
+    private final long cardinality;
+
+    /** Exponent of the Zipf distribution. */
+    private double exponent;
+
+    /** Fraction of the keys that are hot (HOTSPOT distribution). */
+    private double hotFraction;
+
+    /** Fraction of the accesses that go to hot keys (HOTSPOT distribution). */
+    private double hotProbability;
+
+    /** Prefix of the keys, if they are generated as strings. */
+    private final String keyPrefix;
+
+    /** Random number generator. */
+    private Random rnd;
+
+    /** H(1.5) - 1 (Zipf distribution). */
+    private double hIntegralX1;
+
+    /** H(cardinality + 0.5) (Zipf distribution). */
+    private double hIntegralN;
+
+    /** Acceptance threshold that avoids most evaluations of H (Zipf distribution). */
+    private double threshold;
+
+    /**
+     * Creates a domain with keys following a Zipf distribution.
+     *
+     * @param cardinality   the number of distinct keys
+     * @param exponent      the exponent of the distribution (0 for uniform;
+     *                      the higher, the more skewed)
+     * @param keyPrefix     the prefix of the keys (<tt>null</tt> for numeric keys)
+     * @param randomSeed    seed for random number generation
+     */
+    public SkewedDomain(long cardinality, double exponent, String keyPrefix, Long randomSeed) {
+        if (cardinality < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Invalid Zipf parameters ("
+                                             + cardinality + ", " + exponent + ").");
+        }
+        this.distribution = Distribution.ZIPF;
+        this.cardinality = cardinality;
+        this.exponent = exponent;
+        this.keyPrefix = keyPrefix;
+        this.setRandomSeed(randomSeed);
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(cardinality + 0.5);
+        this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * Creates a domain with keys following a hotspot distribution.
+     *
+     * @param cardinality       the number of distinct keys
+     * @param hotFraction       the fraction of the keys that are hot (in ]0, 1])
+     * @param hotProbability    the fraction of the accesses that go to hot keys (in [0, 1])
+     * @param keyPrefix         the prefix of the keys (<tt>null</tt> for numeric keys)
+     * @param randomSeed        seed for random number generation
+     */
+    public SkewedDomain(long cardinality, double hotFraction, double hotProbability,
+                        String keyPrefix, Long randomSeed) {
+        if (cardinality < 1 || hotFraction <= 0 || hotFraction > 1
+            || hotProbability < 0 || hotProbability > 1) {
+            throw new IllegalArgumentException("Invalid hotspot parameters ("
+                                             + cardinality + ", " + hotFraction
+                                             + ", " + hotProbability + ").");
+        }
+        this.distribution = Distribution.HOTSPOT;
+        this.cardinality = cardinality;
+        this.hotFraction = hotFraction;
+        this.hotProbability = hotProbability;
+        this.keyPrefix = keyPrefix;
+        this.setRandomSeed(randomSeed);
+    }
+
+    @Override
+    public Object generateValue() {
+        long key = nextKey();
+        if (keyPrefix != null) {
+            return keyPrefix + key;
+        } else {
+            return key;
+        }
+    }
+
+    @Override
+    public boolean isNumeric() {
+        return keyPrefix == null;
+    }
+
+    @Override
+    public double generateDouble(Event event) {
+        return nextKey();
+    }
+
+    @Override
+    public long generateLong(Event event) {
+        return nextKey();
+    }
+
+    /**
+     * Draws a key according to the configured distribution.
+     *
+     * @return  a key, in the range [0, cardinality)
+     */
+    private long nextKey() {
+        return distribution == Distribution.ZIPF ? nextZipfRank() - 1 : nextHotspotKey();
+    }
+
+    /**
+     * Draws a key according to the hotspot distribution.
+     *
+     * @return  a key, in the range [0, cardinality)
+     */
+    private long nextHotspotKey() {
+        long hotCount = Math.max(1, Math.round(cardinality * hotFraction));
+        if (hotCount == cardinality || rnd.nextDouble() < hotProbability) {
+            return (long) (rnd.nextDouble() * hotCount);
+        } else {
+            return hotCount + (long) (rnd.nextDouble() * (cardinality - hotCount));
+        }
+    }
+
+    /**
+     * Draws the rank of a key according to the Zipf distribution, by
+     * rejection-inversion: a continuous variate X is drawn by inverting the
+     * integral H of the hat function h(x) = 1/x^exponent, and its rounded
+     * value K is accepted if it falls under the histogram of the distribution
+     * (on average, fewer than 1.1 iterations are needed).
+     *
+     * @return  a rank, in the range [1, cardinality]
+     */
+    private long nextZipfRank() {
+        while (true) {
+            double u = hIntegralN + rnd.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            long k = (long) (x + 0.5);
+            if (k < 1) {
+                k = 1;
+            } else if (k > cardinality) {
+                k = cardinality;
+            }
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * H(x) = (x^(1-exponent) - 1) / (1 - exponent), or log(x) if exponent = 1.
+     *
+     * @param x     a real number
+     * @return      the integral of the hat function
+     */
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    /**
+     * h(x) = 1/x^exponent.
+     *
+     * @param x     a real number
+     * @return      the hat function
+     */
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    /**
+     * The inverse of H.
+     *
+     * @param x     a real number
+     * @return      y such that H(y) = x
+     */
+    private double hIntegralInverse(double x) {
+        double t = x * (1 - exponent);
+        if (t < -1) { // rounding
+            t = -1;
+        }
+        return Math.exp(helper1(t) * x);
+    }
+
+    /**
+     * log(1 + x) / x, accurate for values of x close to 0.
+     *
+     * @param x     a real number
+     * @return      log(1 + x) / x
+     */
+    private static double helper1(double x) {
+        if (Math.abs(x) > 1E-8) {
+            return Math.log1p(x) / x;
+        } else {
+            return 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+        }
+    }
+
+    /**
+     * (exp(x) - 1) / x, accurate for values of x close to 0.
+     *
+     * @param x     a real number
+     * @return      (exp(x) - 1) / x
+     */
+    private static double helper2(double x) {
+        if (Math.abs(x) > 1E-8) {
+            return Math.expm1(x) / x;
+        } else {
+            return 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+        }
+    }
+
+    /**
+     *
+     * @return  the distribution of the popularity of keys
+     */
+    public Distribution getDistribution() {
+        return distribution;
+    }
+
+    /**
+     *
+     * @return  the number of distinct keys
+     */
+    public long getCardinality() {
+        return cardinality;
+    }
+
+    /**
+     *
+     * @return  the exponent of the Zipf distribution
+     */
+    public double getExponent() {
+        return exponent;
+    }
+
+    /**
+     *
+     * @return  the fraction of the keys that are hot (HOTSPOT distribution)
+     */
+    public double getHotFraction() {
+        return hotFraction;
+    }
+
+    /**
+     *
+     * @return  the fraction of the accesses that go to hot keys (HOTSPOT distribution)
+     */
+    public double getHotProbability() {
+        return hotProbability;
+    }
+
+    /**
+     *
+     * @return  the prefix of the keys, or <tt>null</tt> if keys are numeric
+     */
+    public String getKeyPrefix() {
+        return keyPrefix;
+    }
+
+    @Override
+    public String toString() {
+        return "Skewed";
+    }
+
+    @Override
+    public void setRandomSeed(final Long seed) {
+        if (seed != null) {
+            this.rnd = new Random(seed);
+        } else {
+            this.rnd = new Random();
+        }
+    }
+}
@@ -54,9 +54,14 @@ import pt.uc.dei.fincos.basic.EventType;
 import pt.uc.dei.fincos.basic.Globals;
 import pt.uc.dei.fincos.basic.PredefinedListDomain;
 import pt.uc.dei.fincos.basic.RandomDomain;
+import pt.uc.dei.fincos.basic.RandomWalkDomain;
 import pt.uc.dei.fincos.basic.SequentialDomain;
+import pt.uc.dei.fincos.basic.SkewedDomain;
 import pt.uc.dei.fincos.controller.gui.Controller_GUI;
+import pt.uc.dei.fincos.driver.DatasetCache;
 import pt.uc.dei.fincos.driver.ExternalFileWorkloadPhase;
+import pt.uc.dei.fincos.driver.Pacer;
+import pt.uc.dei.fincos.driver.RateProfile;
 import pt.uc.dei.fincos.driver.Scheduler.ArrivalProcess;
 import pt.uc.dei.fincos.driver.SyntheticWorkloadPhase;
 import pt.uc.dei.fincos.driver.WorkloadPhase;
@@ -176,6 +181,18 @@ public final class ConfigurationParser {
             driver.setAttribute("address", dr.getAddress().getHostAddress());
             driver.setAttribute("threadCount", dr.getThreadCount() + "");
             driver.setAttribute("connection", dr.getConnection().getAlias());
+            driver.setAttribute("pacing",
+                                dr.getPacingMode() == Pacer.NANO_PACING ? "NANO" : "MILLIS");
+            driver.setAttribute("batchSize", dr.getMaxBatchSize() + "");
+            if (dr.isReuseEvents()) {
+                driver.setAttribute("reuseEvents", "true");
+            }
+            if (dr.getDatasetCacheSize() != DatasetCache.DEFAULT_CACHE_SIZE) {
+                driver.setAttribute("datasetCacheSize", dr.getDatasetCacheSize() + "");
+            }
+            if (dr.isCompressDatasets()) {
+                driver.setAttribute("compressDatasets", "true");
+            }
 
             Element workload, phase, schema;
             workload = doc.createElement("Workload");
@@ -194,6 +211,24 @@ public final class ConfigurationParser {
                     finalRate.appendChild(doc.createTextNode("" + sPhase.getFinalRate()));
                     Element arrivalProcess = doc.createElement("arrivalProcess");
                     arrivalProcess.appendChild(doc.createTextNode("" + sPhase.getArrivalProcess()));
+                    switch (sPhase.getArrivalProcess()) {
+                    case ON_OFF:
+                        arrivalProcess.setAttribute("burstRatio", "" + sPhase.getBurstRatio());
+                        arrivalProcess.setAttribute("burstDuration", "" + sPhase.getMeanBurstDuration());
+                        arrivalProcess.setAttribute("idleDuration", "" + sPhase.getMeanIdleDuration());
+                        break;
+                    case SELF_SIMILAR:
+                        arrivalProcess.setAttribute("burstRatio", "" + sPhase.getBurstRatio());
+                        arrivalProcess.setAttribute("burstDuration", "" + sPhase.getMeanBurstDuration());
+                        arrivalProcess.setAttribute("idleDuration", "" + sPhase.getMeanIdleDuration());
+                        arrivalProcess.setAttribute("hurst", "" + sPhase.getHurstParameter());
+                        break;
+                    case PARETO:
+                        arrivalProcess.setAttribute("shape", "" + sPhase.getParetoShape());
+                        break;
+                    default:
+                        break;
+                    }
                     phase.appendChild(duration);
                     phase.appendChild(initialRate);
                     phase.appendChild(finalRate);
@@ -206,12 +241,24 @@ public final class ConfigurationParser {
                         dataGen.setAttribute("mode", "Runtime");
                     } else {
                         dataGen.setAttribute("mode", "Dataset");
+                        if (sPhase.isPreloadDataset()) {
+                            dataGen.setAttribute("preload", "true");
+                        }
                     }
                     Long randomSeed = sPhase.getRandomSeed();
                     if (randomSeed != null) {
                         dataGen.setAttribute("randomSeed", "" + randomSeed);
                     }
                     phase.appendChild(dataGen);
+                    if (sPhase.getSourceCount() > 0) {
+                        Element sources = doc.createElement("Sources");
+                        sources.setAttribute("count", "" + sPhase.getSourceCount());
+                        sources.setAttribute("rateSkew", "" + sPhase.getSourceRateSkew());
+                        phase.appendChild(sources);
+                    }
+                    if (sPhase.getRateProfile() != null) {
+                        phase.appendChild(this.saveRateProfile(doc, sPhase.getRateProfile()));
+                    }
                     workload.appendChild(phase);
                 } else if (w instanceof ExternalFileWorkloadPhase) {
                     efPhase = (ExternalFileWorkloadPhase) w;
@@ -259,6 +306,23 @@ public final class ConfigurationParser {
                     phase.appendChild(timestamps);
                     phase.appendChild(eventTypes);
                     phase.appendChild(loopCount);
+                    if (efPhase.isParallelReplay()) {
+                        Element replay = doc.createElement("replay");
+                        replay.setAttribute("parallel", "true");
+                        replay.setAttribute("keyIndex", "" + efPhase.getPartitionKeyIndex());
+                        phase.appendChild(replay);
+                    }
+                    if (efPhase.hasReplayWindow() || efPhase.isIndexed()) {
+                        Element window = doc.createElement("window");
+                        if (efPhase.getReplayStart() != Long.MIN_VALUE) {
+                            window.setAttribute("start", "" + efPhase.getReplayStart());
+                        }
+                        if (efPhase.getReplayEnd() != Long.MAX_VALUE) {
+                            window.setAttribute("end", "" + efPhase.getReplayEnd());
+                        }
+                        window.setAttribute("indexed", "" + efPhase.isIndexed());
+                        phase.appendChild(window);
+                    }
                     workload.appendChild(phase);
                 }
             }
@@ -392,6 +456,21 @@ public final class ConfigurationParser {
 
                 ret[i] = new DriverConfig(driverName, driverAddress, connCfg, wps, threadCount,
                         log, fieldsToLog, logSamplingRate, logFlushInterval);
+                // Optional attributes; older configuration files use millisecond pacing
+                // and no batching
+                if (driver.getAttribute("pacing").equalsIgnoreCase("NANO")) {
+                    ret[i].setPacingMode(Pacer.NANO_PACING);
+                }
+                if (!driver.getAttribute("batchSize").isEmpty()) {
+                    ret[i].setMaxBatchSize(Integer.parseInt(driver.getAttribute("batchSize")));
+                }
+                ret[i].setReuseEvents(Boolean.parseBoolean(driver.getAttribute("reuseEvents")));
+                if (!driver.getAttribute("datasetCacheSize").isEmpty()) {
+                    ret[i].setDatasetCacheSize(
+                            Integer.parseInt(driver.getAttribute("datasetCacheSize")));
+                }
+                ret[i].setCompressDatasets(
+                        Boolean.parseBoolean(driver.getAttribute("compressDatasets")));
             }
         }
 
@@ -571,16 +650,22 @@ public final class ConfigurationParser {
             phaseInitialRate = Double.parseDouble(initialRateStr);
             phaseFinalRate = Double.parseDouble(finalRateStr);
             ArrivalProcess arrivalProcess;
+            Element arrivalProcessElem = (Element) phase.getElementsByTagName("arrivalProcess").item(0);
 
-            if (phase.getElementsByTagName("arrivalProcess").item(0) != null) {
+            if (arrivalProcessElem != null) {
                 String  arrivaProcessStr =
-                        phase.getElementsByTagName("arrivalProcess").item(0).
-                        getFirstChild().getNodeValue();
+                        arrivalProcessElem.getFirstChild().getNodeValue();
                 if (arrivaProcessStr != null && !arrivaProcessStr.isEmpty()) {
                     if (arrivaProcessStr.equalsIgnoreCase("DETERMINISTIC")) {
                         arrivalProcess = ArrivalProcess.DETERMINISTIC;
                     } else if (arrivaProcessStr.equalsIgnoreCase("POISSON")) {
                         arrivalProcess = ArrivalProcess.POISSON;
+                    } else if (arrivaProcessStr.equalsIgnoreCase("ON_OFF")) {
+                        arrivalProcess = ArrivalProcess.ON_OFF;
+                    } else if (arrivaProcessStr.equalsIgnoreCase("PARETO")) {
+                        arrivalProcess = ArrivalProcess.PARETO;
+                    } else if (arrivaProcessStr.equalsIgnoreCase("SELF_SIMILAR")) {
+                        arrivalProcess = ArrivalProcess.SELF_SIMILAR;
                     } else {
                         System.err.println("WARNING: Invalid arrival process. "
                                 + "Setting to default: DETERMINISTIC");
@@ -618,10 +703,44 @@ public final class ConfigurationParser {
                 deterministicEventMix = false;
             }
 
-            ret = new SyntheticWorkloadPhase(phaseDuration, phaseInitialRate,
+            SyntheticWorkloadPhase sPhase =
+                    new SyntheticWorkloadPhase(phaseDuration, phaseInitialRate,
                     phaseFinalRate, arrivalProcess,
                     this.getSchema(schema, randomSeed),
                     deterministicEventMix, dataGenMode, randomSeed);
+            sPhase.setPreloadDataset(Boolean.parseBoolean(dataGen.getAttribute("preload")));
+            // parameters of bursty and heavy-tailed arrival processes (optional)
+            if (arrivalProcessElem != null) {
+                String burstRatioStr = arrivalProcessElem.getAttribute("burstRatio");
+                if (burstRatioStr != null && !burstRatioStr.isEmpty()) {
+                    sPhase.setBurstParameters(Double.parseDouble(burstRatioStr),
+                            Double.parseDouble(arrivalProcessElem.getAttribute("burstDuration")),
+                            Double.parseDouble(arrivalProcessElem.getAttribute("idleDuration")));
+                }
+                String shapeStr = arrivalProcessElem.getAttribute("shape");
+                if (shapeStr != null && !shapeStr.isEmpty()) {
+                    sPhase.setParetoShape(Double.parseDouble(shapeStr));
+                }
+                String hurstStr = arrivalProcessElem.getAttribute("hurst");
+                if (hurstStr != null && !hurstStr.isEmpty()) {
+                    sPhase.setHurstParameter(Double.parseDouble(hurstStr));
+                }
+            }
+            // "many sources" mode (optional)
+            Element sources = (Element) phase.getElementsByTagName("Sources").item(0);
+            if (sources != null) {
+                sPhase.setSourceCount(Integer.parseInt(sources.getAttribute("count")));
+                String rateSkewStr = sources.getAttribute("rateSkew");
+                if (rateSkewStr != null && !rateSkewStr.isEmpty()) {
+                    sPhase.setSourceRateSkew(Double.parseDouble(rateSkewStr));
+                }
+            }
+            // Rate curve (optional)
+            Element rateProfile = (Element) phase.getElementsByTagName("RateProfile").item(0);
+            if (rateProfile != null) {
+                sPhase.setRateProfile(this.getRateProfile(rateProfile));
+            }
+            ret = sPhase;
         } else if (type.equalsIgnoreCase("External File")) {
             String path =
                     phase.getElementsByTagName("path").item(0).getFirstChild().getNodeValue();
@@ -668,10 +787,29 @@ public final class ConfigurationParser {
                             : !containsTypes
                               ? -1
                               : containsTS ? 1 : 0;
-            ret = new ExternalFileWorkloadPhase(path, delimiter, containsTS, useTS,
+            ExternalFileWorkloadPhase efPhase =
+                    new ExternalFileWorkloadPhase(path, delimiter, containsTS, useTS,
                                                 timeUnit, tsIndex, includeTS,
                                                 containsTypes, typeIndex, singleTypeName,
                                                 loopCount, eventRate);
+            Element replay = (Element) phase.getElementsByTagName("replay").item(0);
+            if (replay != null) { // optional element
+                efPhase.setParallelReplay(Boolean.parseBoolean(replay.getAttribute("parallel")));
+                String keyIndexStr = replay.getAttribute("keyIndex");
+                if (keyIndexStr != null && !keyIndexStr.isEmpty()) {
+                    efPhase.setPartitionKeyIndex(Integer.parseInt(keyIndexStr));
+                }
+            }
+            Element window = (Element) phase.getElementsByTagName("window").item(0);
+            if (window != null) { // optional element
+                String startStr = window.getAttribute("start");
+                String endStr = window.getAttribute("end");
+                efPhase.setReplayWindow(
+                        startStr.isEmpty() ? Long.MIN_VALUE : Long.parseLong(startStr),
+                        endStr.isEmpty() ? Long.MAX_VALUE : Long.parseLong(endStr));
+                efPhase.setIndexed(Boolean.parseBoolean(window.getAttribute("indexed")));
+            }
+            ret = efPhase;
         } else {
             throw new Exception("Invalid phase type.");
         }
@@ -780,6 +918,14 @@ public final class ConfigurationParser {
                 Element domain = (Element) att.getElementsByTagName("Domain").item(0);
                 Domain attDomain =
                         this.parseDomain(domain, randomSeed != null ? randomSeed + j : j);
+                if (attDomain instanceof RandomWalkDomain) {
+                    // Keys must be generated before the attributes that depend on them
+                    int keyIndex = ((RandomWalkDomain) attDomain).getKeyIndex();
+                    if (keyIndex < 0 || keyIndex >= j) {
+                        throw new Exception("Invalid key index (" + keyIndex
+                                          + ") for attribute \"" + attName + "\".");
+                    }
+                }
                 attributes[j] = new Attribute(attDataType, attName, attDomain);
             }
             ret.put(new EventType(typeName, attributes), typeMix);
@@ -832,10 +978,106 @@ public final class ConfigurationParser {
             return this.parseSequentialDomain(domain, randomSeed);
         } else if (type.equalsIgnoreCase("PREDEFINED_LIST")) {
             return this.parsePredefinedList(domain, randomSeed);
+        } else if (type.equalsIgnoreCase("SKEWED")) {
+            return this.parseSkewedDomain(domain, randomSeed);
+        } else if (type.equalsIgnoreCase("RANDOM_WALK")) {
+            return this.parseRandomWalkDomain(domain, randomSeed);
         }
         return null;
     }
 
+    /**
+     * Parses a random walk Domain.
+     *
+     * @param domain        a XML element containing domain's parameters
+     * @param randomSeed    the seed used in random number generation
+     *
+     * @return              an instance of <tt>RandomWalkDomain</tt>
+     * @throws Exception    if an error occurs while parsing the domain
+     *
+     * @see                 RandomWalkDomain
+     */
+    private Domain parseRandomWalkDomain(Element domain, Long randomSeed)
+    throws Exception {
+        Variate initialValueVariate = this.parseValueVariate(
+                (Element) domain.getElementsByTagName("InitialValue").item(0), randomSeed);
+        Variate stepVariate = this.parseValueVariate(
+                (Element) domain.getElementsByTagName("Step").item(0), randomSeed);
+        RandomWalkDomain.Mode mode =
+            domain.getAttribute("mode").equalsIgnoreCase("Geometric")
+            ? RandomWalkDomain.Mode.GEOMETRIC
+            : RandomWalkDomain.Mode.ADDITIVE;
+        RandomWalkDomain walk = new RandomWalkDomain(
+                Integer.parseInt(domain.getAttribute("keyIndex")),
+                Integer.parseInt(domain.getAttribute("cardinality")),
+                mode, initialValueVariate, stepVariate);
+        String minStr = domain.getAttribute("min");
+        String maxStr = domain.getAttribute("max");
+        if (!minStr.isEmpty() || !maxStr.isEmpty()) {
+            walk.setBounds(minStr.isEmpty() ? Double.NEGATIVE_INFINITY : Double.parseDouble(minStr),
+                           maxStr.isEmpty() ? Double.POSITIVE_INFINITY : Double.parseDouble(maxStr));
+        }
+        walk.setRandomSeed(randomSeed);
+        return walk;
+    }
+
+    /**
+     * Parses a value of a domain (e.g., the initial value of a sequence),
+     * which is either a constant or a random variable.
+     *
+     * @param value         a XML element containing the value
+     * @param randomSeed    the seed used in random number generation
+     *
+     * @return              a Variate generating the value
+     * @throws Exception    if an error occurs while parsing the value
+     */
+    private Variate parseValueVariate(Element value, Long randomSeed)
+    throws Exception {
+        if (value.getAttribute("type").equalsIgnoreCase("Constant")) {
+            String val = value.getFirstChild().getNodeValue();
+            return new ConstantVariate(Double.parseDouble(val));
+        } else if (value.getAttribute("type").equalsIgnoreCase("Random")) {
+            Element variate = (Element) value.getElementsByTagName("RandomVariable").item(0);
+            return this.parseRandomVariate(variate, randomSeed);
+        } else {
+            throw new Exception("Invalid variate type (\""
+                              + value.getAttribute("type") + "\").");
+        }
+    }
+
+    /**
+     * Parses a domain of skewed keys.
+     *
+     * @param domain        A XML element containing domain's parameters
+     * @param randomSeed    The seed used in random number generation
+     *
+     * @return              An instance of <tt>SkewedDomain</tt>
+     * @throws Exception    if an error occurs while parsing the domain
+     *
+     * @see                 SkewedDomain
+     */
+    private Domain parseSkewedDomain(Element domain, Long randomSeed)
+    throws Exception {
+        long cardinality = Long.parseLong(domain.getAttribute("cardinality"));
+        String keyPrefix = domain.getAttribute("keyPrefix");
+        if (keyPrefix.isEmpty()) {
+            keyPrefix = null;
+        }
+        String distribution = domain.getAttribute("distribution");
+        if (distribution.equalsIgnoreCase("Zipf")) {
+            return new SkewedDomain(cardinality,
+                                    Double.parseDouble(domain.getAttribute("exponent")),
+                                    keyPrefix, randomSeed);
+        } else if (distribution.equalsIgnoreCase("Hotspot")) {
+            return new SkewedDomain(cardinality,
+                                    Double.parseDouble(domain.getAttribute("hotFraction")),
+                                    Double.parseDouble(domain.getAttribute("hotProbability")),
+                                    keyPrefix, randomSeed);
+        } else {
+            throw new Exception("Invalid key distribution (\"" + distribution + "\").");
+        }
+    }
+
 
     /**
      * Parses a sequential Domain.
@@ -850,34 +1092,16 @@ public final class ConfigurationParser {
      */
     private Domain parseSequentialDomain(Element domain, Long randomSeed)
     throws Exception {
-        Variate initialValueVariate = null;
-        Variate incrementVariate = null;
         // Parses Initial Value
-        Element initialValue = (Element) domain.getElementsByTagName("InitialValue").item(0);
-        if (initialValue.getAttribute("type").equalsIgnoreCase("Constant")) {
-            String initVal = initialValue.getFirstChild().getNodeValue();
-            initialValueVariate = new ConstantVariate(Double.parseDouble(initVal));
-        } else if (initialValue.getAttribute("type").equalsIgnoreCase("Random")) {
-            Element variate = (Element) initialValue.getElementsByTagName("RandomVariable").item(0);
-            initialValueVariate = this.parseRandomVariate(variate, randomSeed);
-        } else {
-            throw new Exception("Invalid variate type (\""
-                              + initialValue.getAttribute("type") + "\").");
-        }
+        Variate initialValueVariate = this.parseValueVariate(
+                (Element) domain.getElementsByTagName("InitialValue").item(0), randomSeed);
         // Parses Increment
-        Element increment = (Element) domain.getElementsByTagName("Increment").item(0);
-        if (increment.getAttribute("type").equalsIgnoreCase("Constant")) {
-            String inc = increment.getFirstChild().getNodeValue();
-            incrementVariate = new ConstantVariate(Double.parseDouble(inc));
-        } else if (increment.getAttribute("type").equalsIgnoreCase("Random")) {
-            Element variate = (Element) increment.getElementsByTagName("RandomVariable").item(0);
-            incrementVariate = this.parseRandomVariate(variate, randomSeed);
-        } else {
-            throw new Exception("Invalid variate type (\""
-                    + increment.getAttribute("type") + "\").");
-        }
+        Variate incrementVariate = this.parseValueVariate(
+                (Element) domain.getElementsByTagName("Increment").item(0), randomSeed);
 
-        return new SequentialDomain(initialValueVariate, incrementVariate);
+        SequentialDomain seq = new SequentialDomain(initialValueVariate, incrementVariate);
+        seq.setPartitioned(Boolean.parseBoolean(domain.getAttribute("partitioned")));
+        return seq;
     }
 
 
@@ -971,6 +1195,67 @@ public final class ConfigurationParser {
         return rv;
     }
 
+    /**
+     * Retrieves the rate curve of a synthetic phase. Points, steps and
+     * spikes are applied in the order they appear in the XML element.
+     *
+     * @param profileElem   an XML element containing the rate curve of a phase
+     * @return              the rate curve
+     */
+    private RateProfile getRateProfile(Element profileElem) {
+        RateProfile profile = new RateProfile();
+        NodeList children = profileElem.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+            if (children.item(i).getNodeType() != Node.ELEMENT_NODE) {
+                continue;
+            }
+            Element e = (Element) children.item(i);
+            if (e.getTagName().equals("point")) {
+                profile.addPoint(Double.parseDouble(e.getAttribute("time")),
+                                 Double.parseDouble(e.getAttribute("rate")));
+            } else if (e.getTagName().equals("step")) {
+                profile.addStep(Double.parseDouble(e.getAttribute("time")),
+                                Double.parseDouble(e.getAttribute("rate")));
+            } else if (e.getTagName().equals("spike")) {
+                profile.addSpike(Double.parseDouble(e.getAttribute("time")),
+                                 Double.parseDouble(e.getAttribute("duration")),
+                                 Double.parseDouble(e.getAttribute("rate")));
+            } else if (e.getTagName().equals("sinusoid")) {
+                profile.setSinusoid(Double.parseDouble(e.getAttribute("amplitude")),
+                                    Double.parseDouble(e.getAttribute("period")));
+            } else {
+                System.err.println("WARNING: Unknown rate profile element ("
+                                   + e.getTagName() + "). Ignoring it.");
+            }
+        }
+        return profile;
+    }
+
+    /**
+     * Converts the rate curve of a phase to XML (steps and spikes are saved
+     * as the equivalent points).
+     *
+     * @param doc       used to create new elements
+     * @param profile   the rate curve
+     * @return          an XML Element representing the rate curve
+     */
+    private Element saveRateProfile(Document doc, RateProfile profile) {
+        Element profileElem = doc.createElement("RateProfile");
+        for (double[] p : profile.getPoints()) {
+            Element point = doc.createElement("point");
+            point.setAttribute("time", "" + p[0]);
+            point.setAttribute("rate", "" + p[1]);
+            profileElem.appendChild(point);
+        }
+        if (profile.getSinusoidAmplitude() > 0) {
+            Element sinusoid = doc.createElement("sinusoid");
+            sinusoid.setAttribute("amplitude", "" + profile.getSinusoidAmplitude());
+            sinusoid.setAttribute("period", "" + profile.getSinusoidPeriod());
+            profileElem.appendChild(sinusoid);
+        }
+        return profileElem;
+    }
+
     /**
      * Converts the schema of a phase to XML.
      *
@@ -1020,6 +1305,9 @@ public final class ConfigurationParser {
         if (d instanceof SequentialDomain) {
             SequentialDomain seq = (SequentialDomain) d;
             domain.setAttribute("type", "SEQUENTIAL");
+            if (seq.isPartitioned()) {
+                domain.setAttribute("partitioned", "true");
+            }
             Element initialValue = doc.createElement("InitialValue");
             this.saveVariate(doc, initialValue, seq.getInitialVariate());
             Element increment = doc.createElement("Increment");
@@ -1048,6 +1336,40 @@ public final class ConfigurationParser {
                     domain.appendChild(item);
                 }
             }
+        } else if (d instanceof SkewedDomain) {
+            SkewedDomain skewed = (SkewedDomain) d;
+            domain.setAttribute("type", "SKEWED");
+            domain.setAttribute("cardinality", "" + skewed.getCardinality());
+            if (skewed.getDistribution() == SkewedDomain.Distribution.ZIPF) {
+                domain.setAttribute("distribution", "Zipf");
+                domain.setAttribute("exponent", "" + skewed.getExponent());
+            } else {
+                domain.setAttribute("distribution", "Hotspot");
+                domain.setAttribute("hotFraction", "" + skewed.getHotFraction());
+                domain.setAttribute("hotProbability", "" + skewed.getHotProbability());
+            }
+            if (skewed.getKeyPrefix() != null) {
+                domain.setAttribute("keyPrefix", skewed.getKeyPrefix());
+            }
+        } else if (d instanceof RandomWalkDomain) {
+            RandomWalkDomain walk = (RandomWalkDomain) d;
+            domain.setAttribute("type", "RANDOM_WALK");
+            domain.setAttribute("keyIndex", "" + walk.getKeyIndex());
+            domain.setAttribute("cardinality", "" + walk.getCardinality());
+            domain.setAttribute("mode", walk.getMode() == RandomWalkDomain.Mode.GEOMETRIC
+                                        ? "Geometric" : "Additive");
+            if (walk.getMin() != Double.NEGATIVE_INFINITY) {
+                domain.setAttribute("min", "" + walk.getMin());
+            }
+            if (walk.getMax() != Double.POSITIVE_INFINITY) {
+                domain.setAttribute("max", "" + walk.getMax());
+            }
+            Element initialValue = doc.createElement("InitialValue");
+            this.saveVariate(doc, initialValue, walk.getInitialVariate());
+            Element step = doc.createElement("Step");
+            this.saveVariate(doc, step, walk.getStepVariate());
+            domain.appendChild(initialValue);
+            domain.appendChild(step);
         } else if (d instanceof RandomDomain) {
             RandomDomain rand = (RandomDomain) d;
             //domain.setAttribute("type", "RANDOM");
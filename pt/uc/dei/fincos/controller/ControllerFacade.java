@@ -40,6 +40,9 @@ import pt.uc.dei.fincos.basic.Step;
 import pt.uc.dei.fincos.driver.DriverRemoteFunctions;
 import pt.uc.dei.fincos.driver.SyntheticWorkloadPhase;
 import pt.uc.dei.fincos.driver.WorkloadPhase;
+import pt.uc.dei.fincos.perfmon.DriverPerfStats;
+import pt.uc.dei.fincos.perfmon.LatencyHistogram;
+import pt.uc.dei.fincos.perfmon.SinkPerfStats;
 import pt.uc.dei.fincos.sink.SinkRemoteFunctions;
 
 /**
@@ -52,6 +55,7 @@ import pt.uc.dei.fincos.sink.SinkRemoteFunctions;
  * 		3.2) Initialize Drivers and Sinks
  * 		3.3) Start, pause, stop load submission
  * 		3.4) Alter event submission rates
+ * 		3.5) Search for the highest sustainable event submission rate
  *
  * @author  Marcelo R.N. Mendes
  *
@@ -672,6 +676,102 @@ public final class ControllerFacade {
         remoteDr.alterRate(eventRateFactor);
     }
 
+    /**
+     * Searches for the highest event submission rate that meets a latency SLO.
+     * At each step, the event rates of all running Drivers are altered via RMI
+     * calls and, after a warm-up period, throughput and response times are
+     * measured at the Drivers and Sinks.
+     *
+     * Performance tracing is enabled on all connected Drivers and Sinks. Since
+     * performance stats are reset whenever they are retrieved, the search should
+     * not run while the Performance Monitor is open. When the search finishes,
+     * the event rates specified in the configuration file are restored.
+     *
+     * @param search        the search parameters; filled with the measured steps
+     * @throws Exception    if no Driver is running or an RMI call fails
+     */
+    public void runSaturationSearch(SaturationSearch search) throws Exception {
+        ArrayList<DriverRemoteFunctions> targetDrivers = new ArrayList<DriverRemoteFunctions>();
+        ArrayList<SinkRemoteFunctions> targetSinks = new ArrayList<SinkRemoteFunctions>();
+        synchronized (this) {
+            for (DriverRemoteFunctions remoteDr : remoteDrivers.values()) {
+                if (remoteDr != null && remoteDr.getStatus().getStep() == Step.RUNNING) {
+                    targetDrivers.add(remoteDr);
+                }
+            }
+            for (SinkRemoteFunctions remoteSink : remoteSinks.values()) {
+                if (remoteSink != null) {
+                    targetSinks.add(remoteSink);
+                }
+            }
+        }
+        if (targetDrivers.isEmpty()) {
+            throw new Exception("There is no running Driver.");
+        }
+        for (DriverRemoteFunctions remoteDr : targetDrivers) {
+            remoteDr.setPerfTracing(true);
+        }
+        for (SinkRemoteFunctions remoteSink : targetSinks) {
+            remoteSink.setPerfTracing(true);
+        }
+
+        try {
+            while (!search.isFinished()) {
+                double factor = search.getNextFactor();
+                for (DriverRemoteFunctions remoteDr : targetDrivers) {
+                    remoteDr.alterRate(factor);
+                }
+                Thread.sleep(search.getWarmupDuration() * 1000L);
+
+                // Discards the stats collected during warm-up
+                for (DriverRemoteFunctions remoteDr : targetDrivers) {
+                    remoteDr.getPerfStats();
+                }
+                for (SinkRemoteFunctions remoteSink : targetSinks) {
+                    remoteSink.getPerfStats();
+                }
+                long t0 = System.currentTimeMillis();
+                Thread.sleep(search.getStepDuration() * 1000L);
+
+                long inputCount = 0, outputCount = 0;
+                LatencyHistogram sendLag = new LatencyHistogram();
+                LatencyHistogram responseTimes = new LatencyHistogram();
+                for (DriverRemoteFunctions remoteDr : targetDrivers) {
+                    DriverPerfStats drStats = remoteDr.getPerfStats();
+                    for (Integer count : drStats.getStreamStats().values()) {
+                        inputCount += count;
+                    }
+                    sendLag.add(drStats.getSendLag());
+                }
+                long elapsed = System.currentTimeMillis() - t0;
+                for (SinkRemoteFunctions remoteSink : targetSinks) {
+                    SinkPerfStats sinkStats = remoteSink.getPerfStats();
+                    outputCount += sinkStats.getPeriodCount();
+                    responseTimes.add(sinkStats.getPeriodRT());
+                }
+                search.addStep(factor, elapsed, inputCount, outputCount,
+                               responseTimes, sendLag);
+
+                // Stops if load submission has finished in the meantime
+                boolean running = false;
+                for (DriverRemoteFunctions remoteDr : targetDrivers) {
+                    running |= remoteDr.getStatus().getStep() == Step.RUNNING;
+                }
+                if (!running) {
+                    break;
+                }
+            }
+        } finally {
+            for (DriverRemoteFunctions remoteDr : targetDrivers) {
+                try {
+                    remoteDr.alterRate(1.0);
+                } catch (Exception e) {
+                    // Driver is no longer running
+                }
+            }
+        }
+    }
+
     /**
      * Retrieves the current state of a Driver via RMI call.
      *
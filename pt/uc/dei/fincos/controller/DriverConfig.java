@@ -24,7 +24,9 @@ import java.util.Set;
 
 import pt.uc.dei.fincos.basic.Attribute;
 import pt.uc.dei.fincos.basic.EventType;
+import pt.uc.dei.fincos.driver.DatasetCache;
 import pt.uc.dei.fincos.driver.ExternalFileWorkloadPhase;
+import pt.uc.dei.fincos.driver.Pacer;
 import pt.uc.dei.fincos.driver.SyntheticWorkloadPhase;
 import pt.uc.dei.fincos.driver.WorkloadPhase;
 
@@ -48,6 +50,21 @@ public final class DriverConfig extends ComponentConfig implements Cloneable {
     /** The number of threads to be used during load generation. */
     private int threadCount;
 
+    /** How event submission is paced (millisecond or nanosecond resolution). */
+    private int pacingMode = Pacer.MILLIS_PACING;
+
+    /** Maximum number of late events sent in a single adapter call (1 = no batching). */
+    private int maxBatchSize = 1;
+
+    /** Indicates if Senders recycle Event instances on synthetic workloads. */
+    private boolean reuseEvents = false;
+
+    /** Maximum size of the cache of generated datasets, in megabytes (0 = no caching). */
+    private int datasetCacheSize = DatasetCache.DEFAULT_CACHE_SIZE;
+
+    /** Indicates if the data files of DATASET phases are compressed. */
+    private boolean compressDatasets = false;
+
     /**
      * Creates a Driver configuration.
      *
@@ -95,10 +112,16 @@ public final class DriverConfig extends ComponentConfig implements Cloneable {
 
     @Override
     protected Object clone() {
-        return new DriverConfig(this.getAlias(), this.getAddress(), this.getConnection(),
+        DriverConfig ret = new DriverConfig(this.getAlias(), this.getAddress(), this.getConnection(),
                 this.workload, this.threadCount, this.isLoggingEnabled(),
                 this.getFieldsToLog(), this.getLoggingSamplingRate(),
                 this.getLogFlushInterval());
+        ret.setPacingMode(this.pacingMode);
+        ret.setMaxBatchSize(this.maxBatchSize);
+        ret.setReuseEvents(this.reuseEvents);
+        ret.setDatasetCacheSize(this.datasetCacheSize);
+        ret.setCompressDatasets(this.compressDatasets);
+        return ret;
     }
 
     /**
@@ -172,4 +195,108 @@ public final class DriverConfig extends ComponentConfig implements Cloneable {
     public int getThreadCount() {
         return threadCount;
     }
+
+    /**
+     * Sets how event submission is paced by this Driver.
+     *
+     * @param pacingMode    either {@link Pacer#MILLIS_PACING} (default) or
+     *                      {@link Pacer#NANO_PACING}
+     */
+    public void setPacingMode(int pacingMode) {
+        if (!Pacer.isValidMode(pacingMode)) {
+            throw new IllegalArgumentException("Invalid pacing mode: " + pacingMode);
+        }
+        this.pacingMode = pacingMode;
+    }
+
+    /**
+     *
+     * @return  how event submission is paced by this Driver
+     */
+    public int getPacingMode() {
+        return pacingMode;
+    }
+
+    /**
+     * Sets the maximum number of events that Senders coalesce into a single
+     * adapter call when they fall behind schedule.
+     *
+     * @param maxBatchSize  the maximum batch size (1, the default, disables micro-batching)
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     *
+     * @return  the maximum number of events sent in a single adapter call
+     */
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    /**
+     * Indicates if Senders must recycle the Event instances they send on
+     * synthetic workloads (i.e., refill them in place instead of allocating
+     * new ones for every event).
+     *
+     * @param reuseEvents   <tt>true</tt> for recycling events
+     */
+    public void setReuseEvents(boolean reuseEvents) {
+        this.reuseEvents = reuseEvents;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if Senders recycle Event instances,
+     *          <tt>false</tt> otherwise
+     */
+    public boolean isReuseEvents() {
+        return reuseEvents;
+    }
+
+    /**
+     * Sets the maximum size of the cache where the datasets of DATASET phases
+     * are kept, so that they are reused by later runs with the same workload.
+     *
+     * @param datasetCacheSize  the cache size, in megabytes (0 disables caching)
+     */
+    public void setDatasetCacheSize(int datasetCacheSize) {
+        if (datasetCacheSize < 0) {
+            throw new IllegalArgumentException("Invalid dataset cache size ("
+                                             + datasetCacheSize + ").");
+        }
+        this.datasetCacheSize = datasetCacheSize;
+    }
+
+    /**
+     *
+     * @return  the maximum size of the dataset cache, in megabytes
+     *          (0 if caching is disabled)
+     */
+    public int getDatasetCacheSize() {
+        return datasetCacheSize;
+    }
+
+    /**
+     * Indicates if the data files of DATASET phases must be block-compressed
+     * (gzip), trading generation time for disk space.
+     *
+     * @param compressDatasets  <tt>true</tt> for compressing data files
+     */
+    public void setCompressDatasets(boolean compressDatasets) {
+        this.compressDatasets = compressDatasets;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if the data files of DATASET phases are compressed,
+     *          <tt>false</tt> otherwise
+     */
+    public boolean isCompressDatasets() {
+        return compressDatasets;
+    }
 }
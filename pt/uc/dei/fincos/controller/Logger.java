@@ -23,7 +23,6 @@ import java.io.IOException;
 import pt.uc.dei.fincos.basic.CSV_Event;
 import pt.uc.dei.fincos.basic.Event;
 import pt.uc.dei.fincos.basic.Globals;
-import pt.uc.dei.fincos.data.CSV_Reader;
 import pt.uc.dei.fincos.data.CSV_Writer;
 
 /**
@@ -123,12 +122,11 @@ public final class Logger extends CSV_Writer {
         }
 
         if (entriesCount % logSamplMod == 0) {
-            String entry = evt.toCSV();
             if (fieldsToLog == Globals.LOG_ALL_FIELDS) {
-                this.writeRecord(timestamp + Globals.CSV_DELIMITER + entry);
+                this.writeRecord(timestamp + Globals.CSV_DELIMITER + evt.toCSV());
             } else if (fieldsToLog == Globals.LOG_ONLY_TIMESTAMPS) {
                 this.writeRecord(timestamp + Globals.CSV_DELIMITER
-                               + CSV_Reader.split(entry, Globals.CSV_DELIMITER)[0]);
+                               + evt.getType().getName());
             }
         }
     }
@@ -145,15 +143,14 @@ public final class Logger extends CSV_Writer {
         }
 
         if (entriesCount % logSamplMod == 0) {
-            String entry = evt.toCSV();
             if (fieldsToLog == Globals.LOG_ALL_FIELDS) {
                 this.writeRecord(System.currentTimeMillis()
                                + Globals.CSV_DELIMITER
-                               + entry);
+                               + evt.toCSV());
             } else if (fieldsToLog == Globals.LOG_ONLY_TIMESTAMPS) {
                 this.writeRecord(System.currentTimeMillis()
                                + Globals.CSV_DELIMITER
-                               + CSV_Reader.split(entry, Globals.CSV_DELIMITER)[0]);
+                               + evt.getType().getName());
             }
         }
     }
@@ -170,15 +167,14 @@ public final class Logger extends CSV_Writer {
         }
 
         if (entriesCount % logSamplMod == 0) {
-            String entry = evt.toCSV();
             if (fieldsToLog == Globals.LOG_ALL_FIELDS) {
                 this.writeRecord(System.currentTimeMillis()
                                 + Globals.CSV_DELIMITER
-                                + entry);
+                                + evt.toCSV());
             } else if (fieldsToLog == Globals.LOG_ONLY_TIMESTAMPS) {
                 this.writeRecord(System.currentTimeMillis()
                                 + Globals.CSV_DELIMITER
-                                + CSV_Reader.split(entry, Globals.CSV_DELIMITER)[0]);
+                                + evt.getType());
             }
         }
     }
@@ -0,0 +1,425 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.controller;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import pt.uc.dei.fincos.basic.Globals;
+import pt.uc.dei.fincos.perfmon.LatencyHistogram;
+
+/**
+ * Searches for the highest event submission rate a system under test can
+ * sustain while meeting a latency SLO (e.g., "the 99th percentile of the
+ * response time must not exceed 100 ms").
+ *
+ * The search works on the factor by which the rates configured for the
+ * Drivers are multiplied: starting from an initial factor, the rate is
+ * doubled until the SLO is violated and the highest sustainable factor is
+ * then found by bisection. Each step of the search is measured by the
+ * {@link ControllerFacade} and recorded in a report.
+ *
+ * A step is considered sustainable if the response time percentile at the
+ * Sinks meets the SLO, if at least one result event was received, and if
+ * the Drivers themselves kept up with the schedule (i.e., the same percentile
+ * of their send lag is also within the SLO).
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see ControllerFacade#runSaturationSearch(SaturationSearch)
+ */
+public final class SaturationSearch {
+
+    /** Maximum latency allowed by the SLO, in milliseconds. */
+    private final double latencySLO;
+
+    /** The latency percentile constrained by the SLO (e.g., 99). */
+    private final double percentile;
+
+    /** The rate factor of the first step. */
+    private final double initialFactor;
+
+    /** The highest rate factor to be tried. */
+    private final double maxFactor;
+
+    /** The search stops when the sustainable factor is known within this relative error. */
+    private final double precision;
+
+    /** Time the system is given to stabilize at each new rate, in seconds. */
+    private final int warmupDuration;
+
+    /** Duration of the measurement of each step, in seconds. */
+    private final int stepDuration;
+
+    /** Maximum number of steps. */
+    private final int maxSteps;
+
+    /** The steps measured so far. */
+    private final ArrayList<Step> steps = new ArrayList<Step>();
+
+    /** Highest factor that met the SLO so far (-1 if none). */
+    private double highestPass = -1;
+
+    /** Lowest factor that violated the SLO so far (-1 if none). */
+    private double lowestFailure = -1;
+
+    /** The factor of the next step (-1 if the search is finished). */
+    private double nextFactor;
+
+    /**
+     * Creates a new search.
+     *
+     * @param latencySLO        maximum latency allowed by the SLO, in milliseconds
+     * @param percentile        the latency percentile constrained by the SLO (e.g., 99)
+     * @param initialFactor     the rate factor of the first step
+     * @param maxFactor         the highest rate factor to be tried
+     * @param precision         relative error within which the sustainable
+     *                          factor must be found (e.g., 0.05)
+     * @param warmupDuration    time the system is given to stabilize at each
+     *                          new rate, in seconds
+     * @param stepDuration      duration of the measurement of each step, in seconds
+     * @param maxSteps          maximum number of steps
+     */
+    public SaturationSearch(double latencySLO, double percentile,
+            double initialFactor, double maxFactor, double precision,
+            int warmupDuration, int stepDuration, int maxSteps) {
+        if (latencySLO <= 0 || percentile <= 0 || percentile > 100
+            || initialFactor <= 0 || maxFactor < initialFactor
+            || precision <= 0 || warmupDuration < 0 || stepDuration <= 0 || maxSteps < 1) {
+            throw new IllegalArgumentException("Invalid saturation search parameters.");
+        }
+        this.latencySLO = latencySLO;
+        this.percentile = percentile;
+        this.initialFactor = initialFactor;
+        this.maxFactor = maxFactor;
+        this.precision = precision;
+        this.warmupDuration = warmupDuration;
+        this.stepDuration = stepDuration;
+        this.maxSteps = maxSteps;
+        this.nextFactor = initialFactor;
+    }
+
+    /**
+     * Creates a new search with default parameters: p99 latency, factors
+     * from 1x up to 64x, 5% precision, 10-second warm-up and 30-second steps.
+     *
+     * @param latencySLO        maximum latency allowed by the SLO, in milliseconds
+     */
+    public SaturationSearch(double latencySLO) {
+        this(latencySLO, 99, 1, 64, 0.05, 10, 30, 20);
+    }
+
+    /**
+     *
+     * @return  the rate factor of the next step, or -1 if the search is finished
+     */
+    public double getNextFactor() {
+        return nextFactor;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if the search is finished, <tt>false</tt> otherwise
+     */
+    public boolean isFinished() {
+        return nextFactor < 0;
+    }
+
+    /**
+     * Records the measurements of a step and decides the rate factor of the
+     * next one.
+     *
+     * @param factor            the rate factor of the step
+     * @param elapsedMillis     duration of the measurement, in milliseconds
+     * @param inputCount        number of events sent by the Drivers
+     * @param outputCount       number of events received by the Sinks
+     * @param responseTimes     response times measured at the Sinks, in microseconds
+     * @param sendLag           send lag of the Drivers, in nanoseconds
+     * @return                  the recorded step
+     */
+    public Step addStep(double factor, long elapsedMillis, long inputCount,
+            long outputCount, LatencyHistogram responseTimes, LatencyHistogram sendLag) {
+        double elapsedSecs = Math.max(elapsedMillis, 1) / 1000.0;
+        double latency = responseTimes.getValueAtPercentile(percentile) / 1E3;
+        double lag = sendLag.getValueAtPercentile(percentile) / 1E6;
+        boolean sustainable = outputCount > 0 && latency <= latencySLO && lag <= latencySLO;
+        Step step = new Step(factor, inputCount / elapsedSecs, outputCount / elapsedSecs,
+                             latency, responseTimes.getMax() / 1E3, lag, sustainable);
+        steps.add(step);
+
+        if (sustainable) {
+            highestPass = Math.max(highestPass, factor);
+        } else {
+            lowestFailure = lowestFailure < 0 ? factor : Math.min(lowestFailure, factor);
+        }
+
+        if (steps.size() >= maxSteps) {
+            nextFactor = -1;
+        } else if (lowestFailure < 0) {         // ramp up
+            if (factor >= maxFactor) {
+                nextFactor = -1;
+            } else {
+                nextFactor = Math.min(2 * factor, maxFactor);
+            }
+        } else if (highestPass < 0) {           // ramp down
+            nextFactor = factor / 2;
+            if (nextFactor < initialFactor * precision) {
+                nextFactor = -1;
+            }
+        } else if ((lowestFailure - highestPass) / lowestFailure <= precision) {
+            nextFactor = -1;
+        } else {                                // bisection
+            nextFactor = (highestPass + lowestFailure) / 2;
+        }
+        return step;
+    }
+
+    /**
+     *
+     * @return  the highest rate factor that met the SLO, or -1 if none did
+     */
+    public double getMaxSustainableFactor() {
+        return highestPass;
+    }
+
+    /**
+     *
+     * @return  the step measured at the highest sustainable rate factor,
+     *          or <tt>null</tt> if no step met the SLO
+     */
+    public Step getMaxSustainableStep() {
+        for (Step s : steps) {
+            if (s.getFactor() == highestPass) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     *
+     * @return  the steps measured so far
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    /**
+     *
+     * @return  maximum latency allowed by the SLO, in milliseconds
+     */
+    public double getLatencySLO() {
+        return latencySLO;
+    }
+
+    /**
+     *
+     * @return  the latency percentile constrained by the SLO
+     */
+    public double getPercentile() {
+        return percentile;
+    }
+
+    /**
+     *
+     * @return  time the system is given to stabilize at each new rate, in seconds
+     */
+    public int getWarmupDuration() {
+        return warmupDuration;
+    }
+
+    /**
+     *
+     * @return  duration of the measurement of each step, in seconds
+     */
+    public int getStepDuration() {
+        return stepDuration;
+    }
+
+    /**
+     *
+     * @return  a textual report of the search
+     */
+    public String getReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Saturation search (SLO: p").append(percentile).append(" latency <= ")
+          .append(latencySLO).append(" ms)\n");
+        sb.append("Step\tFactor\tInput (ev/s)\tOutput (ev/s)\tLatency p")
+          .append(percentile).append(" (ms)\tLatency Max (ms)\tDriver Lag p")
+          .append(percentile).append(" (ms)\tMeets SLO\n");
+        for (int i = 0; i < steps.size(); i++) {
+            sb.append(i + 1).append('\t').append(steps.get(i)).append('\n');
+        }
+        Step best = getMaxSustainableStep();
+        if (best != null) {
+            sb.append("Max sustainable rate: ")
+              .append(Globals.FLOAT_FORMAT_2.format(best.getInputRate()))
+              .append(" events/s (factor: ").append(best.getFactor()).append("x)\n");
+        } else {
+            sb.append("No rate met the SLO.\n");
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Saves the steps of the search into a CSV file.
+     *
+     * @param f             the destination file
+     * @throws IOException  if an error occurs while writing the file
+     */
+    public void saveReport(File f) throws IOException {
+        FileWriter fw = new FileWriter(f);
+        try {
+            fw.write("factor,inputRate,outputRate,latencyPercentile,latencyMax,driverLagPercentile,meetsSLO\n");
+            for (Step s : steps) {
+                fw.write(s.toCSV() + "\n");
+            }
+        } finally {
+            fw.close();
+        }
+    }
+
+    /**
+     * The measurements of a step of the search.
+     */
+    public static final class Step {
+
+        /** The rate factor of the step. */
+        private final double factor;
+
+        /** Rate achieved by the Drivers, in events/second. */
+        private final double inputRate;
+
+        /** Rate of result events received by the Sinks, in events/second. */
+        private final double outputRate;
+
+        /** Response time percentile, in milliseconds. */
+        private final double latency;
+
+        /** Maximum response time, in milliseconds. */
+        private final double maxLatency;
+
+        /** Send lag percentile of the Drivers, in milliseconds. */
+        private final double driverLag;
+
+        /** Indicates if the step met the SLO. */
+        private final boolean sustainable;
+
+        /**
+         *
+         * @param factor        the rate factor of the step
+         * @param inputRate     rate achieved by the Drivers, in events/second
+         * @param outputRate    rate of result events received by the Sinks, in events/second
+         * @param latency       response time percentile, in milliseconds
+         * @param maxLatency    maximum response time, in milliseconds
+         * @param driverLag     send lag percentile of the Drivers, in milliseconds
+         * @param sustainable   indicates if the step met the SLO
+         */
+        private Step(double factor, double inputRate, double outputRate, double latency,
+                double maxLatency, double driverLag, boolean sustainable) {
+            this.factor = factor;
+            this.inputRate = inputRate;
+            this.outputRate = outputRate;
+            this.latency = latency;
+            this.maxLatency = maxLatency;
+            this.driverLag = driverLag;
+            this.sustainable = sustainable;
+        }
+
+        /**
+         *
+         * @return  the rate factor of the step
+         */
+        public double getFactor() {
+            return factor;
+        }
+
+        /**
+         *
+         * @return  rate achieved by the Drivers, in events/second
+         */
+        public double getInputRate() {
+            return inputRate;
+        }
+
+        /**
+         *
+         * @return  rate of result events received by the Sinks, in events/second
+         */
+        public double getOutputRate() {
+            return outputRate;
+        }
+
+        /**
+         *
+         * @return  response time percentile, in milliseconds
+         */
+        public double getLatency() {
+            return latency;
+        }
+
+        /**
+         *
+         * @return  maximum response time, in milliseconds
+         */
+        public double getMaxLatency() {
+            return maxLatency;
+        }
+
+        /**
+         *
+         * @return  send lag percentile of the Drivers, in milliseconds
+         */
+        public double getDriverLag() {
+            return driverLag;
+        }
+
+        /**
+         *
+         * @return  <tt>true</tt> if the step met the SLO, <tt>false</tt> otherwise
+         */
+        public boolean isSustainable() {
+            return sustainable;
+        }
+
+        /**
+         *
+         * @return  the step represented as a CSV record
+         */
+        String toCSV() {
+            return factor + Globals.CSV_DELIMITER + inputRate + Globals.CSV_DELIMITER
+                   + outputRate + Globals.CSV_DELIMITER + latency + Globals.CSV_DELIMITER
+                   + maxLatency + Globals.CSV_DELIMITER + driverLag + Globals.CSV_DELIMITER
+                   + sustainable;
+        }
+
+        @Override
+        public String toString() {
+            return factor + "x\t" + Globals.FLOAT_FORMAT_2.format(inputRate)
+                   + "\t" + Globals.FLOAT_FORMAT_2.format(outputRate)
+                   + "\t" + Globals.FLOAT_FORMAT_3.format(latency)
+                   + "\t" + Globals.FLOAT_FORMAT_3.format(maxLatency)
+                   + "\t" + Globals.FLOAT_FORMAT_3.format(driverLag)
+                   + "\t" + (sustainable ? "yes" : "no");
+        }
+    }
+}
@@ -28,7 +28,9 @@ import java.awt.event.ItemListener;
 import java.util.LinkedHashMap;
 
 import javax.swing.ImageIcon;
+import javax.swing.JLabel;
 import javax.swing.JOptionPane;
+import javax.swing.SwingConstants;
 import javax.swing.UIManager;
 import javax.swing.table.DefaultTableModel;
 
@@ -62,9 +64,17 @@ public final class ColumnDetail extends ComponentDetail {
     private RandomlDomainPanel randomPanel = new RandomlDomainPanel();
     private TypeDetail parent;
 
+    /** Shown in place of a panel for domains that cannot be edited on this form. */
+    private JLabel keptDomainLabel =
+            new JLabel("This domain can only be edited in the configuration file.",
+                       SwingConstants.CENTER);
+
     /** Previous properties of the Attribute (when form is open for update). */
     private Attribute oldAtt;
 
+    /** Domain of the Attribute, if it cannot be edited on this form (kept as is). */
+    private Domain keptDomain;
+
     /** Seed for random number generation. */
     private Long randomSeed;
 
@@ -269,7 +279,10 @@ public final class ColumnDetail extends ComponentDetail {
                     if (validateFields()) {
                         String attName = nameField.getText();
                         Domain domain = null;
-                        if (domainTypeCombo.getSelectedItem().equals("Predefined List")) {
+                        if (keptDomain != null
+                            && domainTypeCombo.getSelectedItem().equals(keptDomain.toString())) {
+                            domain = keptDomain;
+                        } else if (domainTypeCombo.getSelectedItem().equals("Predefined List")) {
                             DefaultTableModel model = (DefaultTableModel) predefinedPanel.itemsTable.getModel();
                             boolean deterministic = predefinedPanel.sameFreqCheck.isSelected();
 
@@ -340,6 +353,11 @@ public final class ColumnDetail extends ComponentDetail {
                                 }
                             }
                             domain = new SequentialDomain(initialVariate, incrementVariate);
+                            // partitioning is set in the configuration file
+                            if (oldAtt != null && oldAtt.getDomain() instanceof SequentialDomain) {
+                                ((SequentialDomain) domain).setPartitioned(
+                                        ((SequentialDomain) oldAtt.getDomain()).isPartitioned());
+                            }
                         }
 
                         String type = (String) dataTypeCombo.getSelectedItem();
@@ -415,7 +433,11 @@ public final class ColumnDetail extends ComponentDetail {
                     domainParamsPanel.revalidate();
                     domainParamsPanel.repaint();
                     break;
-                default:
+                default: // a domain that cannot be edited on this form
+                    domainParamsPanel.removeAll();
+                    domainParamsPanel.add(keptDomainLabel);
+                    domainParamsPanel.revalidate();
+                    domainParamsPanel.repaint();
                     break;
                 }
             }
@@ -429,6 +451,7 @@ public final class ColumnDetail extends ComponentDetail {
      *
      * @param a     the Attribute whose properties must be shown in GUI
      */
+    @SuppressWarnings("unchecked")
     public void fillProperties(Attribute a) {
         this.nameField.setText(a.getName());
 
@@ -467,6 +490,10 @@ public final class ColumnDetail extends ComponentDetail {
         } else if (a.getDomain() instanceof SequentialDomain) {
             domainTypeCombo.setSelectedItem("Sequential");
             sequentialPanel.fillProperties((SequentialDomain) a.getDomain());
+        } else if (a.getDomain() != null) { // e.g., skewed keys, random walks
+            keptDomain = a.getDomain();
+            domainTypeCombo.addItem(keptDomain.toString());
+            domainTypeCombo.setSelectedItem(keptDomain.toString());
         }
     }
 
@@ -72,6 +72,7 @@ import pt.uc.dei.fincos.controller.ConnectionConfig;
 import pt.uc.dei.fincos.controller.ConnectionsFileParser;
 import pt.uc.dei.fincos.controller.ControllerFacade;
 import pt.uc.dei.fincos.controller.DriverConfig;
+import pt.uc.dei.fincos.controller.SaturationSearch;
 import pt.uc.dei.fincos.controller.SinkConfig;
 import pt.uc.dei.fincos.perfmon.gui.PerformanceMonitor;
 import pt.uc.dei.fincos.sink.SinkRemoteFunctions;
@@ -113,7 +114,7 @@ public final class Controller_GUI extends JFrame {
             newDriverMenuItem, editDriverMenuItem, deleteDriverMenuItem,
             newSinkMenuItem, editSinkMenuItem, deleteSinkMenuItem,
             loadMenuItem, startMenuItem, pauseMenuItem, stopMenuItem, switchMenuItem, optionsMenuItem,
-            connectionsMenuItem, perfmonMenuItem;
+            saturationMenuItem, connectionsMenuItem, perfmonMenuItem;
     private ButtonGroup rateFactorGroup;
 
     // ToolBar
@@ -548,6 +549,24 @@ public final class Controller_GUI extends JFrame {
         });
         alterLoadFactorMenuItem.add(rateFactorItem);
 
+        saturationMenuItem = new JMenuItem("Find Saturation Point...");
+        saturationMenuItem.setEnabled(false);
+        saturationMenuItem.addActionListener(new ActionListener() {
+
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                String input = JOptionPane.showInputDialog("Inform the latency SLO "
+                        + "(99th percentile of response time, in milliseconds)");
+                try {
+                    if (input != null) {
+                        searchSaturationPoint(new SaturationSearch(Double.parseDouble(input)));
+                    }
+                } catch (IllegalArgumentException iae) {
+                    JOptionPane.showMessageDialog(null, "Invalid value");
+                }
+            }
+        });
+
         optionsMenuItem = new JMenuItem("Options...");
         optionsMenuItem.addActionListener(new ActionListener() {
 
@@ -566,6 +585,7 @@ public final class Controller_GUI extends JFrame {
         testMenu.add(stopMenuItem);
         testMenu.add(switchMenuItem);
         testMenu.add(alterLoadFactorMenuItem);
+        testMenu.add(saturationMenuItem);
         testMenu.addSeparator();
         testMenu.add(optionsMenuItem);
 
@@ -1658,6 +1678,25 @@ public final class Controller_GUI extends JFrame {
         }
     }
 
+    /**
+     * Searches for the highest event submission rate that meets a latency SLO.
+     *
+     * @param search    the search parameters
+     */
+    private void searchSaturationPoint(SaturationSearch search) {
+        if (perfmon != null && perfmon.isVisible()) {
+            JOptionPane.showMessageDialog(null, "Close the Performance Monitor "
+                    + "before searching for the saturation point.");
+            return;
+        }
+        showInfo("Searching for saturation point (SLO: p" + search.getPercentile()
+                + " latency <= " + search.getLatencySLO() + " ms)...");
+        saturationMenuItem.setEnabled(false);
+        alterLoadFactorMenuItem.setEnabled(false);
+        SaturationSearcher searcher = new SaturationSearcher(search);
+        searcher.execute();
+    }
+
     /*
      *=========================== RMI Worker Threads ==============================
      * Used to call remote methods while keeping GUI responsive to the user
@@ -1781,6 +1820,7 @@ public final class Controller_GUI extends JFrame {
                     showInfo("  " + dr.getAlias() + " started.");
                     alterLoadFactorMenuItem.setEnabled(true);
                     alterLoadFactorMenuItem.getItem(6).setSelected(true);
+                    saturationMenuItem.setEnabled(true);
                 } else if (op.equals("pause")) {
                     facade.pauseRemoteDriver(dr);
                     showInfo("  " + dr.getAlias() + " paused.");
@@ -1832,6 +1872,48 @@ public final class Controller_GUI extends JFrame {
             return null;
         }
     }
+    class SaturationSearcher extends SwingWorker<Void, Void> {
+
+        SaturationSearch search;
+
+        public SaturationSearcher(SaturationSearch search) {
+            this.search = search;
+        }
+
+        @Override
+        protected Void doInBackground() {
+            try {
+                facade.runSaturationSearch(search);
+            } catch (Exception e) {
+                showInfo("Saturation search failed. (" + e.getClass() + "-" + e.getMessage() + ")");
+            }
+            return null;
+        }
+
+        @Override
+        protected void done() {
+            saturationMenuItem.setEnabled(true);
+            alterLoadFactorMenuItem.setEnabled(true);
+            alterLoadFactorMenuItem.getItem(6).setSelected(true);
+            if (search.getSteps().isEmpty()) {
+                return;
+            }
+            File reportFile = new File(Globals.APP_PATH + "log" + File.separator
+                    + "saturation_" + System.currentTimeMillis() + ".csv");
+            try {
+                reportFile.getParentFile().mkdirs();
+                search.saveReport(reportFile);
+                showInfo("Saturation search finished. Report saved to " + reportFile.getPath());
+            } catch (Exception e) {
+                showInfo("Saturation search finished. Could not save report ("
+                        + e.getMessage() + ").");
+            }
+            JTextArea reportArea = new JTextArea(search.getReport());
+            reportArea.setEditable(false);
+            JOptionPane.showMessageDialog(null, new JScrollPane(reportArea),
+                    "Saturation Search", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
     // ========================== End of RMI Worker Threads ==============================
 
     private static void setUI() {
@@ -414,6 +414,9 @@ public class DriverDetail extends ComponentDetail {
                                     : Globals.LOG_ONLY_TIMESTAMPS,
                                     Double.parseDouble((String) logSamplingComboBox.getSelectedItem()),
                                     logFlushInterval);
+                            if (oldCfg != null) {
+                                copyHiddenSettings(oldCfg, newCfg);
+                            }
                             if (Controller_GUI.getInstance().checkDriverUniqueConstraint(oldCfg, newCfg)) {
                                 aliasField.setBackground(UIManager.getColor("TextField.background"));
                                 switch (op) {
@@ -714,6 +717,21 @@ public class DriverDetail extends ComponentDetail {
         }
     }
 
+    /**
+     * Copies the Driver settings that are not shown on this form from its
+     * previous configuration, so that saving the form does not reset them.
+     *
+     * @param oldCfg    the configuration, before being edited
+     * @param newCfg    the configuration, as edited on this form
+     */
+    private static void copyHiddenSettings(DriverConfig oldCfg, DriverConfig newCfg) {
+        newCfg.setPacingMode(oldCfg.getPacingMode());
+        newCfg.setMaxBatchSize(oldCfg.getMaxBatchSize());
+        newCfg.setReuseEvents(oldCfg.isReuseEvents());
+        newCfg.setDatasetCacheSize(oldCfg.getDatasetCacheSize());
+        newCfg.setCompressDatasets(oldCfg.isCompressDatasets());
+    }
+
     private void setLoggingEnabled(boolean enabled) {
         logAllRadio.setEnabled(enabled);
         logTSRadio.setEnabled(enabled);
@@ -258,6 +258,12 @@ public final class PhaseDetail extends ComponentDetail {
                             ArrivalProcess arrivalProcess = ArrivalProcess.DETERMINISTIC;
                             if (syntheticPanel.poissonCheckBox.isSelected()) {
                                 arrivalProcess = ArrivalProcess.POISSON;
+                                // bursty/heavy-tailed processes are set in the configuration file
+                                if (oldCfg instanceof SyntheticWorkloadPhase
+                                    && ((SyntheticWorkloadPhase) oldCfg).getArrivalProcess()
+                                       != ArrivalProcess.DETERMINISTIC) {
+                                    arrivalProcess = ((SyntheticWorkloadPhase) oldCfg).getArrivalProcess();
+                                }
                             }
 
                             newCfg = new SyntheticWorkloadPhase(
@@ -266,6 +272,10 @@ public final class PhaseDetail extends ComponentDetail {
                                     Double.parseDouble(syntheticPanel.finalRateTextField.getText()),
                                     arrivalProcess, schema, syntheticPanel.deterministicMixCheckBox.isSelected(),
                                     dataGenMode, randomSeed);
+                            if (oldCfg instanceof SyntheticWorkloadPhase) {
+                                copyHiddenSettings((SyntheticWorkloadPhase) oldCfg,
+                                                   (SyntheticWorkloadPhase) newCfg);
+                            }
                         } else { // external file
                             double rate = 1;
 
@@ -297,6 +307,10 @@ public final class PhaseDetail extends ComponentDetail {
                                     externalFilePanel.typeField.getText(),
                                     loopCount,
                                     rate);
+                            if (oldCfg instanceof ExternalFileWorkloadPhase) {
+                                copyHiddenSettings((ExternalFileWorkloadPhase) oldCfg,
+                                                   (ExternalFileWorkloadPhase) newCfg);
+                            }
                         }
 
                         switch (op) {
@@ -433,6 +447,42 @@ public final class PhaseDetail extends ComponentDetail {
         ((DefaultTableModel) syntheticPanel.schemaTable.getModel()).removeRow(index);
     }
 
+    /**
+     * Synthetic phase counterpart of
+     * {@link #copyHiddenSettings(ExternalFileWorkloadPhase, ExternalFileWorkloadPhase)}.
+     *
+     * @param oldPhase  the phase, before being edited
+     * @param newPhase  the phase, as edited in this dialog
+     */
+    private static void copyHiddenSettings(SyntheticWorkloadPhase oldPhase,
+            SyntheticWorkloadPhase newPhase) {
+        newPhase.setSourceCount(oldPhase.getSourceCount());
+        newPhase.setSourceRateSkew(oldPhase.getSourceRateSkew());
+        newPhase.setPreloadDataset(oldPhase.isPreloadDataset());
+        newPhase.setBurstParameters(oldPhase.getBurstRatio(),
+                                    oldPhase.getMeanBurstDuration(),
+                                    oldPhase.getMeanIdleDuration());
+        newPhase.setParetoShape(oldPhase.getParetoShape());
+        newPhase.setHurstParameter(oldPhase.getHurstParameter());
+        newPhase.setRateProfile(oldPhase.getRateProfile());
+    }
+
+    /**
+     * Copies the settings that can only be set in the configuration file
+     * from the previous version of a phase to its edited version, so that
+     * saving the phase through this dialog does not reset them.
+     *
+     * @param oldPhase  the phase, before being edited
+     * @param newPhase  the phase, as edited in this dialog
+     */
+    private static void copyHiddenSettings(ExternalFileWorkloadPhase oldPhase,
+            ExternalFileWorkloadPhase newPhase) {
+        newPhase.setParallelReplay(oldPhase.isParallelReplay());
+        newPhase.setPartitionKeyIndex(oldPhase.getPartitionKeyIndex());
+        newPhase.setReplayWindow(oldPhase.getReplayStart(), oldPhase.getReplayEnd());
+        newPhase.setIndexed(oldPhase.isIndexed());
+    }
+
     @Override
     protected boolean validateFields() {
         boolean ret = true;
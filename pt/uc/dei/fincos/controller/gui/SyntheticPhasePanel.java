@@ -355,7 +355,7 @@ public class SyntheticPhasePanel extends javax.swing.JPanel {
         initialRateTextField.setText(phase.getInitialRate() + "");
         finalRateTextField.setText(phase.getFinalRate() + "");
 
-        poissonCheckBox.setSelected(phase.getArrivalProcess() == ArrivalProcess.POISSON);
+        poissonCheckBox.setSelected(phase.getArrivalProcess() != ArrivalProcess.DETERMINISTIC);
 
         DefaultTableModel model = (DefaultTableModel) schemaTable.getModel();
         int rowCount = model.getRowCount();
@@ -0,0 +1,313 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+
+import pt.uc.dei.fincos.basic.CSV_Event;
+import pt.uc.dei.fincos.basic.Datatype;
+import pt.uc.dei.fincos.basic.Event;
+import pt.uc.dei.fincos.basic.EventType;
+
+/**
+ * Reads binary event files (see {@link BinaryEventFile}) through memory
+ * mapping. Records are decoded directly from the mapped file, without any
+ * line splitting or parsing, and text values are taken from the file's
+ * dictionary, so that equal values are shared by all events.
+ *
+ * Options such as the position of timestamps and event types in the records
+ * of a CSV file are applied when it is converted; a binary file is always
+ * read in the same way.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see BinaryEventFile
+ */
+public final class BinaryDataFileReader implements EventFileReader {
+
+    /** Maximum size of the portion of the file mapped at a time. */
+    private static final long MAX_WINDOW_SIZE = 256L * 1048576;
+
+    /** Path for the binary event file. */
+    private final String path;
+
+    /** The binary event file. */
+    private RandomAccessFile file;
+
+    /** Channel through which the file is mapped. */
+    private FileChannel channel;
+
+    /** The event types of the file, in the order of their indexes. */
+    private final EventType[] types;
+
+    /** The encoding of each attribute of each event type. */
+    private final Datatype[][] encodings;
+
+    /** Size of the largest record of the file, in bytes. */
+    private final int maxRecordSize;
+
+    /** Indicates if records carry timestamps. */
+    private final boolean hasTimestamps;
+
+    /** Number of records in the file. */
+    private final long recordCount;
+
+    /** Offset of the first record in the file. */
+    private final long dataStart;
+
+    /** Offset of the end of the records in the file. */
+    private final long dataEnd;
+
+    /** Distinct text values of the file. */
+    private final String[] dictionary;
+
+    /** The portion of the file currently mapped. */
+    private MappedByteBuffer window;
+
+    /** Offset, in the file, of the beginning of the current window. */
+    private long windowStart;
+
+    /**
+     * Opens a binary event file.
+     *
+     * @param path          the path for the binary event file
+     * @throws IOException  if the file cannot be opened or is not a binary
+     *                      event file
+     */
+    public BinaryDataFileReader(String path) throws IOException {
+        this.path = path;
+        this.file = new RandomAccessFile(path, "r");
+        this.channel = file.getChannel();
+        try {
+            // Header
+            if (file.readInt() != BinaryEventFile.MAGIC) {
+                throw new IOException("\"" + path + "\" is not a binary event file.");
+            }
+            int version = file.readInt();
+            if (version != BinaryEventFile.VERSION) {
+                throw new IOException("Unsupported version of binary event file ("
+                                    + version + ").");
+            }
+            this.hasTimestamps = (file.readInt() & BinaryEventFile.FLAG_TIMESTAMPS) != 0;
+            this.recordCount = file.readLong();
+            this.dataEnd = file.readLong();
+            int typeCount = file.readUnsignedShort();
+            this.types = new EventType[typeCount];
+            this.encodings = new Datatype[typeCount][];
+            int maxSize = 0;
+            for (int t = 0; t < typeCount; t++) {
+                String name = file.readUTF();
+                int attCount = file.readUnsignedShort();
+                String[] attNames = new String[attCount];
+                encodings[t] = new Datatype[attCount];
+                int recordSize = 2 + (hasTimestamps ? 8 : 0);
+                for (int i = 0; i < attCount; i++) {
+                    attNames[i] = file.readUTF();
+                    encodings[t][i] = Datatype.values()[file.readByte()];
+                    recordSize += sizeOf(encodings[t][i]);
+                }
+                types[t] = BinaryEventFile.toEventType(name, attNames, encodings[t]);
+                maxSize = Math.max(maxSize, recordSize);
+            }
+            this.maxRecordSize = maxSize;
+            this.dataStart = file.getFilePointer();
+
+            // Dictionary
+            channel.position(dataEnd);
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(Channels.newInputStream(channel), 65536));
+            this.dictionary = new String[in.readInt()];
+            for (int i = 0; i < dictionary.length; i++) {
+                int length = in.readInt();
+                if (length >= 0) {
+                    byte[] bytes = new byte[length];
+                    in.readFully(bytes);
+                    dictionary[i] = new String(bytes, "UTF-8");
+                }
+            }
+        } catch (IOException e) {
+            file.close();
+            throw e;
+        }
+        map(dataStart);
+    }
+
+    /**
+     *
+     * @param encoding  the encoding of an attribute
+     * @return          the number of bytes taken by values of the attribute
+     */
+    private static int sizeOf(Datatype encoding) {
+        switch (encoding) {
+        case LONG:
+        case DOUBLE:
+            return 8;
+        case BOOLEAN:
+            return 1;
+        default:
+            return 4;
+        }
+    }
+
+    /**
+     * Maps a portion of the records of the file.
+     *
+     * @param start         offset of the beginning of the portion
+     * @throws IOException  if an I/O error occurs
+     */
+    private void map(long start) throws IOException {
+        this.windowStart = start;
+        this.window = channel.map(FileChannel.MapMode.READ_ONLY, start,
+                                  Math.min(MAX_WINDOW_SIZE, dataEnd - start));
+    }
+
+    /**
+     * Positions the window at the beginning of the next record.
+     *
+     * @return              <tt>false</tt> if the end of the records has been reached
+     * @throws IOException  if an I/O error occurs
+     */
+    private boolean nextRecord() throws IOException {
+        if (window.remaining() < maxRecordSize) {
+            long position = windowStart + window.position();
+            if (position >= dataEnd) {
+                return false;
+            }
+            if (windowStart + window.limit() < dataEnd) {
+                map(position);
+            }
+        }
+        return window.hasRemaining();
+    }
+
+    @Override
+    public CSV_Event getNextCSVEvent() throws IOException {
+        if (!nextRecord()) {
+            return null;
+        }
+        MappedByteBuffer buf = this.window;
+        int t = buf.getShort();
+        long timestamp = hasTimestamps ? buf.getLong() : 0;
+        Datatype[] enc = encodings[t];
+        String[] payload = new String[enc.length];
+        for (int i = 0; i < enc.length; i++) {
+            switch (enc[i]) {
+            case INTEGER:
+                payload[i] = Integer.toString(buf.getInt());
+                break;
+            case LONG:
+                payload[i] = Long.toString(buf.getLong());
+                break;
+            case FLOAT:
+                payload[i] = Float.toString(buf.getFloat());
+                break;
+            case DOUBLE:
+                payload[i] = Double.toString(buf.getDouble());
+                break;
+            case BOOLEAN:
+                payload[i] = buf.get() != 0 ? "true" : "false";
+                break;
+            default:
+                payload[i] = dictionary[buf.getInt()];
+            }
+        }
+        return new CSV_Event(types[t].getName(), timestamp, payload);
+    }
+
+    @Override
+    public Event getNextEvent() throws IOException {
+        if (!nextRecord()) {
+            return null;
+        }
+        MappedByteBuffer buf = this.window;
+        int t = buf.getShort();
+        long timestamp = hasTimestamps ? buf.getLong() : 0;
+        Datatype[] enc = encodings[t];
+        Object[] values = new Object[enc.length];
+        for (int i = 0; i < enc.length; i++) {
+            switch (enc[i]) {
+            case INTEGER:
+                values[i] = buf.getInt();
+                break;
+            case LONG:
+                values[i] = buf.getLong();
+                break;
+            case FLOAT:
+                values[i] = buf.getFloat();
+                break;
+            case DOUBLE:
+                values[i] = buf.getDouble();
+                break;
+            case BOOLEAN:
+                values[i] = buf.get() != 0;
+                break;
+            default:
+                values[i] = dictionary[buf.getInt()];
+            }
+        }
+        Event e = new Event(types[t], values);
+        e.setTimestamp(timestamp);
+        return e;
+    }
+
+    /**
+     *
+     * @return  the event types of the file, as described in its header
+     */
+    public EventType[] getEventTypes() {
+        return types;
+    }
+
+    /**
+     *
+     * @return  the number of records in the file
+     */
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    @Override
+    public void reOpen() throws IOException {
+        if (file == null) {
+            this.file = new RandomAccessFile(path, "r");
+            this.channel = file.getChannel();
+        }
+        map(dataStart);
+    }
+
+    @Override
+    public void closeFile() {
+        try {
+            if (file != null) {
+                file.close();
+                file = null;
+                channel = null;
+            }
+        } catch (IOException e) {
+            System.err.println("Error while closing data file"
+                             + " (" + e.getMessage() + ").");
+        }
+    }
+}
@@ -0,0 +1,433 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+
+import pt.uc.dei.fincos.basic.Attribute;
+import pt.uc.dei.fincos.basic.CSV_Event;
+import pt.uc.dei.fincos.basic.Datatype;
+import pt.uc.dei.fincos.basic.EventType;
+import pt.uc.dei.fincos.basic.Globals;
+import pt.uc.dei.fincos.driver.ExternalFileWorkloadPhase;
+
+/**
+ * Binary format of event files, and conversion of CSV data files into it.
+ *
+ * A binary event file contains:
+ * <ul>
+ * <li>a header, with the schema of each event type (its name, and the name
+ *     and encoding of each attribute), the number of records, and whether
+ *     records carry timestamps;</li>
+ * <li>the records, each made of the index of its event type (2 bytes), its
+ *     timestamp (8 bytes, if present) and one fixed-width column per
+ *     attribute: <tt>INTEGER</tt> (4 bytes), <tt>LONG</tt> (8),
+ *     <tt>FLOAT</tt> (4), <tt>DOUBLE</tt> (8), <tt>BOOLEAN</tt> (1) or
+ *     <tt>TEXT</tt> (4 bytes: an index into the dictionary);</li>
+ * <li>a dictionary holding each distinct text value once.</li>
+ * </ul>
+ * Records are thus read without any splitting or parsing (see
+ * {@link BinaryDataFileReader}).
+ *
+ * When a CSV file is converted, a column is stored in a numeric encoding
+ * only if the textual representation of every one of its values is
+ * reproduced exactly when the value is decoded, so that replayed events are
+ * identical to those read from the CSV file; other columns are
+ * dictionary-encoded.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see BinaryDataFileReader
+ */
+public final class BinaryEventFile {
+
+    /** Identifies binary event files ("FINB"). */
+    static final int MAGIC = 0x46494E42;
+
+    /** Version of the format. */
+    static final int VERSION = 1;
+
+    /** Flag indicating that records carry timestamps. */
+    static final int FLAG_TIMESTAMPS = 1;
+
+    /** Position, in the header, of the offset of the dictionary. */
+    private static final int DICTIONARY_OFFSET_POSITION = 20;
+
+    /** Encodings tried for numeric columns, from the most compact to the least. */
+    private static final Datatype[] CANDIDATE_TYPES = {
+        Datatype.INTEGER, Datatype.LONG, Datatype.FLOAT, Datatype.DOUBLE, Datatype.BOOLEAN
+    };
+
+    /** The event types of the converted file, in order of appearance. */
+    private final ArrayList<String> typeNames = new ArrayList<String>();
+
+    /** Maps each event type name to its index. */
+    private final HashMap<String, Integer> typeIndexes = new HashMap<String, Integer>();
+
+    /** For each event type, the encodings that are still possible for each column. */
+    private final ArrayList<boolean[][]> candidates = new ArrayList<boolean[][]>();
+
+    /** Number of records in the converted file. */
+    private long recordCount;
+
+    /** Indicates if any of the records has a timestamp. */
+    private boolean hasTimestamps;
+
+    /**
+     * Not instantiated from outside: see {@link #convert}.
+     */
+    private BinaryEventFile() {
+    }
+
+    /**
+     * Checks if a file is a binary event file.
+     *
+     * @param path  the path of the file
+     * @return      <tt>true</tt> if the file is a binary event file
+     */
+    public static boolean isBinaryFile(String path) {
+        File f = new File(path);
+        if (!f.isFile() || f.length() < 4) {
+            return false;
+        }
+        try {
+            DataInputStream in = new DataInputStream(new FileInputStream(f));
+            try {
+                return in.readInt() == MAGIC;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Converts the events of a data file into a binary event file. The
+     * source is read twice: once for choosing the encoding of each column and
+     * once for writing the records.
+     *
+     * @param source        reads the events to be converted
+     * @param path          the path of the binary event file
+     * @param eventTypes    configured event types, from which the names of the
+     *                      attributes are taken (<tt>null</tt> for naming them
+     *                      "att0", "att1", ...)
+     * @return              the number of converted events
+     * @throws Exception    if an error occurs while reading the source or writing
+     *                      the binary file
+     */
+    public static long convert(EventFileReader source, String path,
+                               Collection<EventType> eventTypes) throws Exception {
+        BinaryEventFile file = new BinaryEventFile();
+        CSV_Event e;
+        source.reOpen();
+        while ((e = source.getNextCSVEvent()) != null) {
+            file.analyze(e);
+        }
+        source.reOpen();
+        try {
+            file.write(source, path, eventTypes);
+        } finally {
+            source.closeFile();
+        }
+        return file.recordCount;
+    }
+
+    /**
+     * Updates the possible encodings of the columns of an event's type.
+     *
+     * @param e             an event from the source file
+     * @throws IOException  if the event does not have the same number of
+     *                      attributes as previous events of its type
+     */
+    private void analyze(CSV_Event e) throws IOException {
+        String[] payload = e.getPayload();
+        Integer index = typeIndexes.get(e.getType());
+        boolean[][] c;
+        if (index == null) {
+            if (typeNames.size() == Short.MAX_VALUE) {
+                throw new IOException("Too many event types.");
+            }
+            typeIndexes.put(e.getType(), typeNames.size());
+            typeNames.add(e.getType());
+            c = new boolean[payload.length][CANDIDATE_TYPES.length];
+            for (boolean[] column : c) {
+                Arrays.fill(column, true);
+            }
+            candidates.add(c);
+        } else {
+            c = candidates.get(index);
+            if (c.length != payload.length) {
+                throw new IOException("Records of type \"" + e.getType()
+                                    + "\" have different numbers of fields.");
+            }
+        }
+        for (int i = 0; i < payload.length; i++) {
+            for (int k = 0; k < CANDIDATE_TYPES.length; k++) {
+                if (c[i][k] && !isExact(payload[i], CANDIDATE_TYPES[k])) {
+                    c[i][k] = false;
+                }
+            }
+        }
+        if (e.getTimestamp() != 0) {
+            hasTimestamps = true;
+        }
+        recordCount++;
+    }
+
+    /**
+     * Checks if a textual value is reproduced exactly when decoded from a
+     * given encoding.
+     *
+     * @param value     the textual value
+     * @param type      the encoding
+     * @return          <tt>true</tt> if the value can be stored in the encoding
+     */
+    private static boolean isExact(String value, Datatype type) {
+        if (value == null) {
+            return false;
+        }
+        try {
+            switch (type) {
+            case INTEGER:
+                return Integer.toString(Integer.parseInt(value)).equals(value);
+            case LONG:
+                return Long.toString(Long.parseLong(value)).equals(value);
+            case FLOAT:
+                return Float.toString(Float.parseFloat(value)).equals(value);
+            case DOUBLE:
+                return Double.toString(Double.parseDouble(value)).equals(value);
+            case BOOLEAN:
+                return value.equals("true") || value.equals("false");
+            default:
+                return true;
+            }
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     *
+     * @param c     the possible encodings of a column
+     * @return      the most compact encoding of the column
+     */
+    private static Datatype encodingOf(boolean[] c) {
+        for (int k = 0; k < CANDIDATE_TYPES.length; k++) {
+            if (c[k]) {
+                return CANDIDATE_TYPES[k];
+            }
+        }
+        return Datatype.TEXT;
+    }
+
+    /**
+     * Writes the binary event file.
+     *
+     * @param source        reads the events to be converted
+     * @param path          the path of the binary event file
+     * @param eventTypes    configured event types (may be <tt>null</tt>)
+     * @throws Exception    if an error occurs while reading the source or writing
+     *                      the binary file
+     */
+    private void write(EventFileReader source, String path,
+                       Collection<EventType> eventTypes) throws Exception {
+        Datatype[][] encodings = new Datatype[typeNames.size()][];
+        for (int t = 0; t < encodings.length; t++) {
+            boolean[][] c = candidates.get(t);
+            encodings[t] = new Datatype[c.length];
+            for (int i = 0; i < c.length; i++) {
+                encodings[t][i] = encodingOf(c[i]);
+            }
+        }
+
+        FileOutputStream fos = new FileOutputStream(path);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536));
+        long dictionaryOffset;
+        try {
+            // Header
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(hasTimestamps ? FLAG_TIMESTAMPS : 0);
+            out.writeLong(recordCount);
+            out.writeLong(0); // offset of the dictionary, filled in at the end
+            out.writeShort(typeNames.size());
+            for (int t = 0; t < encodings.length; t++) {
+                String name = typeNames.get(t);
+                EventType configured = findType(name, eventTypes);
+                out.writeUTF(name);
+                out.writeShort(encodings[t].length);
+                for (int i = 0; i < encodings[t].length; i++) {
+                    out.writeUTF(configured != null
+                                 && configured.getAttributeCount() == encodings[t].length
+                                 ? configured.getAttributes()[i].getName()
+                                 : "att" + i);
+                    out.writeByte(encodings[t][i].ordinal());
+                }
+            }
+
+            // Records
+            HashMap<String, Integer> dictionary = new HashMap<String, Integer>();
+            ArrayList<String> words = new ArrayList<String>();
+            CSV_Event e;
+            while ((e = source.getNextCSVEvent()) != null) {
+                int t = typeIndexes.get(e.getType());
+                String[] payload = e.getPayload();
+                out.writeShort(t);
+                if (hasTimestamps) {
+                    out.writeLong(e.getTimestamp());
+                }
+                for (int i = 0; i < payload.length; i++) {
+                    switch (encodings[t][i]) {
+                    case INTEGER:
+                        out.writeInt(Integer.parseInt(payload[i]));
+                        break;
+                    case LONG:
+                        out.writeLong(Long.parseLong(payload[i]));
+                        break;
+                    case FLOAT:
+                        out.writeFloat(Float.parseFloat(payload[i]));
+                        break;
+                    case DOUBLE:
+                        out.writeDouble(Double.parseDouble(payload[i]));
+                        break;
+                    case BOOLEAN:
+                        out.writeBoolean(payload[i].equals("true"));
+                        break;
+                    default:
+                        Integer code = dictionary.get(payload[i]);
+                        if (code == null) {
+                            code = words.size();
+                            dictionary.put(payload[i], code);
+                            words.add(payload[i]);
+                        }
+                        out.writeInt(code);
+                    }
+                }
+            }
+
+            // Dictionary
+            out.flush();
+            dictionaryOffset = fos.getChannel().position();
+            out.writeInt(words.size());
+            for (String w : words) {
+                byte[] bytes = w == null ? null : w.getBytes("UTF-8");
+                out.writeInt(bytes == null ? -1 : bytes.length);
+                if (bytes != null) {
+                    out.write(bytes);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        RandomAccessFile raf = new RandomAccessFile(path, "rw");
+        try {
+            raf.seek(DICTIONARY_OFFSET_POSITION);
+            raf.writeLong(dictionaryOffset);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Retrieves the configured event type with a given name.
+     *
+     * @param name          the name of the type
+     * @param eventTypes    configured event types (may be <tt>null</tt>)
+     * @return              the event type, or <tt>null</tt> if there is no
+     *                      type with the specified name
+     */
+    private static EventType findType(String name, Collection<EventType> eventTypes) {
+        if (eventTypes != null) {
+            for (EventType type : eventTypes) {
+                if (type.getName().equalsIgnoreCase(name)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates the event type described in the header of a binary event file.
+     *
+     * @param name          the name of the type
+     * @param attNames      the names of the type's attributes
+     * @param encodings     the encodings of the type's attributes
+     * @return              the event type
+     */
+    static EventType toEventType(String name, String[] attNames, Datatype[] encodings) {
+        Attribute[] atts = new Attribute[attNames.length];
+        for (int i = 0; i < atts.length; i++) {
+            atts[i] = new Attribute(encodings[i], attNames[i]);
+        }
+        return new EventType(name, atts);
+    }
+
+    /**
+     * Converts a CSV data file into a binary event file.
+     * Usage: <tt>BinaryEventFile &lt;input file&gt; &lt;output file&gt;
+     * [-t] [-d &lt;delimiter&gt;]</tt>, where <tt>-t</tt> indicates that the
+     * first field of each record is a timestamp (in milliseconds), as in files
+     * written with timestamps by {@link CSV_Writer}. The event type is the
+     * first field following the timestamp (if any).
+     *
+     * @param args          command line arguments
+     * @throws Exception    if the file cannot be converted
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: BinaryEventFile <input file> <output file>"
+                             + " [-t] [-d <delimiter>]");
+            System.exit(1);
+        }
+        boolean timestamps = false;
+        String delimiter = Globals.CSV_DELIMITER;
+        for (int i = 2; i < args.length; i++) {
+            if (args[i].equals("-t")) {
+                timestamps = true;
+            } else if (args[i].equals("-d") && i + 1 < args.length) {
+                delimiter = args[++i];
+            }
+        }
+        DataFileReader source = new DataFileReader(args[0], delimiter,
+                timestamps, ExternalFileWorkloadPhase.MILLISECONDS,
+                ExternalFileWorkloadPhase.FIRST_FIELD, false,
+                true, timestamps ? ExternalFileWorkloadPhase.SECOND_FIELD
+                                 : ExternalFileWorkloadPhase.FIRST_FIELD,
+                null);
+        long t0 = System.currentTimeMillis();
+        long count = convert(source, args[1], null);
+        System.out.println(count + " events converted in "
+                         + (System.currentTimeMillis() - t0) + " ms ("
+                         + new File(args[0]).length() + " -> "
+                         + new File(args[1]).length() + " bytes).");
+    }
+}
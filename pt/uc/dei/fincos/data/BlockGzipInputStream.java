@@ -0,0 +1,429 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Reads gzip files, decompressing them ahead of the reader.
+ *
+ * A background thread reads the compressed file and hands its blocks to a
+ * pool of threads, which decompress them in parallel. Blocks are returned to
+ * the reader in file order, through a bounded queue.
+ *
+ * Blocks can be located without decompressing them only in files written by
+ * {@link BlockGzipOutputStream}. Other gzip files are decompressed
+ * sequentially, but still by the background thread.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see BlockGzipOutputStream
+ */
+public final class BlockGzipInputStream extends InputStream {
+
+    /** Default number of threads that decompress blocks. */
+    public static final int DEFAULT_INFLATER_THREADS =
+            Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+
+    /** Size of the blocks read from files that are not block-compressed, in bytes. */
+    private static final int STREAM_BLOCK_SIZE = BlockGzipOutputStream.BLOCK_SIZE;
+
+    /** Size of the buffer used to read the compressed file. */
+    private static final int BUFFER_SIZE = 1 << 18;
+
+    /** Path for the compressed file. */
+    private final String path;
+
+    /** The compressed file. */
+    private final InputStream in;
+
+    /** Decompresses blocks. */
+    private final ExecutorService inflaters;
+
+    /** Reads blocks. */
+    private final Thread readerThread;
+
+    /** Decompressed blocks, in file order (a <tt>null</tt> block marks the end of the file). */
+    private final BlockingQueue<Future<byte[]>> blocks;
+
+    /** The block being read. */
+    private byte[] block = new byte[0];
+
+    /** Position of the next byte of the block being read. */
+    private int blockPosition;
+
+    /** Indicates if the end of the file has been reached. */
+    private boolean finished;
+
+    /** The decompressor of each inflater thread. */
+    private final ThreadLocal<Inflater> inflater = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    /**
+     * Opens a gzip file, decompressing it with the default number of threads.
+     *
+     * @param path                      path for the compressed file
+     * @throws FileNotFoundException    if the file cannot be opened
+     */
+    public BlockGzipInputStream(String path) throws FileNotFoundException {
+        this(path, DEFAULT_INFLATER_THREADS);
+    }
+
+    /**
+     * Opens a gzip file.
+     *
+     * @param path                      path for the compressed file
+     * @param inflaterThreads           the number of threads that decompress blocks
+     * @throws FileNotFoundException    if the file cannot be opened
+     */
+    public BlockGzipInputStream(String path, int inflaterThreads)
+    throws FileNotFoundException {
+        if (inflaterThreads < 1) {
+            throw new IllegalArgumentException("Invalid number of inflater threads ("
+                                             + inflaterThreads + ").");
+        }
+        this.path = path;
+        this.in = new BufferedInputStream(new FileInputStream(path), BUFFER_SIZE);
+        this.blocks = new ArrayBlockingQueue<Future<byte[]>>(inflaterThreads + 2);
+        this.inflaters = Executors.newFixedThreadPool(inflaterThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Inflater (" + BlockGzipInputStream.this.path + ")");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.readerThread = new Thread("Decompressor (" + path + ")") {
+            @Override
+            public void run() {
+                Future<byte[]> last;
+                try {
+                    readBlocks();
+                    last = completed(null);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (final Throwable t) {
+                    // Reported to the reader, which would otherwise wait forever
+                    last = new FutureTask<byte[]>(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws Exception {
+                            if (t instanceof Exception) {
+                                throw (Exception) t;
+                            }
+                            throw (Error) t;
+                        }
+                    });
+                    ((FutureTask<byte[]>) last).run();
+                }
+                try {
+                    blocks.put(last);
+                } catch (InterruptedException e) {
+                    // Reading has been stopped
+                }
+            }
+        };
+        readerThread.setDaemon(true);
+        readerThread.start();
+    }
+
+    /**
+     * Reads the compressed file, and submits its blocks for decompression.
+     *
+     * @throws IOException              if an I/O error occurs, or if the
+     *                                  file is not a gzip file
+     * @throws InterruptedException     if reading is stopped
+     */
+    private void readBlocks() throws IOException, InterruptedException {
+        byte[] header = new byte[BlockGzipOutputStream.HEADER_SIZE];
+        in.mark(header.length);
+        int n = readFully(in, header, 0, header.length);
+        in.reset();
+        if (n < header.length || memberSize(header) == -1) {
+            // Not block-compressed: decompresses as a plain gzip stream
+            if (n < 2 || (header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b) {
+                throw new ZipException("Not in GZIP format: " + path);
+            }
+            readStream();
+            return;
+        }
+        while ((n = readFully(in, header, 0, header.length)) > 0) {
+            int size = n == header.length ? memberSize(header) : -1;
+            if (size == -1) {
+                throw new ZipException("Corrupt block header: " + path);
+            }
+            final byte[] member = new byte[size];
+            System.arraycopy(header, 0, member, 0, header.length);
+            if (readFully(in, member, header.length, size - header.length)
+                < size - header.length) {
+                throw new EOFException("Unexpected end of compressed file: " + path);
+            }
+            blocks.put(inflaters.submit(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws IOException {
+                    return inflate(member);
+                }
+            }));
+        }
+    }
+
+    /**
+     * Decompresses a file that is not block-compressed.
+     *
+     * @throws IOException              if an I/O error occurs
+     * @throws InterruptedException     if reading is stopped
+     */
+    private void readStream() throws IOException, InterruptedException {
+        InputStream gzip = new GZIPInputStream(in, BUFFER_SIZE);
+        while (true) {
+            byte[] b = new byte[STREAM_BLOCK_SIZE];
+            int n = readFully(gzip, b, 0, b.length);
+            if (n <= 0) {
+                return;
+            }
+            if (n < b.length) {
+                byte[] last = new byte[n];
+                System.arraycopy(b, 0, last, 0, n);
+                b = last;
+            }
+            blocks.put(completed(b));
+        }
+    }
+
+    /**
+     * Retrieves the size of a gzip member from its header.
+     *
+     * @param header    the header of the member
+     * @return          the size of the member, in bytes, or -1 if the header
+     *                  was not written by {@link BlockGzipOutputStream}
+     */
+    private static int memberSize(byte[] header) {
+        if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b
+            || header[2] != 8 || header[3] != 4
+            || getShort(header, 10) != 8
+            || header[12] != BlockGzipOutputStream.SUBFIELD_ID1
+            || header[13] != BlockGzipOutputStream.SUBFIELD_ID2
+            || getShort(header, 14) != 4) {
+            return -1;
+        }
+        int size = getInt(header, 16);
+        if (size < BlockGzipOutputStream.HEADER_SIZE + BlockGzipOutputStream.TRAILER_SIZE) {
+            return -1;
+        }
+        return size;
+    }
+
+    /**
+     * Decompresses a gzip member.
+     *
+     * @param member        the member
+     * @return              the decompressed data
+     * @throws IOException  if the member is corrupt
+     */
+    private byte[] inflate(byte[] member) throws IOException {
+        int trailer = member.length - BlockGzipOutputStream.TRAILER_SIZE;
+        byte[] data = new byte[getInt(member, trailer + 4)];
+        Inflater inf = inflater.get();
+        inf.reset();
+        inf.setInput(member, BlockGzipOutputStream.HEADER_SIZE,
+                     trailer - BlockGzipOutputStream.HEADER_SIZE);
+        try {
+            int n = 0;
+            while (n < data.length && !inf.finished()) {
+                int k = inf.inflate(data, n, data.length - n);
+                if (k == 0 && (inf.needsInput() || inf.needsDictionary())) {
+                    break;
+                }
+                n += k;
+            }
+            if (n != data.length) {
+                throw new ZipException("Corrupt GZIP block: " + path);
+            }
+        } catch (DataFormatException e) {
+            throw new ZipException("Corrupt GZIP block: " + path);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+        if ((int) crc.getValue() != getInt(member, trailer)) {
+            throw new ZipException("Corrupt GZIP trailer: " + path);
+        }
+        return data;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (blockPosition == block.length && !nextBlock()) {
+            return -1;
+        }
+        return block[blockPosition++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (blockPosition == block.length && !nextBlock()) {
+            return -1;
+        }
+        int n = Math.min(len, block.length - blockPosition);
+        System.arraycopy(block, blockPosition, b, off, n);
+        blockPosition += n;
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return block.length - blockPosition;
+    }
+
+    /**
+     * Waits for the next block to be decompressed.
+     *
+     * @return              <tt>false</tt> if the end of the file has been reached
+     * @throws IOException  if an error occurs while reading or decompressing the file
+     */
+    private boolean nextBlock() throws IOException {
+        while (!finished) {
+            byte[] b;
+            try {
+                b = blocks.take().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading " + path);
+            } catch (ExecutionException e) {
+                finished = true;
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+            if (b == null) {
+                finished = true;
+            } else if (b.length > 0) {
+                block = b;
+                blockPosition = 0;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops the background threads, and closes the file.
+     *
+     * @throws IOException  if an I/O error occurs
+     */
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        readerThread.interrupt();
+        try {
+            readerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inflaters.shutdownNow();
+        blocks.clear();
+        in.close();
+    }
+
+    /**
+     *
+     * @param b     a decompressed block
+     * @return      a future holding the (already decompressed) block
+     */
+    private static Future<byte[]> completed(final byte[] b) {
+        FutureTask<byte[]> f = new FutureTask<byte[]>(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+                return b;
+            }
+        });
+        f.run();
+        return f;
+    }
+
+    /**
+     * Reads bytes until a buffer is filled or the end of the stream is reached.
+     *
+     * @param in            the stream
+     * @param b             the buffer
+     * @param off           the position where the first byte is stored
+     * @param len           the number of bytes to read
+     * @return              the number of bytes read
+     * @throws IOException  if an I/O error occurs
+     */
+    private static int readFully(InputStream in, byte[] b, int off, int len)
+    throws IOException {
+        int n = 0;
+        while (n < len) {
+            int k = in.read(b, off + n, len - n);
+            if (k == -1) {
+                break;
+            }
+            n += k;
+        }
+        return n;
+    }
+
+    /**
+     * Retrieves a short stored in little-endian order.
+     *
+     * @param b         the array
+     * @param off       the position of the short
+     * @return          the value
+     */
+    private static int getShort(byte[] b, int off) {
+        return (b[off] & 0xff) | ((b[off + 1] & 0xff) << 8);
+    }
+
+    /**
+     * Retrieves an int stored in little-endian order.
+     *
+     * @param b         the array
+     * @param off       the position of the int
+     * @return          the value
+     */
+    private static int getInt(byte[] b, int off) {
+        return getShort(b, off) | (getShort(b, off + 2) << 16);
+    }
+}
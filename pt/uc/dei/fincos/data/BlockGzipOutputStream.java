@@ -0,0 +1,230 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes block-compressed gzip files.
+ *
+ * Data is compressed in blocks of {@link #BLOCK_SIZE} bytes, each stored as a
+ * gzip member of its own. The header of every member records the member's
+ * size (in an extra field), so that {@link BlockGzipInputStream} can locate
+ * blocks without decompressing them, and decompress them in parallel. The
+ * files remain valid gzip files, readable by any gzip tool.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see BlockGzipInputStream
+ */
+public final class BlockGzipOutputStream extends OutputStream {
+
+    /** Size of the uncompressed blocks, in bytes. */
+    public static final int BLOCK_SIZE = 1 << 16;
+
+    /** Extension of the names of block-compressed files. */
+    public static final String EXTENSION = ".gz";
+
+    /** Size of the header of each member, in bytes. */
+    static final int HEADER_SIZE = 20;
+
+    /** Size of the trailer of each member (CRC-32 and uncompressed size), in bytes. */
+    static final int TRAILER_SIZE = 8;
+
+    /** First byte of the identifier of the extra subfield holding member sizes. */
+    static final int SUBFIELD_ID1 = 'F';
+
+    /** Second byte of the identifier of the extra subfield holding member sizes. */
+    static final int SUBFIELD_ID2 = 'B';
+
+    /** The stream where compressed data is written. */
+    private final OutputStream out;
+
+    /** Compresses blocks. */
+    private final Deflater deflater;
+
+    /** Computes the checksums of blocks. */
+    private final CRC32 crc = new CRC32();
+
+    /** Data not compressed yet. */
+    private final byte[] block = new byte[BLOCK_SIZE];
+
+    /** Number of bytes of data not compressed yet. */
+    private int blockLength;
+
+    /** Holds a compressed member. */
+    private byte[] member = new byte[BLOCK_SIZE + BLOCK_SIZE / 8];
+
+    /** Indicates if at least one member has been written. */
+    private boolean written;
+
+    /** Indicates if the stream has been closed. */
+    private boolean closed;
+
+    /**
+     *
+     * @param out       the stream where compressed data is written
+     */
+    public BlockGzipOutputStream(OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     *
+     * @param out       the stream where compressed data is written
+     * @param level     the compression level (0-9)
+     */
+    public BlockGzipOutputStream(OutputStream out, int level) {
+        this.out = out;
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Checks if a file is (or must be written as) a compressed file.
+     *
+     * @param path  path for the file
+     * @return      <tt>true</tt> if the file's name ends with {@link #EXTENSION}
+     */
+    public static boolean isCompressedFile(String path) {
+        return path.endsWith(EXTENSION);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (blockLength == BLOCK_SIZE) {
+            writeBlock();
+        }
+        block[blockLength++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (blockLength == BLOCK_SIZE) {
+                writeBlock();
+            }
+            int n = Math.min(len, BLOCK_SIZE - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Flushes the underlying stream. Data of the current block is
+     * <i>not</i> written until the block is full or the stream is closed,
+     * as small blocks would compress poorly.
+     *
+     * @throws IOException  if an I/O error occurs
+     */
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (blockLength > 0 || !written) {
+                writeBlock();
+            }
+            out.flush();
+        } finally {
+            deflater.end();
+            out.close();
+        }
+    }
+
+    /**
+     * Compresses the current block and writes it as a gzip member.
+     *
+     * @throws IOException  if an I/O error occurs
+     */
+    private void writeBlock() throws IOException {
+        deflater.reset();
+        deflater.setInput(block, 0, blockLength);
+        deflater.finish();
+        int length = HEADER_SIZE;
+        while (!deflater.finished()) {
+            if (length == member.length - TRAILER_SIZE) {
+                byte[] larger = new byte[2 * member.length];
+                System.arraycopy(member, 0, larger, 0, length);
+                member = larger;
+            }
+            length += deflater.deflate(member, length, member.length - TRAILER_SIZE - length);
+        }
+        crc.reset();
+        crc.update(block, 0, blockLength);
+        int memberSize = length + TRAILER_SIZE;
+
+        // Header: gzip magic, deflate, FEXTRA, no mtime, no extra flags, unknown OS
+        member[0] = (byte) 0x1f;
+        member[1] = (byte) 0x8b;
+        member[2] = 8;
+        member[3] = 4;
+        putInt(member, 4, 0);
+        member[8] = 0;
+        member[9] = (byte) 0xff;
+        // Extra field: a single subfield holding the size of the member
+        putShort(member, 10, 8);
+        member[12] = (byte) SUBFIELD_ID1;
+        member[13] = (byte) SUBFIELD_ID2;
+        putShort(member, 14, 4);
+        putInt(member, 16, memberSize);
+        // Trailer
+        putInt(member, length, (int) crc.getValue());
+        putInt(member, length + 4, blockLength);
+
+        out.write(member, 0, memberSize);
+        blockLength = 0;
+        written = true;
+    }
+
+    /**
+     * Stores a short in little-endian order.
+     *
+     * @param b         the destination array
+     * @param off       the position of the short
+     * @param v         the value
+     */
+    private static void putShort(byte[] b, int off, int v) {
+        b[off] = (byte) v;
+        b[off + 1] = (byte) (v >>> 8);
+    }
+
+    /**
+     * Stores an int in little-endian order.
+     *
+     * @param b         the destination array
+     * @param off       the position of the int
+     * @param v         the value
+     */
+    private static void putInt(byte[] b, int off, int v) {
+        putShort(b, off, v);
+        putShort(b, off + 2, v >>> 16);
+    }
+}
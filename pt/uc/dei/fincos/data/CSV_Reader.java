@@ -18,31 +18,64 @@
 
 package pt.uc.dei.fincos.data;
 
-import java.io.BufferedReader;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.io.InputStreamReader;
+import java.io.Reader;
 
 import pt.uc.dei.fincos.basic.Globals;
 
 
 /**
- * Class used to read CSV files.
+ * Class used to read CSV files. Compressed files (see
+ * {@link BlockGzipOutputStream#isCompressedFile(String)}) are decompressed on
+ * the fly, by background threads.
+ *
+ * Lines are read into a reusable buffer, and split into fields by a
+ * {@link CSV_Tokenizer}. Callers that read many records should use
+ * {@link #nextRecord(CSV_Tokenizer)}, which creates no objects, and retrieve
+ * only the fields they need.
  *
  * @author  Marcelo R.N. Mendes
  *
  */
 public final class CSV_Reader {
+    /** Size of the buffer used to read the CSV file. */
+    private static final int BUFFER_SIZE = 65536;
+
     /** Path for a CSV file to be read. */
     private String filePath;
 
+    /** Offset, in bytes, from which the CSV file is read. */
+    private long startOffset;
+
     /** reads the CSV file. */
-    private BufferedReader reader;
+    private Reader reader;
 
     /** character used to separate fields of the CSV records stored in the file. */
     private String delimiter;
 
+    /** Characters read from the CSV file and not consumed yet. */
+    private final char[] readBuffer = new char[BUFFER_SIZE];
+
+    /** Position of the next character to be consumed in the read buffer. */
+    private int readPosition;
+
+    /** Number of valid characters in the read buffer. */
+    private int readLimit;
+
+    /** Indicates if the last line ended with a carriage return (so that a following
+     *  line feed must be skipped). */
+    private boolean skipLineFeed;
+
+    /** Splits the records returned by {@link #getNextRecord()}. */
+    private final CSV_Tokenizer tokenizer;
+
+    /** Holds the lines returned by {@link #getNextLine()}. */
+    private CSV_Tokenizer lineBuffer;
+
 
     /**
      *
@@ -64,8 +97,26 @@ public final class CSV_Reader {
      */
     public CSV_Reader(String path, String delimiter) throws FileNotFoundException {
         this.filePath = path;
-        reader = new BufferedReader(new FileReader(path));
+        reader = open(path);
+        this.delimiter = delimiter;
+        this.tokenizer = new CSV_Tokenizer(delimiter);
+    }
+
+    /**
+     *
+     * @param path                     path for a CSV file to be read.
+     * @param delimiter                character used to separate fields of the CSV
+     *                                 records stored in the file
+     * @param offset                   offset, in bytes, of the first line to be read
+     *                                 (not supported for compressed files)
+     * @throws IOException             if the file cannot be opened or positioned
+     */
+    public CSV_Reader(String path, String delimiter, long offset) throws IOException {
+        this.filePath = path;
+        this.startOffset = offset;
+        reader = open(path, offset);
         this.delimiter = delimiter;
+        this.tokenizer = new CSV_Tokenizer(delimiter);
     }
 
     /**
@@ -76,14 +127,27 @@ public final class CSV_Reader {
      * @throws IOException     If an I/O error occurs
      */
     public String[] getNextRecord() throws IOException {
-        String [] cols = null;
-        String line = reader.readLine();
-
-        if (line != null) {
-            cols = split(line, this.delimiter);
+        if (nextRecord(tokenizer)) {
+            return tokenizer.toArray();
+        } else {
+            return null;
         }
+    }
 
-        return cols;
+    /**
+     * Reads a line of text from the CSV file into a tokenizer, and splits it
+     * into fields.
+     *
+     * @param t                the tokenizer
+     * @return                 <tt>false</tt> if the end of the file has been reached
+     * @throws IOException     If an I/O error occurs
+     */
+    public boolean nextRecord(CSV_Tokenizer t) throws IOException {
+        if (!readLine(t)) {
+            return false;
+        }
+        t.tokenize();
+        return true;
     }
 
     /**
@@ -98,11 +162,60 @@ public final class CSV_Reader {
      * @exception  IOException  If an I/O error occurs
      */
     public String getNextLine() throws IOException {
-        return reader.readLine();
+        if (lineBuffer == null) {
+            lineBuffer = new CSV_Tokenizer(delimiter);
+        }
+        if (readLine(lineBuffer)) {
+            return lineBuffer.getLine();
+        } else {
+            return null;
+        }
     }
 
     /**
-     * More efficient implementation of split method for string.
+     * Reads a line of text from the CSV file into the buffer of a tokenizer.
+     *
+     * @param t                the tokenizer
+     * @return                 <tt>false</tt> if the end of the file has been reached
+     * @throws IOException     If an I/O error occurs
+     */
+    private boolean readLine(CSV_Tokenizer t) throws IOException {
+        t.clear();
+        boolean empty = true;
+        while (true) {
+            if (readPosition == readLimit) {
+                int n = reader.read(readBuffer, 0, readBuffer.length);
+                if (n <= 0) {
+                    return !empty;
+                }
+                readPosition = 0;
+                readLimit = n;
+            }
+            if (skipLineFeed) {
+                skipLineFeed = false;
+                if (readBuffer[readPosition] == '\n') {
+                    readPosition++;
+                    continue;
+                }
+            }
+            empty = false;
+            int start = readPosition;
+            for (int i = start; i < readLimit; i++) {
+                char c = readBuffer[i];
+                if (c == '\n' || c == '\r') {
+                    t.append(readBuffer, start, i - start);
+                    readPosition = i + 1;
+                    skipLineFeed = c == '\r';
+                    return true;
+                }
+            }
+            t.append(readBuffer, start, readLimit - start);
+            readPosition = readLimit;
+        }
+    }
+
+    /**
+     * Splits a record into fields.
      *
      * @param line          The record to be split
      * @param separator     The character used to split record's fields
@@ -113,27 +226,9 @@ public final class CSV_Reader {
         if (line == null) {
             return null;
         }
-        String[] ret = null;
-        ArrayList<String> cols = new ArrayList<String>();
-        int commaIndex;
-        while (true) {
-            commaIndex = line.lastIndexOf(separator);
-            if (commaIndex != -1) {
-                cols.add(line.substring(commaIndex + 1));
-                line = line.substring(0, commaIndex);
-            } else {
-                cols.add(line);
-                break;
-            }
-        }
-        ret = new String[cols.size()];
-
-        int i = ret.length - 1;
-        for (String c : cols) {
-            ret[i] = c;
-            i--;
-        }
-        return ret;
+        CSV_Tokenizer t = new CSV_Tokenizer(separator);
+        t.tokenize(line);
+        return t.toArray();
     }
 
 
@@ -153,6 +248,49 @@ public final class CSV_Reader {
      */
     public void reopen() throws IOException {
         this.closeFile();
-        reader = new BufferedReader(new FileReader(this.filePath));
+        reader = open(this.filePath, this.startOffset);
+        readPosition = 0;
+        readLimit = 0;
+        skipLineFeed = false;
+    }
+
+    /**
+     * Opens a CSV file, decompressing it if it is compressed.
+     *
+     * @param path                     path for the CSV file
+     * @return                         a reader of the file's characters
+     * @throws FileNotFoundException   if the file cannot be opened
+     */
+    private static Reader open(String path) throws FileNotFoundException {
+        if (BlockGzipOutputStream.isCompressedFile(path)) {
+            return new InputStreamReader(new BlockGzipInputStream(path));
+        } else {
+            return new FileReader(path);
+        }
+    }
+
+    /**
+     * Opens a CSV file from a given offset.
+     *
+     * @param path                     path for the CSV file
+     * @param offset                   offset, in bytes, of the first line to be read
+     * @return                         a reader of the file's characters
+     * @throws IOException             if the file cannot be opened or positioned
+     */
+    private static Reader open(String path, long offset) throws IOException {
+        if (offset == 0) {
+            return open(path);
+        }
+        if (BlockGzipOutputStream.isCompressedFile(path)) {
+            throw new IOException("Compressed files can only be read from their beginning.");
+        }
+        FileInputStream in = new FileInputStream(path);
+        try {
+            in.getChannel().position(offset);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new InputStreamReader(in);
     }
 }
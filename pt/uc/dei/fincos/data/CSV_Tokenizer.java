@@ -0,0 +1,296 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+/**
+ * Splits CSV records into fields in a single forward pass.
+ *
+ * A record is kept in a reusable character buffer, and only the offsets of
+ * its fields are computed: a <tt>String</tt> is created only for the fields
+ * that are actually read through {@link #getField(int)}, and numeric fields
+ * can be parsed in place through {@link #getLong(int)}. An instance can thus
+ * be used to tokenize any number of records without allocating memory
+ * (except when records longer or with more fields than any previous one
+ * are found).
+ *
+ * A tokenizer is not thread-safe.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see CSV_Reader
+ */
+public final class CSV_Tokenizer {
+
+    /** Initial capacity of the buffers. */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /** Sequence of characters that separates fields. */
+    private final String delimiter;
+
+    /** The first character of the delimiter. */
+    private final char firstDelimiterChar;
+
+    /** The current record. */
+    private char[] buffer = new char[INITIAL_CAPACITY];
+
+    /** Length of the current record. */
+    private int length;
+
+    /** Offset of the beginning of each field of the current record. */
+    private int[] starts = new int[INITIAL_CAPACITY / 8];
+
+    /** Offset of the end of each field of the current record (exclusive). */
+    private int[] ends = new int[INITIAL_CAPACITY / 8];
+
+    /** Number of fields of the current record. */
+    private int fieldCount;
+
+    /**
+     *
+     * @param delimiter     sequence of characters that separates fields
+     */
+    public CSV_Tokenizer(String delimiter) {
+        if (delimiter == null || delimiter.isEmpty()) {
+            throw new IllegalArgumentException("Invalid delimiter.");
+        }
+        this.delimiter = delimiter;
+        this.firstDelimiterChar = delimiter.charAt(0);
+    }
+
+    /**
+     * Splits a record into fields.
+     *
+     * @param line  the record
+     * @return      the number of fields of the record
+     */
+    public int tokenize(String line) {
+        int n = line.length();
+        ensureCapacity(n);
+        line.getChars(0, n, buffer, 0);
+        this.length = n;
+        return tokenize();
+    }
+
+    /**
+     * Empties the buffer of the tokenizer, so that a new record can be
+     * appended to it.
+     */
+    void clear() {
+        this.length = 0;
+        this.fieldCount = 0;
+    }
+
+    /**
+     * Appends characters to the record being read.
+     *
+     * @param chars     array holding the characters
+     * @param offset    offset of the first character
+     * @param count     number of characters
+     */
+    void append(char[] chars, int offset, int count) {
+        ensureCapacity(length + count);
+        System.arraycopy(chars, offset, buffer, length, count);
+        length += count;
+    }
+
+    /**
+     * Splits the record in the buffer into fields.
+     *
+     * @return  the number of fields of the record
+     */
+    int tokenize() {
+        char[] buf = this.buffer;
+        int n = this.length;
+        int dlen = delimiter.length();
+        int count = 0;
+        int start = 0;
+        for (int i = 0; i < n; i++) {
+            if (buf[i] == firstDelimiterChar && (dlen == 1 || matchesDelimiter(i))) {
+                addField(count++, start, i);
+                i += dlen - 1;
+                start = i + 1;
+            }
+        }
+        addField(count++, start, n);
+        this.fieldCount = count;
+        return count;
+    }
+
+    /**
+     *
+     * @param offset    an offset of the buffer
+     * @return          <tt>true</tt> if the delimiter occurs at the offset
+     */
+    private boolean matchesDelimiter(int offset) {
+        int dlen = delimiter.length();
+        if (offset + dlen > length) {
+            return false;
+        }
+        for (int k = 1; k < dlen; k++) {
+            if (buffer[offset + k] != delimiter.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the offsets of a field.
+     *
+     * @param index     the index of the field
+     * @param start     offset of the beginning of the field
+     * @param end       offset of the end of the field (exclusive)
+     */
+    private void addField(int index, int start, int end) {
+        if (index == starts.length) {
+            int[] s = new int[index * 2];
+            int[] e = new int[index * 2];
+            System.arraycopy(starts, 0, s, 0, index);
+            System.arraycopy(ends, 0, e, 0, index);
+            starts = s;
+            ends = e;
+        }
+        starts[index] = start;
+        ends[index] = end;
+    }
+
+    /**
+     * Grows the buffer, if needed.
+     *
+     * @param capacity  the required capacity
+     */
+    private void ensureCapacity(int capacity) {
+        if (capacity > buffer.length) {
+            char[] b = new char[Math.max(capacity, buffer.length * 2)];
+            System.arraycopy(buffer, 0, b, 0, length);
+            buffer = b;
+        }
+    }
+
+    /**
+     *
+     * @return  the number of fields of the current record
+     */
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    /**
+     *
+     * @return  the number of characters of the current record
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     *
+     * @return  the current record, as a string
+     */
+    public String getLine() {
+        return new String(buffer, 0, length);
+    }
+
+    /**
+     *
+     * @param index     the index of a field
+     * @return          the value of the field
+     */
+    public String getField(int index) {
+        checkIndex(index);
+        return new String(buffer, starts[index], ends[index] - starts[index]);
+    }
+
+    /**
+     * Parses a field as a <tt>long</tt> without creating a string.
+     *
+     * @param index     the index of a field
+     * @return          the value of the field
+     * @throws NumberFormatException    if the field is not a valid number
+     */
+    public long getLong(int index) {
+        checkIndex(index);
+        int i = starts[index];
+        int end = ends[index];
+        boolean negative = false;
+        if (i < end && (buffer[i] == '-' || buffer[i] == '+')) {
+            negative = buffer[i] == '-';
+            i++;
+        }
+        // Up to 18 digits cannot overflow; other cases are left to Long.parseLong
+        if (i == end || end - i > 18) {
+            return Long.parseLong(getField(index));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(getField(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Compares a field with a string without creating a string.
+     *
+     * @param index     the index of a field
+     * @param s         a string
+     * @return          <tt>true</tt> if the field is equal to the string
+     */
+    public boolean fieldEquals(int index, String s) {
+        checkIndex(index);
+        int start = starts[index];
+        int n = ends[index] - start;
+        if (s == null || s.length() != n) {
+            return false;
+        }
+        for (int k = 0; k < n; k++) {
+            if (buffer[start + k] != s.charAt(k)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     *
+     * @return  all fields of the current record
+     */
+    public String[] toArray() {
+        String[] ret = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            ret[i] = new String(buffer, starts[i], ends[i] - starts[i]);
+        }
+        return ret;
+    }
+
+    /**
+     *
+     * @param index     the index of a field
+     * @throws ArrayIndexOutOfBoundsException   if the current record has no
+     *                                          such field
+     */
+    private void checkIndex(int index) {
+        if (index < 0 || index >= fieldCount) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+    }
+}
@@ -20,15 +20,18 @@ package pt.uc.dei.fincos.data;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
 
 import pt.uc.dei.fincos.basic.Event;
 import pt.uc.dei.fincos.basic.Globals;
 
 /**
  *
- * Class used to write CSV files.
+ * Class used to write CSV files. Files whose name ends with
+ * {@link BlockGzipOutputStream#EXTENSION} are block-compressed.
  *
  * @author  Marcelo R.N. Mendes
  *
@@ -64,7 +67,12 @@ public class CSV_Writer {
 			f.getParentFile().mkdirs();
 		}
 
-		writer = new BufferedWriter(new FileWriter(path));
+		if (BlockGzipOutputStream.isCompressedFile(path)) {
+		    writer = new BufferedWriter(new OutputStreamWriter(
+		            new BlockGzipOutputStream(new FileOutputStream(path))));
+		} else {
+		    writer = new BufferedWriter(new FileWriter(path));
+		}
 	}
 
 
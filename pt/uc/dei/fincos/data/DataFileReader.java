@@ -38,7 +38,7 @@ import pt.uc.dei.fincos.driver.ExternalFileWorkloadPhase;
  *
  * @author  Marcelo R.N. Mendes
  */
-public final class DataFileReader {
+public final class DataFileReader implements EventFileReader {
 
     /** Path for the data file. */
 	private String path;
@@ -46,6 +46,21 @@ public final class DataFileReader {
 	/** Reads the data file. */
 	private CSV_Reader reader;
 
+	/** Splits the records of the data file. */
+	private CSV_Tokenizer tokenizer;
+
+	/** Maximum number of distinct type names kept for reuse. */
+	private static final int MAX_TYPE_NAMES = 64;
+
+	/** Type names already read from the data file. */
+	private final String[] typeNames = new String[MAX_TYPE_NAMES];
+
+	/** Number of type names already read from the data file. */
+	private int typeNameCount = 0;
+
+    /** Reads and parses the data file in background threads (if read-ahead is enabled). */
+    private ReadAheadPipeline pipeline;
+
 	/** Sequence of characters used to separate the fields of the
 	 * records in the data file. */
 	private final String delimiter;
@@ -81,6 +96,21 @@ public final class DataFileReader {
 	/** Event type name to be used when the data file does not contain event types. */
 	private String eventTypeName;
 
+    /** Timestamp of the first event to be read (see {@link #setReplayWindow(long, long, boolean)}). */
+    private long windowStart = Long.MIN_VALUE;
+
+    /** Timestamp of the last event to be read. */
+    private long windowEnd = Long.MAX_VALUE;
+
+    /** Indicates if the end of the replay window has been reached. */
+    private boolean windowFinished;
+
+    /** Offset from which the data file is read, in bytes. */
+    private long startOffset = 0;
+
+    /** Offset at which reading of the data file can stop, in bytes. */
+    private long endOffset = Long.MAX_VALUE;
+
 
 	/**
 	 * Constructor for workloads using external data files.
@@ -150,6 +180,112 @@ public final class DataFileReader {
 		this.open(path);
 	}
 
+    /**
+     * Creates a parser of the records of a data file, i.e., a reader with the
+     * same settings as another reader, but which does not open the file.
+     *
+     * @param template     the reader whose settings are copied
+     */
+    DataFileReader(DataFileReader template) {
+        this.path = template.path;
+        this.delimiter = template.delimiter;
+        this.types = template.types;
+        this.containsEventsType = template.containsEventsType;
+        this.typeIndex = template.typeIndex;
+        this.containsTimestamp = template.containsTimestamp;
+        this.timestampIndex = template.timestampIndex;
+        this.includeTS = template.includeTS;
+        this.timestampUnit = template.timestampUnit;
+        this.eventTypeName = template.eventTypeName;
+    }
+
+    /**
+     *
+     * @return     the sequence of characters used to separate the fields of records
+     */
+    String getDelimiter() {
+        return this.delimiter;
+    }
+
+    /**
+     *
+     * @return     the path for the data file
+     */
+    String getPath() {
+        return this.path;
+    }
+
+    /**
+     *
+     * @return     a description of how the timestamps of the data file are read,
+     *             which determines the validity of its index
+     */
+    String getIndexSettings() {
+        return timestampIndex + "," + timestampUnit + "," + delimiter;
+    }
+
+    /**
+     * Enables read-ahead: the data file is read by a background thread, and
+     * its records are parsed by a pool of threads, so that events are ready
+     * when requested.
+     *
+     * @param parserThreads    the number of threads that parse records
+     * @throws IOException     if the data file cannot be opened
+     */
+    public void setReadAhead(int parserThreads) throws IOException {
+        if (parserThreads < 1) {
+            throw new IllegalArgumentException("Invalid number of parser threads ("
+                                             + parserThreads + ").");
+        }
+        this.closeFile();
+        this.pipeline = new ReadAheadPipeline(path, this, parserThreads,
+                                              startOffset, endOffset);
+        this.windowFinished = false;
+    }
+
+    /**
+     * Restricts reading to the events whose timestamps fall in a given
+     * window. The data file is (re)read from the beginning of the window,
+     * also when it is reopened to be replayed again.
+     *
+     * With an index (see {@link TimestampIndex}), reading starts close to the
+     * first event of the window, found with a binary search. Otherwise, the
+     * events that precede the window are read and skipped.
+     *
+     * @param startTime        the timestamp of the first event to be read
+     * @param endTime          the timestamp of the last event to be read
+     * @param useIndex         indicates if the index of the data file must be
+     *                         used (and built, if needed); compressed files
+     *                         are never indexed
+     * @throws IOException     if the data file or its index cannot be read
+     */
+    public void setReplayWindow(long startTime, long endTime, boolean useIndex)
+    throws IOException {
+        if (!containsTimestamp) {
+            throw new IllegalStateException("Replay windows require a data file with timestamps.");
+        }
+        if (startTime > endTime) {
+            throw new IllegalArgumentException("Invalid replay window (" + startTime
+                                             + " > " + endTime + ").");
+        }
+        this.windowStart = startTime;
+        this.windowEnd = endTime;
+        if (useIndex && !BlockGzipOutputStream.isCompressedFile(path)) {
+            TimestampIndex index = TimestampIndex.open(this);
+            this.startOffset = index.getStartOffset(startTime);
+            this.endOffset = index.getEndOffset(endTime);
+        } else {
+            this.startOffset = 0;
+            this.endOffset = Long.MAX_VALUE;
+        }
+        if (pipeline != null) {
+            pipeline.restart(startOffset, endOffset);
+            windowFinished = false;
+        } else {
+            this.reOpen();
+        }
+    }
+
 
 	/**
 	 * Retrieves the next event from the data file.
@@ -157,55 +293,60 @@ public final class DataFileReader {
 	 * @return		       the event, represented as an array of in CSV format
 	 * @throws Exception   if an error occurs while reading/parsing the event from disk
 	 */
+	@Override
 	public CSV_Event getNextCSVEvent() throws Exception {
-	    String[] record = reader.getNextRecord();
-	    if (record == null) {
+        if (windowFinished) {
+            return null;
+        }
+        CSV_Event e = readCSVEvent();
+        while (e != null && e.getTimestamp() < windowStart) {
+            e = readCSVEvent();
+        }
+        if (e != null && e.getTimestamp() > windowEnd) {
+            windowFinished = true;
+            return null;
+        }
+        return e;
+    }
+
+    /**
+     * Reads the next record of the data file.
+     *
+     * @return             the event, represented as an array of in CSV format
+     * @throws Exception   if an error occurs while reading/parsing the event from disk
+     */
+    private CSV_Event readCSVEvent() throws Exception {
+        if (pipeline != null) {
+            return pipeline.next();
+        }
+	    if (!reader.nextRecord(tokenizer)) {
 	        return null;
 	    }
-	    String[] payload;
-	    String typeName = this.eventTypeName;
-	    long timestamp = 0;
-	    int tsIndex = -1;
-	    int typeIndex = -1;
-	    if (containsTimestamp) {
-	        tsIndex = getTSIndex(record);
-            if (containsEventsType) {
-                typeIndex = getTypeIndex(record);
-                typeName = record[typeIndex];
-                if (includeTS) {
-                    payload = new String[record.length - 1];
-                } else  {
-                    payload = new String[record.length - 2];
-                }
-            } else {
-                if (includeTS) {
-                    payload = new String[record.length];
-                } else  {
-                    payload = new String[record.length - 1];
-                }
-            }
-            if (timestampUnit == ExternalFileWorkloadPhase.DATE_TIME) {
-                timestamp = dateTimeFormat.parse(record[tsIndex]).getTime();
-            } else {
-                timestamp = Long.parseLong(record[tsIndex]);
-            }
-        } else {
-            if (containsEventsType) {
-                typeIndex = getTypeIndex(record);
-                typeName = record[typeIndex];
-                payload = new String[record.length - 1];
-            } else {
-                payload = new String[record.length];
-            }
-        }
+        return parse(tokenizer);
+    }
 
+    /**
+     * Converts a record of the data file into an event.
+     *
+     * @param record       holds the record, already split into fields
+     * @return             the event, represented as an array of in CSV format
+     * @throws Exception   if an error occurs while parsing the event
+     */
+    CSV_Event parse(CSV_Tokenizer record) throws Exception {
+        int fieldCount = record.getFieldCount();
+	    int tsIndex = getTSIndex(fieldCount);
+	    int typeIndex = getTypeIndex(fieldCount);
+        String typeName = typeIndex != -1 ? getTypeName(record, typeIndex) : this.eventTypeName;
+        long timestamp = containsTimestamp ? getTimestamp(record, tsIndex) : 0;
+
+	    String[] payload = new String[payloadSize(fieldCount, tsIndex, typeIndex)];
 	    int skipCount = 0;
-	    for (int i = 0; i < record.length; i++) {
+	    for (int i = 0; i < fieldCount; i++) {
 	        if ((i == tsIndex && !includeTS) || i == typeIndex) {
 	            skipCount++;
 	            continue;
 	        }
-	        payload[i - skipCount] = record[i];
+            payload[i - skipCount] = record.getField(i);
         }
 
 	    return new CSV_Event(typeName, timestamp, payload);
@@ -218,10 +359,11 @@ public final class DataFileReader {
 	 * @return		       The event in the framework internal representation format
 	 * @throws Exception   if an error occurs while reading/parsing the event from disk
 	 */
+	@Override
 	public Event getNextEvent() throws Exception {
-		String[] record = reader.getNextRecord();
-		if (record != null) {
-			return fromCSVToEvent(record);
+        CSV_Event record = getNextCSVEvent();
+        if (record != null) {
+            return fromCSVToEvent(record);
 		} else {
 			return null;
 		}
@@ -229,51 +371,20 @@ public final class DataFileReader {
 
 
 	/**
-	 * Converts an event expressed as CSV textual record into
-	 * internal event representation.
+     * Converts an event expressed as CSV textual record into
+     * internal event representation.
 	 * (LEGACY METHOD)
 	 *
-	 * @param csvRecord    an event represented as CSV record
+     * @param record       an event read from the data file
 	 * @return             an event represented as an instance of class {@link Event}
-	 * @throws Exception   if an error occurs while parsing the event
 	 */
-	private Event fromCSVToEvent(String[] csvRecord) throws Exception {
+    private Event fromCSVToEvent(CSV_Event record) {
 		Event e = null;
 
 		EventType type = null;
-		Object[] eventRecord;
-
-		String typeName = this.eventTypeName;
-		long timestamp = 0;
-		int tsIndex = -1;
-        int typeIndex = -1;
-		if (containsTimestamp) {
-		    tsIndex = getTSIndex(csvRecord);
-		    if (containsEventsType) {
-		        typeIndex = getTypeIndex(csvRecord);
-		        typeName = csvRecord[typeIndex];
-		        if (includeTS) {
-		            eventRecord = new Object[csvRecord.length - 1];
-		        } else {
-		            eventRecord = new Object[csvRecord.length - 2];
-		        }
-		    } else {
-		        eventRecord = new Object[csvRecord.length - 1];
-		    }
-		    if (timestampUnit == ExternalFileWorkloadPhase.DATE_TIME) {
-                timestamp = dateTimeFormat.parse(csvRecord[tsIndex]).getTime();
-            } else {
-                timestamp = Long.parseLong(csvRecord[tsIndex]);
-            }
-		} else {
-		    if (containsEventsType) {
-		        typeIndex = getTypeIndex(csvRecord);
-                typeName = csvRecord[typeIndex];
-                eventRecord = new Object[csvRecord.length - 1];
-            } else {
-                eventRecord = new Object[csvRecord.length];
-            }
-		}
+        String typeName = record.getType();
+        String[] payload = record.getPayload();
+        Object[] eventRecord = new Object[payload.length];
 
 		if (types != null) {
 		    // tries to find in the list of types from config file
@@ -293,20 +404,69 @@ public final class DataFileReader {
             }
         }
 
-        int skipCount = 0;
-        for (int i = 0; i < csvRecord.length; i++) {
-            if ((i == tsIndex && !includeTS) || i == typeIndex) {
-                skipCount++;
-                continue;
-            }
-            eventRecord[i - skipCount] = csvRecord[i];
-        }
+        System.arraycopy(payload, 0, eventRecord, 0, payload.length);
         e = new Event(type, eventRecord);
-        e.setTimestamp(timestamp);
+        e.setTimestamp(record.getTimestamp());
 
 		return e;
 	}
 
+	/**
+	 * Computes the number of fields of a record that are part of its payload.
+	 *
+	 * @param fieldCount   the number of fields of the record
+	 * @param tsIndex      the index of the timestamp field (-1 if none)
+	 * @param typeIndex    the index of the type field (-1 if none)
+	 * @return             the size of the payload of the record
+	 */
+	private int payloadSize(int fieldCount, int tsIndex, int typeIndex) {
+	    int size = fieldCount;
+	    if (tsIndex != -1 && !includeTS) {
+	        size--;
+	    }
+	    if (typeIndex != -1) {
+	        size--;
+	    }
+	    return size;
+	}
+
+	/**
+	 * Retrieves the type name held in a field of the current record. Names
+	 * already seen are reused, so that no string is created for them.
+	 *
+     * @param record       holds the current record
+	 * @param typeIndex    the index of the type field
+	 * @return             the type name
+	 */
+    private String getTypeName(CSV_Tokenizer record, int typeIndex) {
+	    for (int i = 0; i < typeNameCount; i++) {
+            if (record.fieldEquals(typeIndex, typeNames[i])) {
+	            return typeNames[i];
+	        }
+	    }
+        String name = record.getField(typeIndex);
+	    if (typeNameCount < typeNames.length) {
+	        typeNames[typeNameCount++] = name;
+	    }
+	    return name;
+	}
+
+	/**
+	 * Parses the timestamp held in a field of the current record.
+	 *
+     * @param record       holds the current record
+	 * @param tsIndex      the index of the timestamp field
+	 * @return             the timestamp
+	 * @throws Exception   if the timestamp cannot be parsed
+	 */
+    private long getTimestamp(CSV_Tokenizer record, int tsIndex) throws Exception {
+	    if (timestampUnit == ExternalFileWorkloadPhase.DATE_TIME) {
+            return dateTimeFormat.parse(record.getField(tsIndex)).getTime();
+	    } else {
+            return record.getLong(tsIndex);
+	    }
+	}
+
 	/**
 	 * Retrieves the type associated with a given type name.
 	 *
@@ -345,7 +505,12 @@ public final class DataFileReader {
 	/**
 	 * Closes the data file and releases any system resources associated with it.
 	 */
+	@Override
 	public void closeFile() {
+        if (pipeline != null) {
+            pipeline.close();
+            return;
+        }
 		try {
 			this.reader.closeFile();
 		} catch (IOException e) {
@@ -362,36 +527,47 @@ public final class DataFileReader {
 	 */
 	private void open(String path) throws FileNotFoundException {
 		this.reader = new CSV_Reader(path, this.delimiter);
+		this.tokenizer = new CSV_Tokenizer(this.delimiter);
 	}
 
 	/**
 	 * Closes and reopens the data file.
-	 * @throws FileNotFoundException   if the data file cannot be opened
+     * @throws IOException   if the data file cannot be opened
 	 */
-	public void reOpen() throws FileNotFoundException {
+	@Override
+    public void reOpen() throws IOException {
+        this.windowFinished = false;
+        if (pipeline != null) {
+            pipeline.restart();
+            return;
+        }
 		this.closeFile();
-		this.open(path);
+        if (startOffset > 0) {
+            this.reader = new CSV_Reader(path, this.delimiter, startOffset);
+        } else {
+            this.open(path);
+        }
 	}
 
 	/**
 	 * Gets the absolute index of the timestamp field
 	 * in the records of the data file.
 	 *
-	 * @param csvRecord    a record from the data file
+	 * @param fieldCount   the number of fields of a record from the data file
 	 * @return             the absolute index of the timestamp field,
 	 *                     or <tt>-1</tt>, if the data file does not
 	 *                     contain timestamps.
 	 */
-	private int getTSIndex(String[] csvRecord) {
+	private int getTSIndex(int fieldCount) {
         switch (timestampIndex) {
         case ExternalFileWorkloadPhase.FIRST_FIELD:
             return 0;
         case ExternalFileWorkloadPhase.SECOND_FIELD:
             return 1;
         case ExternalFileWorkloadPhase.LAST_FIELD:
-            return csvRecord.length - 1;
+            return fieldCount - 1;
         case ExternalFileWorkloadPhase.SECOND_LAST_FIELD:
-            return csvRecord.length - 2;
+            return fieldCount - 2;
         default:
             return -1;
         }
@@ -401,21 +577,21 @@ public final class DataFileReader {
      * Gets the absolute index of the type field
      * in the records of the data file.
      *
-     * @param csvRecord    a record from the data file
+     * @param fieldCount   the number of fields of a record from the data file
      * @return             the absolute index of the type field,
      *                     or <tt>-1</tt>, if the data file does not
      *                     contain event types.
      */
-	private int getTypeIndex(String[] csvRecord) {
+	private int getTypeIndex(int fieldCount) {
 	    switch (typeIndex) {
         case ExternalFileWorkloadPhase.FIRST_FIELD:
             return 0;
         case ExternalFileWorkloadPhase.SECOND_FIELD:
             return 1;
         case ExternalFileWorkloadPhase.LAST_FIELD:
-            return csvRecord.length - 1;
+            return fieldCount - 1;
         case ExternalFileWorkloadPhase.SECOND_LAST_FIELD:
-            return csvRecord.length - 2;
+            return fieldCount - 2;
         default:
             return -1;
         }
@@ -0,0 +1,67 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.IOException;
+
+import pt.uc.dei.fincos.basic.CSV_Event;
+import pt.uc.dei.fincos.basic.Event;
+
+/**
+ * Common interface of the readers of the files from which events are
+ * replayed (CSV data files and binary event files).
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see DataFileReader
+ * @see BinaryDataFileReader
+ */
+public interface EventFileReader {
+
+    /**
+     * Retrieves the next event from the file.
+     *
+     * @return             the event, represented as an array of in CSV format,
+     *                     or <tt>null</tt> if the end of the file has been reached
+     * @throws Exception   if an error occurs while reading/parsing the event from disk
+     */
+    CSV_Event getNextCSVEvent() throws Exception;
+
+    /**
+     * Retrieves the next event from the file.
+     *
+     * @return             the event in the framework internal representation format,
+     *                     or <tt>null</tt> if the end of the file has been reached
+     * @throws Exception   if an error occurs while reading/parsing the event from disk
+     */
+    Event getNextEvent() throws Exception;
+
+    /**
+     * Closes and reopens the file, so that events are read again from
+     * its beginning.
+     *
+     * @throws IOException   if the file cannot be opened
+     */
+    void reOpen() throws IOException;
+
+    /**
+     * Closes the file and releases any system resources associated with it.
+     */
+    void closeFile();
+}
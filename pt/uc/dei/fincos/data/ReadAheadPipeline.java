@@ -0,0 +1,462 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+
+import pt.uc.dei.fincos.basic.CSV_Event;
+
+/**
+ * Reads and parses a data file ahead of its consumer.
+ *
+ * A background I/O thread maps the file in chunks of whole lines (or, for
+ * compressed files, reads them from a {@link BlockGzipInputStream}), and a pool
+ * of threads parses each chunk into a batch of events. Batches are handed to
+ * the consumer in file order, through a bounded queue, so that at most a few
+ * chunks are kept in memory at any time.
+ *
+ * Lines are delimited by searching line feeds in the bytes of the file, so
+ * the default charset must be ASCII-compatible (e.g., UTF-8 or ISO-8859-1).
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see DataFileReader#setReadAhead(int)
+ */
+final class ReadAheadPipeline {
+
+    /** Size of the chunks read from the data file, in bytes. */
+    private static final int CHUNK_SIZE = 1 << 18;
+
+    /** Path for the data file. */
+    private final String path;
+
+    /** The reader whose settings are used to parse records. */
+    private final DataFileReader template;
+
+    /** Number of threads that parse chunks. */
+    private final int parserThreads;
+
+    /** Offset of the first record to be read, in bytes. */
+    private long startOffset;
+
+    /** Offset at which reading stops, in bytes (the end of the file, at most). */
+    private long endOffset;
+
+    /** Parses chunks. */
+    private ExecutorService parsers;
+
+    /** Reads chunks. */
+    private Thread ioThread;
+
+    /** Batches of events, in file order (a <tt>null</tt> batch marks the end of the file). */
+    private BlockingQueue<Future<CSV_Event[]>> batches;
+
+    /** The batch being consumed. */
+    private CSV_Event[] batch;
+
+    /** Position of the next event of the batch being consumed. */
+    private int batchPosition;
+
+    /** Indicates if the end of the data file has been reached. */
+    private boolean finished;
+
+    /** The state of each parser thread. */
+    private final ThreadLocal<Parser> parserStates = new ThreadLocal<Parser>() {
+        @Override
+        protected Parser initialValue() {
+            return new Parser();
+        }
+    };
+
+    /**
+     * Starts reading a data file.
+     *
+     * @param path              path for the data file
+     * @param template          the reader whose settings are used to parse records
+     * @param parserThreads     the number of threads that parse chunks
+     * @param startOffset       offset of the first record to be read, in bytes
+     * @param endOffset         offset at which reading stops, in bytes
+     * @throws IOException      if the data file cannot be opened
+     */
+    ReadAheadPipeline(String path, DataFileReader template, int parserThreads,
+                      long startOffset, long endOffset)
+    throws IOException {
+        this.path = path;
+        this.template = template;
+        this.parserThreads = parserThreads;
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+        start();
+    }
+
+    /**
+     * Starts the I/O and parser threads.
+     *
+     * @throws IOException      if the data file cannot be opened
+     */
+    private void start() throws IOException {
+        final Closeable file = BlockGzipOutputStream.isCompressedFile(path)
+                               ? new BlockGzipInputStream(path, parserThreads)
+                               : new RandomAccessFile(path, "r").getChannel();
+        this.batches = new ArrayBlockingQueue<Future<CSV_Event[]>>(parserThreads + 2);
+        this.batch = null;
+        this.batchPosition = 0;
+        this.finished = false;
+        this.parsers = Executors.newFixedThreadPool(parserThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "Parser (" + path + ")");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        this.ioThread = new Thread("Reader (" + path + ")") {
+            @Override
+            public void run() {
+                try {
+                    if (file instanceof FileChannel) {
+                        mapChunks((FileChannel) file);
+                    } else {
+                        readChunks((InputStream) file);
+                    }
+                } catch (InterruptedException e) {
+                    // Reading has been stopped
+                } catch (Throwable t) {
+                    // Reported to the consumer, which would otherwise wait forever
+                    try {
+                        finish(t);
+                    } catch (InterruptedException e) {
+                        // Reading has been stopped
+                    }
+                } finally {
+                    try {
+                        file.close();
+                    } catch (IOException e) {
+                        // ignored
+                    }
+                }
+            }
+        };
+        ioThread.setDaemon(true);
+        ioThread.start();
+    }
+
+    /**
+     * Maps the data file in chunks of whole lines, and submits them for
+     * parsing.
+     *
+     * @param channel               the data file
+     * @throws InterruptedException if reading is stopped
+     */
+    private void mapChunks(FileChannel channel) throws InterruptedException {
+        try {
+            long size = Math.min(channel.size(), endOffset);
+            long position = startOffset;
+            while (position < size) {
+                long length = Math.min(CHUNK_SIZE, size - position);
+                ByteBuffer chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                int end = chunkEnd(chunk, position + length == size);
+                // Lines longer than a chunk: maps a larger region
+                while (end == 0) {
+                    length = Math.min(2 * length, size - position);
+                    chunk = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                    end = chunkEnd(chunk, position + length == size);
+                }
+                chunk.limit(end);
+                submit(chunk.slice());
+                position += end;
+            }
+            finish(null);
+        } catch (IOException e) {
+            finish(e);
+        }
+    }
+
+    /**
+     * Reads the (decompressed) data file in chunks of whole lines, and
+     * submits them for parsing.
+     *
+     * @param in                    the data file
+     * @throws InterruptedException if reading is stopped
+     */
+    private void readChunks(InputStream in) throws InterruptedException {
+        try {
+            byte[] buf = new byte[CHUNK_SIZE];
+            int length = 0;
+            int n;
+            while ((n = in.read(buf, length, buf.length - length)) != -1) {
+                length += n;
+                if (length < buf.length) {
+                    continue;
+                }
+                int end = chunkEnd(ByteBuffer.wrap(buf, 0, length), false);
+                byte[] next = new byte[buf.length];
+                if (end == 0) {
+                    // Lines longer than a chunk: reads a larger chunk
+                    next = new byte[2 * buf.length];
+                    System.arraycopy(buf, 0, next, 0, length);
+                    buf = next;
+                    continue;
+                }
+                System.arraycopy(buf, end, next, 0, length - end);
+                submit(ByteBuffer.wrap(buf, 0, end));
+                buf = next;
+                length -= end;
+            }
+            if (length > 0) {
+                submit(ByteBuffer.wrap(buf, 0, length));
+            }
+            finish(null);
+        } catch (IOException e) {
+            finish(e);
+        }
+    }
+
+    /**
+     * Submits a chunk of the data file for parsing.
+     *
+     * @param lines                 the lines of the chunk
+     * @throws InterruptedException if reading is stopped
+     */
+    private void submit(final ByteBuffer lines) throws InterruptedException {
+        batches.put(parsers.submit(new Callable<CSV_Event[]>() {
+            @Override
+            public CSV_Event[] call() throws Exception {
+                return parserStates.get().parse(lines);
+            }
+        }));
+    }
+
+    /**
+     * Marks the end of the data file.
+     *
+     * @param error                 the error that stopped reading
+     *                              (<tt>null</tt> if the whole file has been read)
+     * @throws InterruptedException if reading is stopped
+     */
+    private void finish(final Throwable error) throws InterruptedException {
+        batches.put(completed(new Callable<CSV_Event[]>() {
+            @Override
+            public CSV_Event[] call() throws Exception {
+                if (error instanceof Exception) {
+                    throw (Exception) error;
+                } else if (error != null) {
+                    throw (Error) error;
+                }
+                return null;
+            }
+        }));
+    }
+
+    /**
+     * Finds the end of the last complete line of a chunk.
+     *
+     * @param chunk         a chunk of the data file
+     * @param lastChunk     indicates if the chunk reaches the end of the file
+     * @return              the number of bytes of the chunk up to the last line
+     *                      feed (inclusive), or 0 if there is no line feed
+     */
+    private static int chunkEnd(ByteBuffer chunk, boolean lastChunk) {
+        if (lastChunk) {
+            return chunk.limit();
+        }
+        for (int i = chunk.limit() - 1; i >= 0; i--) {
+            if (chunk.get(i) == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     *
+     * @param c     computes a result
+     * @return      a future holding the (already computed) result
+     */
+    private static Future<CSV_Event[]> completed(Callable<CSV_Event[]> c) {
+        FutureTask<CSV_Event[]> f = new FutureTask<CSV_Event[]>(c);
+        f.run();
+        return f;
+    }
+
+    /**
+     * Retrieves the next event of the data file.
+     *
+     * @return              the next event, or <tt>null</tt> if the end of the
+     *                      file has been reached
+     * @throws Exception    if an error occurs while reading or parsing the file
+     */
+    CSV_Event next() throws Exception {
+        while (batch == null || batchPosition == batch.length) {
+            if (finished) {
+                return null;
+            }
+            try {
+                batch = batches.take().get();
+            } catch (ExecutionException e) {
+                finished = true;
+                if (e.getCause() instanceof Exception) {
+                    throw (Exception) e.getCause();
+                }
+                throw e;
+            }
+            batchPosition = 0;
+            if (batch == null) {
+                finished = true;
+                return null;
+            }
+        }
+        CSV_Event e = batch[batchPosition];
+        batch[batchPosition++] = null;
+        return e;
+    }
+
+    /**
+     * Reads the data file again from its beginning.
+     *
+     * @throws IOException      if the data file cannot be opened
+     */
+    void restart() throws IOException {
+        close();
+        start();
+    }
+
+    /**
+     * Reads a range of the data file from its beginning.
+     *
+     * @param start             offset of the first record to be read, in bytes
+     * @param end               offset at which reading stops, in bytes
+     * @throws IOException      if the data file cannot be opened
+     */
+    void restart(long start, long end) throws IOException {
+        this.startOffset = start;
+        this.endOffset = end;
+        restart();
+    }
+
+    /**
+     * Stops the I/O and parser threads.
+     */
+    void close() {
+        if (ioThread != null) {
+            ioThread.interrupt();
+            try {
+                ioThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            parsers.shutdownNow();
+            ioThread = null;
+            batches.clear();
+            batch = null;
+            finished = true;
+        }
+    }
+
+    /**
+     * The state of a parser thread.
+     */
+    private final class Parser {
+        /** Parses records, with the settings of the reader. */
+        private final DataFileReader parser = new DataFileReader(template);
+
+        /** Splits records. */
+        private final CSV_Tokenizer tokenizer = new CSV_Tokenizer(template.getDelimiter());
+
+        /** Decodes the bytes of the data file. */
+        private final CharsetDecoder decoder = Charset.defaultCharset().newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        /** Holds the characters of a chunk. */
+        private CharBuffer chars = CharBuffer.allocate(0);
+
+        /**
+         * Parses a chunk of the data file.
+         *
+         * @param lines         the lines of the chunk
+         * @return              the events of the chunk
+         * @throws Exception    if an error occurs while parsing the chunk
+         */
+        private CSV_Event[] parse(ByteBuffer lines) throws Exception {
+            int capacity = (int) (lines.remaining() * decoder.maxCharsPerByte()) + 1;
+            if (chars.capacity() < capacity) {
+                chars = CharBuffer.allocate(capacity);
+            }
+            chars.clear();
+            decoder.reset();
+            decoder.decode(lines, chars, true);
+            decoder.flush(chars);
+            char[] buf = chars.array();
+            int n = chars.position();
+
+            ArrayList<CSV_Event> events = new ArrayList<CSV_Event>(n / 32 + 1);
+            int start = 0;
+            for (int i = 0; i < n; i++) {
+                char c = buf[i];
+                if (c == '\n' || c == '\r') {
+                    events.add(parseLine(buf, start, i));
+                    if (c == '\r' && i + 1 < n && buf[i + 1] == '\n') {
+                        i++;
+                    }
+                    start = i + 1;
+                }
+            }
+            if (start < n) {
+                events.add(parseLine(buf, start, n));
+            }
+            return events.toArray(new CSV_Event[events.size()]);
+        }
+
+        /**
+         * Parses a line of the data file.
+         *
+         * @param buf           holds the line
+         * @param start         offset of the beginning of the line
+         * @param end           offset of the end of the line (exclusive)
+         * @return              the event held in the line
+         * @throws Exception    if an error occurs while parsing the line
+         */
+        private CSV_Event parseLine(char[] buf, int start, int end) throws Exception {
+            tokenizer.clear();
+            tokenizer.append(buf, start, end - start);
+            tokenizer.tokenize();
+            return parser.parse(tokenizer);
+        }
+    }
+}
@@ -0,0 +1,442 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * A sparse index of the timestamps of a data file, mapping timestamps to byte
+ * offsets of records.
+ *
+ * An entry is kept for the first record starting after every
+ * {@link #DEFAULT_INTERVAL} bytes of the file, so that the index is small
+ * (16 bytes per entry) and a position in the file is found with a binary
+ * search. Timestamps must not decrease along the file.
+ *
+ * The index is built once and stored next to the data file (with the
+ * extension {@link #FILE_EXTENSION}); it is rebuilt if the data file, or the
+ * way its timestamps are read, changes.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see DataFileReader#setReplayWindow(long, long, boolean)
+ */
+public final class TimestampIndex {
+
+    /** Extension of index files. */
+    public static final String FILE_EXTENSION = ".idx";
+
+    /** Default distance between indexed records, in bytes. */
+    public static final int DEFAULT_INTERVAL = 1 << 16;
+
+    /** Identifies index files. */
+    private static final int MAGIC = 0x46494E49;
+
+    /** Version of the layout of index files. */
+    private static final int VERSION = 1;
+
+    /** Size of the buffer used to scan data files. */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /** Timestamps of the indexed records. */
+    private final long[] timestamps;
+
+    /** Offsets of the indexed records in the data file. */
+    private final long[] offsets;
+
+    /** Size of the data file, in bytes. */
+    private final long fileLength;
+
+    /** Last modification time of the data file. */
+    private final long fileModified;
+
+    /** How the timestamps of the data file are read (see {@link DataFileReader#getIndexSettings()}). */
+    private final String settings;
+
+    /**
+     *
+     * @param timestamps    timestamps of the indexed records
+     * @param offsets       offsets of the indexed records in the data file
+     * @param fileLength    size of the data file, in bytes
+     * @param fileModified  last modification time of the data file
+     * @param settings      how the timestamps of the data file are read
+     */
+    private TimestampIndex(long[] timestamps, long[] offsets, long fileLength,
+                           long fileModified, String settings) {
+        this.timestamps = timestamps;
+        this.offsets = offsets;
+        this.fileLength = fileLength;
+        this.fileModified = fileModified;
+        this.settings = settings;
+    }
+
+    /**
+     * Retrieves the index of a data file, building it if the file has no
+     * index yet or if its index is outdated. Built indexes are saved next to
+     * the data file, when possible.
+     *
+     * @param reader        a reader of the data file, whose settings determine
+     *                      how timestamps are read
+     * @return              the index of the data file
+     * @throws IOException  if the data file cannot be read, or if its
+     *                      timestamps are not in ascending order
+     */
+    public static TimestampIndex open(DataFileReader reader) throws IOException {
+        File dataFile = new File(reader.getPath());
+        File indexFile = new File(reader.getPath() + FILE_EXTENSION);
+        TimestampIndex index = load(indexFile);
+        if (index != null
+            && index.fileLength == dataFile.length()
+            && index.fileModified == dataFile.lastModified()
+            && index.settings.equals(reader.getIndexSettings())) {
+            return index;
+        }
+        index = build(reader, DEFAULT_INTERVAL);
+        try {
+            index.save(indexFile);
+        } catch (IOException e) {
+            // e.g., read-only directory: the index is used only by this run
+            System.err.println("WARNING: Could not save index of data file \""
+                             + dataFile.getPath() + "\" (" + e.getMessage() + ").");
+        }
+        return index;
+    }
+
+    /**
+     * Builds the index of a data file.
+     *
+     * @param reader        a reader of the data file, whose settings determine
+     *                      how timestamps are read
+     * @param interval      distance between indexed records, in bytes
+     * @return              the index of the data file
+     * @throws IOException  if the data file cannot be read, or if its
+     *                      timestamps are not in ascending order
+     */
+    public static TimestampIndex build(DataFileReader reader, int interval)
+    throws IOException {
+        File dataFile = new File(reader.getPath());
+        long fileLength = dataFile.length();
+        long fileModified = dataFile.lastModified();
+        Builder builder = new Builder(reader, (int) Math.min(1 << 24, fileLength / interval + 1));
+
+        InputStream in = new FileInputStream(dataFile);
+        try {
+            byte[] buf = new byte[BUFFER_SIZE];
+            long bufStart = 0;          // offset of buf[0] in the file
+            long nextEntry = 0;         // offset from which the next record is indexed
+            boolean lineStart = true;
+            boolean afterCR = false;
+            boolean indexing = false;   // the current record is being indexed
+            int n;
+            while ((n = in.read(buf)) != -1) {
+                for (int i = 0; i < n; i++) {
+                    byte c = buf[i];
+                    if (c == '\n' || c == '\r') {
+                        // Line terminators are "\n", "\r" or "\r\n"
+                        if (c == '\n' && afterCR) {
+                            afterCR = false;
+                            continue;
+                        }
+                        afterCR = c == '\r';
+                        if (indexing) {
+                            builder.add();
+                            indexing = false;
+                            nextEntry = builder.lastOffset() + interval;
+                        }
+                        lineStart = true;
+                        continue;
+                    }
+                    afterCR = false;
+                    if (lineStart) {
+                        lineStart = false;
+                        if (bufStart + i >= nextEntry) {
+                            builder.startRecord(bufStart + i);
+                            indexing = true;
+                        }
+                    }
+                    if (indexing) {
+                        builder.append(c);
+                    }
+                }
+                bufStart += n;
+            }
+            if (indexing) {
+                builder.add();
+            }
+        } finally {
+            in.close();
+        }
+        return builder.toIndex(fileLength, fileModified);
+    }
+
+    /**
+     * Collects the entries of an index.
+     */
+    private static final class Builder {
+        /** Path for the data file. */
+        private final String path;
+
+        /** Parses indexed records. */
+        private final DataFileReader parser;
+
+        /** Splits indexed records. */
+        private final CSV_Tokenizer tokenizer;
+
+        /** How the timestamps of the data file are read. */
+        private final String settings;
+
+        /** Timestamps of the indexed records. */
+        private long[] timestamps;
+
+        /** Offsets of the indexed records. */
+        private long[] offsets;
+
+        /** Number of indexed records. */
+        private int size;
+
+        /** The bytes of the record being indexed. */
+        private byte[] record = new byte[256];
+
+        /** Number of bytes of the record being indexed. */
+        private int length;
+
+        /** Offset of the record being indexed. */
+        private long offset;
+
+        /**
+         *
+         * @param reader        a reader of the data file
+         * @param capacity      the expected number of entries
+         */
+        private Builder(DataFileReader reader, int capacity) {
+            this.path = reader.getPath();
+            this.parser = new DataFileReader(reader);
+            this.tokenizer = new CSV_Tokenizer(reader.getDelimiter());
+            this.settings = reader.getIndexSettings();
+            this.timestamps = new long[Math.max(1, capacity)];
+            this.offsets = new long[timestamps.length];
+        }
+
+        /**
+         * Starts collecting a record.
+         *
+         * @param recordOffset  the offset of the record in the data file
+         */
+        private void startRecord(long recordOffset) {
+            this.offset = recordOffset;
+            this.length = 0;
+        }
+
+        /**
+         * Appends a byte to the record being collected.
+         *
+         * @param b     the byte
+         */
+        private void append(byte b) {
+            if (length == record.length) {
+                record = Arrays.copyOf(record, 2 * length);
+            }
+            record[length++] = b;
+        }
+
+        /**
+         * Indexes the record collected.
+         *
+         * @throws IOException  if the record cannot be parsed, or if its
+         *                      timestamp is smaller than the previous one
+         */
+        private void add() throws IOException {
+            long timestamp;
+            try {
+                tokenizer.tokenize(new String(record, 0, length));
+                timestamp = parser.parse(tokenizer).getTimestamp();
+            } catch (Exception e) {
+                throw new IOException("Invalid record at offset " + offset
+                                    + " of \"" + path + "\" (" + e.getMessage() + ").");
+            }
+            if (size > 0 && timestamp < timestamps[size - 1]) {
+                throw new IOException("Timestamps of \"" + path
+                                    + "\" are not in ascending order (offset "
+                                    + offset + ").");
+            }
+            if (size == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, 2 * size);
+                offsets = Arrays.copyOf(offsets, 2 * size);
+            }
+            timestamps[size] = timestamp;
+            offsets[size] = offset;
+            size++;
+        }
+
+        /**
+         *
+         * @return  the offset of the last indexed record
+         */
+        private long lastOffset() {
+            return offsets[size - 1];
+        }
+
+        /**
+         *
+         * @param fileLength    size of the data file, in bytes
+         * @param fileModified  last modification time of the data file
+         * @return              the index
+         */
+        private TimestampIndex toIndex(long fileLength, long fileModified) {
+            return new TimestampIndex(Arrays.copyOf(timestamps, size),
+                                      Arrays.copyOf(offsets, size),
+                                      fileLength, fileModified, settings);
+        }
+    }
+
+    /**
+     * Loads an index file.
+     *
+     * @param indexFile     the index file
+     * @return              the index, or <tt>null</tt> if there is no valid
+     *                      index file
+     */
+    private static TimestampIndex load(File indexFile) {
+        if (!indexFile.exists()) {
+            return null;
+        }
+        try {
+            DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(new FileInputStream(indexFile), BUFFER_SIZE));
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    return null;
+                }
+                long fileLength = in.readLong();
+                long fileModified = in.readLong();
+                String settings = in.readUTF();
+                int size = in.readInt();
+                long[] timestamps = new long[size];
+                long[] offsets = new long[size];
+                for (int i = 0; i < size; i++) {
+                    timestamps[i] = in.readLong();
+                    offsets[i] = in.readLong();
+                }
+                return new TimestampIndex(timestamps, offsets, fileLength, fileModified,
+                                          settings);
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Saves this index into a file.
+     *
+     * @param indexFile     the index file
+     * @throws IOException  if the file cannot be written
+     */
+    private void save(File indexFile) throws IOException {
+        // Written aside and renamed: readers never see a partial index
+        File tmp = new File(indexFile.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(tmp), BUFFER_SIZE));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fileLength);
+            out.writeLong(fileModified);
+            out.writeUTF(settings);
+            out.writeInt(timestamps.length);
+            for (int i = 0; i < timestamps.length; i++) {
+                out.writeLong(timestamps[i]);
+                out.writeLong(offsets[i]);
+            }
+        } finally {
+            out.close();
+        }
+        indexFile.delete();
+        if (!tmp.renameTo(indexFile)) {
+            tmp.delete();
+            throw new IOException("Could not write " + indexFile.getPath() + ".");
+        }
+    }
+
+    /**
+     * Finds where to start reading the data file so as to find all records
+     * with a given timestamp or later.
+     *
+     * @param timestamp     a timestamp
+     * @return              the offset of the last indexed record whose
+     *                      timestamp is smaller than <tt>timestamp</tt>
+     *                      (0 if there is none)
+     */
+    public long getStartOffset(long timestamp) {
+        // first entry >= timestamp
+        int lo = 0;
+        int hi = timestamps.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] < timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo > 0 ? offsets[lo - 1] : 0;
+    }
+
+    /**
+     * Finds where to stop reading the data file once all records up to a
+     * given timestamp have been read.
+     *
+     * @param timestamp     a timestamp
+     * @return              the offset of the first indexed record whose
+     *                      timestamp is greater than <tt>timestamp</tt>
+     *                      (the size of the data file if there is none)
+     */
+    public long getEndOffset(long timestamp) {
+        // first entry > timestamp
+        int lo = 0;
+        int hi = timestamps.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (timestamps[mid] <= timestamp) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo < timestamps.length ? offsets[lo] : fileLength;
+    }
+
+    /**
+     *
+     * @return  the number of indexed records
+     */
+    public int size() {
+        return timestamps.length;
+    }
+}
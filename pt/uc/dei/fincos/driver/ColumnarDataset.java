@@ -0,0 +1,485 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+
+import pt.uc.dei.fincos.basic.Datatype;
+import pt.uc.dei.fincos.basic.Event;
+import pt.uc.dei.fincos.basic.EventType;
+
+/**
+ * An in-memory dataset of synthetic events, generated before load submission
+ * starts and replayed without any parsing or disk I/O.
+ *
+ * Events are stored in columnar form: the sequence of event types is kept
+ * in a single array and, for each event type, every attribute is stored in
+ * an array of the corresponding primitive type (<tt>int[]</tt>,
+ * <tt>long[]</tt>, <tt>float[]</tt>, <tt>double[]</tt> or <tt>boolean[]</tt>).
+ * Text attributes are dictionary-encoded, so that repeated values are kept
+ * only once. Numeric values are stored with the precision of the attribute's
+ * declared type.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see DataGen
+ */
+public final class ColumnarDataset {
+
+    /** Initial capacity of the columns of each event type. */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Estimated overhead of each distinct value of a text dictionary, in bytes. */
+    private static final int DICTIONARY_ENTRY_OVERHEAD = 80;
+
+    /** The event types of the dataset. */
+    private final EventType[] types;
+
+    /** Maps each event type to its index in the <tt>types</tt> array. */
+    private final HashMap<EventType, Integer> typeIndexes;
+
+    /** The type of each event, in generation order. */
+    private short[] eventTypes;
+
+    /** The columns of each event type (type x attribute). */
+    private final Column[][] columns;
+
+    /** Number of stored events (for partitions, the index past their last event). */
+    private int size = 0;
+
+    /** Index of the first event replayed from this dataset (non-zero for partitions). */
+    private int first = 0;
+
+    /** Index of the first row replayed from this dataset, for each event type. */
+    private final int[] firstRow;
+
+    /** Index of the next event to be replayed. */
+    private int nextEvent = 0;
+
+    /** Index of the next row to be replayed, for each event type. */
+    private final int[] nextRow;
+
+    /**
+     * Creates an empty dataset.
+     *
+     * @param types         the event types of the dataset
+     * @param eventCount    the expected number of events
+     */
+    public ColumnarDataset(EventType[] types, long eventCount) {
+        if (eventCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Dataset is too large to be preloaded ("
+                                             + eventCount + " events).");
+        }
+        if (types.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many event types.");
+        }
+        this.types = types;
+        this.typeIndexes = new HashMap<EventType, Integer>(types.length);
+        this.eventTypes = new short[(int) eventCount];
+        this.columns = new Column[types.length][];
+        this.firstRow = new int[types.length];
+        this.nextRow = new int[types.length];
+        for (int i = 0; i < types.length; i++) {
+            typeIndexes.put(types[i], i);
+            columns[i] = new Column[types[i].getAttributeCount()];
+            for (int j = 0; j < columns[i].length; j++) {
+                columns[i][j] = new Column(types[i].getAttribute(j).getType());
+            }
+        }
+    }
+
+    /**
+     * Creates a partition of a dataset, which shares the columns of the
+     * dataset but has its own replay position.
+     *
+     * @param dataset   the partitioned dataset
+     * @param from      the index of the first event of the partition
+     * @param to        the index past the last event of the partition
+     * @param fromRow   the index of the first row of the partition, for each event type
+     */
+    private ColumnarDataset(ColumnarDataset dataset, int from, int to, int[] fromRow) {
+        this.types = dataset.types;
+        this.typeIndexes = dataset.typeIndexes;
+        this.eventTypes = dataset.eventTypes;
+        this.columns = dataset.columns;
+        this.size = to;
+        this.first = from;
+        this.firstRow = fromRow.clone();
+        this.nextRow = fromRow.clone();
+        this.nextEvent = from;
+    }
+
+    /**
+     * Appends an event to the dataset.
+     *
+     * @param e     the event
+     */
+    public void add(Event e) {
+        Integer t = typeIndexes.get(e.getType());
+        if (t == null) {
+            throw new IllegalArgumentException("Unknown event type: " + e.getType().getName());
+        }
+        if (size == eventTypes.length) {
+            eventTypes = Arrays.copyOf(eventTypes, Math.max(16, size + (size >> 1)));
+        }
+        eventTypes[size++] = t.shortValue();
+        Object[] values = e.getValues();
+        for (int j = 0; j < values.length; j++) {
+            columns[t][j].add(values[j]);
+        }
+    }
+
+    /**
+     * Releases the unused capacity of the arrays of the dataset. No more
+     * events can be added to the dataset afterwards.
+     */
+    public void trimToSize() {
+        if (eventTypes.length != size) {
+            eventTypes = Arrays.copyOf(eventTypes, size);
+        }
+        for (Column[] typeColumns : columns) {
+            for (Column c : typeColumns) {
+                c.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * Divides the dataset into contiguous partitions, one per sending thread,
+     * in proportion to the share of the load each thread submits. Each
+     * partition is replayed independently, so that Sender threads do not
+     * contend for a shared replay position.
+     *
+     * @param shares    the share of the load of each partition
+     * @return          the partitions
+     */
+    public ColumnarDataset[] partition(double[] shares) {
+        int count = size - first;
+        double sum = 0;
+        for (double share : shares) {
+            sum += share;
+        }
+        int[] counts = new int[shares.length];
+        int assigned = 0;
+        for (int i = 0; i < shares.length; i++) {
+            counts[i] = (int) (count * shares[i] / sum);
+            assigned += counts[i];
+        }
+        for (int i = 0; assigned < count; i = (i + 1) % shares.length) { // rounding
+            counts[i]++;
+            assigned++;
+        }
+        ColumnarDataset[] ret = new ColumnarDataset[shares.length];
+        int[] row = firstRow.clone();
+        int from = first;
+        for (int i = 0; i < shares.length; i++) {
+            int to = from + counts[i];
+            ret[i] = new ColumnarDataset(this, from, to, row);
+            for (int k = from; k < to; k++) {
+                row[eventTypes[k]]++;
+            }
+            from = to;
+        }
+        return ret;
+    }
+
+    /**
+     * Retrieves the next event of the dataset. Events are returned in
+     * generation order. This method is not thread-safe: concurrent Sender
+     * threads must replay distinct partitions of the dataset.
+     *
+     * @return  the next event, or <tt>null</tt> if all events have been replayed
+     */
+    public Event nextEvent() {
+        return nextEvent(null);
+    }
+
+    /**
+     * Retrieves the next event of the dataset, refilling a recycled instance
+     * if possible.
+     *
+     * @param pool  recycles sent events (<tt>null</tt> for allocating a new event)
+     * @return      the next event, or <tt>null</tt> if all events have been replayed
+     */
+    public Event nextEvent(EventPool pool) {
+        if (nextEvent >= size) {
+            return null;
+        }
+        int t = eventTypes[nextEvent++];
+        int row = nextRow[t]++;
+        Column[] typeColumns = columns[t];
+        Event ret = pool != null ? pool.acquire(types[t]) : new Event(types[t]);
+        Object[] values = ret.getValues();
+        for (int j = 0; j < values.length; j++) {
+            values[j] = typeColumns[j].get(row);
+        }
+        return ret;
+    }
+
+    /**
+     * Rewinds the dataset, so that it can be replayed again.
+     */
+    public void rewind() {
+        nextEvent = first;
+        System.arraycopy(firstRow, 0, nextRow, 0, nextRow.length);
+    }
+
+    /**
+     *
+     * @return  the number of events in the dataset
+     */
+    public int size() {
+        return size - first;
+    }
+
+    /**
+     *
+     * @return  an estimate of the memory used by the dataset, in bytes
+     */
+    public long getMemoryUsage() {
+        long ret = 2L * eventTypes.length;
+        for (Column[] typeColumns : columns) {
+            for (Column c : typeColumns) {
+                ret += c.getMemoryUsage();
+            }
+        }
+        return ret;
+    }
+
+    /**
+     * A column of values of a single attribute, stored in a primitive array.
+     */
+    private static final class Column {
+
+        /** The type of the values of this column. */
+        private final Datatype type;
+
+        /** Values of INTEGER columns, or dictionary codes of TEXT columns. */
+        private int[] ints;
+
+        /** Values of LONG columns. */
+        private long[] longs;
+
+        /** Values of FLOAT columns. */
+        private float[] floats;
+
+        /** Values of DOUBLE columns. */
+        private double[] doubles;
+
+        /** Values of BOOLEAN columns. */
+        private boolean[] booleans;
+
+        /** Distinct values of TEXT columns. */
+        private ArrayList<Object> dictionary;
+
+        /** Maps each distinct value of a TEXT column to its code. */
+        private HashMap<Object, Integer> codes;
+
+        /** Rows without a value (created on the first <tt>null</tt>). */
+        private BitSet nulls;
+
+        /** Number of values in this column. */
+        private int size = 0;
+
+        /**
+         *
+         * @param type  the type of the values of the column
+         */
+        Column(Datatype type) {
+            this.type = type;
+            switch (type) {
+            case INTEGER:
+                ints = new int[INITIAL_CAPACITY];
+                break;
+            case LONG:
+                longs = new long[INITIAL_CAPACITY];
+                break;
+            case FLOAT:
+                floats = new float[INITIAL_CAPACITY];
+                break;
+            case DOUBLE:
+                doubles = new double[INITIAL_CAPACITY];
+                break;
+            case BOOLEAN:
+                booleans = new boolean[INITIAL_CAPACITY];
+                break;
+            default:
+                ints = new int[INITIAL_CAPACITY];
+                dictionary = new ArrayList<Object>();
+                codes = new HashMap<Object, Integer>();
+            }
+        }
+
+        /**
+         * Resizes the arrays of the column.
+         *
+         * @param capacity  the new capacity
+         */
+        private void resize(int capacity) {
+            if (ints != null) {
+                ints = Arrays.copyOf(ints, capacity);
+            } else if (longs != null) {
+                longs = Arrays.copyOf(longs, capacity);
+            } else if (floats != null) {
+                floats = Arrays.copyOf(floats, capacity);
+            } else if (doubles != null) {
+                doubles = Arrays.copyOf(doubles, capacity);
+            } else if (booleans != null) {
+                booleans = Arrays.copyOf(booleans, capacity);
+            }
+        }
+
+        /**
+         *
+         * @return  the current capacity of the column
+         */
+        private int capacity() {
+            if (ints != null) {
+                return ints.length;
+            } else if (longs != null) {
+                return longs.length;
+            } else if (floats != null) {
+                return floats.length;
+            } else if (doubles != null) {
+                return doubles.length;
+            } else {
+                return booleans.length;
+            }
+        }
+
+        /**
+         * Appends a value to the column.
+         *
+         * @param value     the value (possibly <tt>null</tt>)
+         */
+        void add(Object value) {
+            if (size == capacity()) {
+                resize(Math.max(16, size + (size >> 1)));
+            }
+            if (value == null) {
+                if (nulls == null) {
+                    nulls = new BitSet();
+                }
+                nulls.set(size++);
+                return;
+            }
+            try {
+                switch (type) {
+                case INTEGER:
+                    ints[size] = ((Number) value).intValue();
+                    break;
+                case LONG:
+                    longs[size] = ((Number) value).longValue();
+                    break;
+                case FLOAT:
+                    floats[size] = ((Number) value).floatValue();
+                    break;
+                case DOUBLE:
+                    doubles[size] = ((Number) value).doubleValue();
+                    break;
+                case BOOLEAN:
+                    booleans[size] = value instanceof Boolean
+                                     ? (Boolean) value
+                                     : Boolean.parseBoolean(value.toString());
+                    break;
+                default:
+                    Integer code = codes.get(value);
+                    if (code == null) {
+                        code = dictionary.size();
+                        dictionary.add(value);
+                        codes.put(value, code);
+                    }
+                    ints[size] = code;
+                }
+            } catch (ClassCastException cce) {
+                throw new ClassCastException("Value \"" + value + "\" is incompatible "
+                                           + "with attribute type " + type + ".");
+            }
+            size++;
+        }
+
+        /**
+         * Retrieves a value of the column.
+         *
+         * @param row   the row of the value
+         * @return      the value, boxed according to the type of the column
+         */
+        Object get(int row) {
+            if (nulls != null && nulls.get(row)) {
+                return null;
+            }
+            switch (type) {
+            case INTEGER:
+                return ints[row];
+            case LONG:
+                return longs[row];
+            case FLOAT:
+                return floats[row];
+            case DOUBLE:
+                return doubles[row];
+            case BOOLEAN:
+                return booleans[row];
+            default:
+                return dictionary.get(ints[row]);
+            }
+        }
+
+        /**
+         * Releases the unused capacity of the column.
+         */
+        void trimToSize() {
+            if (capacity() != size) {
+                resize(size);
+            }
+            codes = null; // no longer needed for replay
+        }
+
+        /**
+         *
+         * @return  an estimate of the memory used by the column, in bytes
+         */
+        long getMemoryUsage() {
+            long ret;
+            switch (type) {
+            case LONG:
+            case DOUBLE:
+                ret = 8L * capacity();
+                break;
+            case BOOLEAN:
+                ret = capacity();
+                break;
+            default:
+                ret = 4L * capacity();
+            }
+            if (dictionary != null) {
+                for (Object v : dictionary) {
+                    ret += DICTIONARY_ENTRY_OVERHEAD
+                           + (v instanceof String ? 2L * ((String) v).length() : 0);
+                }
+            }
+            if (nulls != null) {
+                ret += nulls.size() / 8;
+            }
+            return ret;
+        }
+    }
+}
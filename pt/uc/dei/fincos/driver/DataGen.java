@@ -18,19 +18,41 @@
 
 package pt.uc.dei.fincos.driver;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import pt.uc.dei.fincos.basic.Attribute;
 import pt.uc.dei.fincos.basic.Domain;
 import pt.uc.dei.fincos.basic.Event;
 import pt.uc.dei.fincos.basic.EventType;
 import pt.uc.dei.fincos.basic.PredefinedListDomain;
+import pt.uc.dei.fincos.basic.RandomDomain;
+import pt.uc.dei.fincos.basic.SequentialDomain;
+import pt.uc.dei.fincos.basic.SkewedDomain;
+import pt.uc.dei.fincos.data.BlockGzipOutputStream;
 import pt.uc.dei.fincos.data.CSV_Writer;
+import pt.uc.dei.fincos.random.RandomStream;
+import pt.uc.dei.fincos.random.Variate;
 
 /**
  * Class responsible for generating event's payload (Synthetic workload).
  *
+ * A DataGen is not thread-safe: when events are generated by several
+ * threads at the same time, each thread must use its own stream, obtained
+ * through {@link #split(int)}.
+ *
  * @author  Marcelo R.N. Mendes
  *
  */
@@ -49,8 +71,26 @@ public final class DataGen {
     /** Total number of generated events so far. */
     private long generatedEvents = 0;
 
+    /** Interval between flushes of data files being generated, in milliseconds. */
+    private static final int DATA_FILE_FLUSH_INTERVAL = 1000;
+
     /** A flag used to indicate if data generation must proceed. */
-    private boolean keepGenerating = true;
+    private volatile boolean keepGenerating = true;
+
+    /** Events generated before the test, if the dataset has been preloaded in memory. */
+    private ColumnarDataset preloadedDataset;
+
+    /** The event types of the workload. */
+    private final EventType[] eventTypes;
+
+    /** The domains used to generate the attributes of each event type. */
+    private final Domain[][] domains;
+
+    /** Per-thread streams into which this generator has been split (if any). */
+    private DataGen[] streams;
+
+    /** The index of this stream (0 if this generator has not been split). */
+    private int streamIndex = 0;
 
     /**
      * Initializes DataGen's synthetic workload.
@@ -61,6 +101,15 @@ public final class DataGen {
         this.totalEventCount = workload.getTotalEventCount();
 
         LinkedHashMap<EventType, Double> types = workload.getSchema();
+        this.eventTypes = types.keySet().toArray(new EventType[0]);
+        this.domains = new Domain[eventTypes.length][];
+        for (int i = 0; i < eventTypes.length; i++) {
+            Attribute[] atts = eventTypes[i].getAttributes();
+            domains[i] = new Domain[atts.length];
+            for (int k = 0; k < atts.length; k++) {
+                domains[i][k] = atts[k].getDomain();
+            }
+        }
 
         // Converts set of types to a format suitable for PredefinedListDomain (Object, Double)
         LinkedHashMap<Object, Double> objectTypes = new LinkedHashMap<Object, Double>(types.size());
@@ -80,45 +129,279 @@ public final class DataGen {
         }
     }
 
+    /**
+     * Initializes a DataGen that replays a dataset previously generated
+     * and kept in memory.
+     *
+     * @param workload  The synthetic workload specification
+     * @param dataset   The preloaded dataset
+     */
+    public DataGen(SyntheticWorkloadPhase workload, ColumnarDataset dataset) {
+        this(workload);
+        this.preloadedDataset = dataset;
+    }
+
+    /**
+     * Creates one of the per-thread streams of a generator.
+     *
+     * @param parent        the generator being split
+     * @param streamIndex   the index of this stream
+     * @param streamCount   the number of streams
+     * @param eventCount    number of events this stream must generate
+     */
+    private DataGen(DataGen parent, int streamIndex, int streamCount, long eventCount) {
+        this.totalEventCount = eventCount;
+        this.streamIndex = streamIndex;
+        this.eventTypes = parent.eventTypes;
+        this.mixSeed = parent.mixSeed != null
+                       ? streamSeed(parent.mixSeed, streamIndex, 0) : null;
+        if (parent.typeChooser.isDeterministic()) {
+            this.typeChooser = new PredefinedListDomain(parent.typeChooser.getItems());
+        } else {
+            this.typeChooser = new PredefinedListDomain(
+                    new LinkedHashMap<Object, Double>(parent.typeChooser.getItemMix()), mixSeed);
+        }
+
+        /* Purely random domains are replicated, so that threads do not contend
+         * on a shared random number generator; partitioned sequences are split
+         * into interleaved sub-sequences; other domains whose values depend on
+         * the previously generated ones (sequences, cyclic lists) are shared. */
+        this.domains = new Domain[parent.domains.length][];
+        int salt = 1;
+        for (int i = 0; i < domains.length; i++) {
+            domains[i] = new Domain[parent.domains[i].length];
+            for (int k = 0; k < domains[i].length; k++, salt++) {
+                Domain d = parent.domains[i][k];
+                if (d instanceof RandomDomain || d instanceof SkewedDomain
+                    || (d instanceof PredefinedListDomain
+                        && !((PredefinedListDomain) d).isDeterministic())) {
+                    d = copyOf(d);
+                    d.setRandomSeed(parent.mixSeed != null
+                                    ? streamSeed(parent.mixSeed, streamIndex, salt)
+                                    : null);
+                } else if (d instanceof SequentialDomain
+                           && ((SequentialDomain) d).isPartitioned()) {
+                    d = ((SequentialDomain) d).partition(streamIndex, streamCount);
+                }
+                domains[i][k] = d;
+            }
+        }
+    }
+
+    /**
+     * Splits this generator into independent streams, one per sending
+     * thread. The events to be generated are evenly divided among the
+     * streams, and each stream has its own random number generators, seeded
+     * from the workload's random seed, so that the sequence generated by
+     * each stream is reproducible for a given seed and number of streams.
+     *
+     * @param streamCount   the number of streams
+     * @return              the streams
+     */
+    public DataGen[] split(int streamCount) {
+        double[] shares = new double[streamCount];
+        Arrays.fill(shares, 1.0 / streamCount);
+        return split(shares);
+    }
+
+    /**
+     * Splits this generator into independent streams, one per sending
+     * thread, dividing the events to be generated among the streams
+     * in proportion to the share of the load each thread submits. If the
+     * generator replays a preloaded dataset, each stream replays a contiguous
+     * partition of it.
+     *
+     * @param shares    the share of the load of each stream
+     * @return          the streams
+     *
+     * @see #split(int)
+     */
+    public DataGen[] split(double[] shares) {
+        int streamCount = shares.length;
+        double sum = 0;
+        for (double share : shares) {
+            sum += share;
+        }
+        long[] counts = new long[streamCount];
+        long assigned = 0;
+        for (int i = 0; i < streamCount; i++) {
+            counts[i] = (long) (totalEventCount * shares[i] / sum);
+            assigned += counts[i];
+        }
+        for (int i = 0; assigned < totalEventCount; i = (i + 1) % streamCount) { // rounding
+            counts[i]++;
+            assigned++;
+        }
+        streams = new DataGen[streamCount];
+        for (int i = 0; i < streamCount; i++) {
+            streams[i] = new DataGen(this, i, streamCount, counts[i]);
+        }
+        if (preloadedDataset != null) { // each stream replays a partition of the dataset
+            ColumnarDataset[] partitions = preloadedDataset.partition(shares);
+            for (int i = 0; i < streamCount; i++) {
+                streams[i].preloadedDataset = partitions[i];
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * Derives the seed of a random number generator of a stream from a
+     * base seed, so that streams are uncorrelated.
+     *
+     * @param seed          the base seed
+     * @param streamIndex   the index of the stream
+     * @param salt          distinguishes the generators of a same stream
+     * @return              the derived seed
+     */
+    private static long streamSeed(long seed, int streamIndex, int salt) {
+        return RandomStream.streamSeed(RandomStream.streamSeed(seed, streamIndex), salt);
+    }
+
+    /**
+     *
+     * @return  the index of this stream (0 if this generator has not been split)
+     */
+    public int getStreamIndex() {
+        return streamIndex;
+    }
+
+    /**
+     * Creates a deep copy of a domain.
+     *
+     * @param d     the domain
+     * @return      a copy of the domain
+     * @throws IllegalStateException    if the domain cannot be copied
+     */
+    private static Domain copyOf(Domain d) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream out = new ObjectOutputStream(bytes);
+            out.writeObject(d);
+            out.close();
+            ObjectInputStream in = new ObjectInputStream(
+                    new ByteArrayInputStream(bytes.toByteArray()));
+            return (Domain) in.readObject();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot copy domain (" + d + ").", e);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Cannot copy domain (" + d + ").", e);
+        }
+    }
+
+    /**
+     * Generates events according to a synthetic workload specified in the
+     * configuration file and keeps them in memory, in columnar form.
+     *
+     * @return  the generated dataset
+     */
+    public ColumnarDataset generateDataset() {
+        // clear stats
+        this.generatedEvents = 0;
+
+        ColumnarDataset dataset = new ColumnarDataset(eventTypes, totalEventCount);
+        for (long j = 0; j < totalEventCount && keepGenerating; j++) {
+            dataset.add(getNextEvent());
+        }
+        dataset.trimToSize();
+        return dataset;
+    }
+
+    /**
+     * Retrieves the name of a data file generated by
+     * {@link #generateData(String, double[], boolean)}.
+     *
+     * @param fileNumber    the number of the file (starting at 1)
+     * @param compressed    indicates if the file is compressed
+     * @return              the name of the file
+     */
+    public static String getDataFileName(int fileNumber, boolean compressed) {
+        return fileNumber + (compressed ? ".csv" + BlockGzipOutputStream.EXTENSION : ".csv");
+    }
+
+    /**
+     * Generates events according to a synthetic workload specified in the configuration file
+     * and saves them into data files ("1.csv", "2.csv", ...). Each file is a
+     * shard of the dataset, generated concurrently by its own stream (see
+     * {@link #split(double[])}), so that shards are reproducible for a given
+     * seed and can be replayed in parallel.
+     *
+     * @param dataFilesDir      The directory where the data file(s) must be stored
+     * @param fileShares        The share of the events stored in each file
+     *
+     * @throws IOException      in an error occurs while trying to open/write the data file(s)
+     */
+    public void generateData(String dataFilesDir, double[] fileShares) throws IOException {
+        generateData(dataFilesDir, fileShares, false);
+    }
+
     /**
      * Generates events according to a synthetic workload specified in the configuration file
-     * and saves them into a data file.
+     * and saves them into data files, optionally block-compressed ("1.csv.gz",
+     * "2.csv.gz", ...; see {@link BlockGzipOutputStream}).
      *
      * @param dataFilesDir      The directory where the data file(s) must be stored
-     * @param fileCount         The number of files into which data will be stored
+     * @param fileShares        The share of the events stored in each file
+     * @param compressed        Indicates if the data files must be compressed
      *
      * @throws IOException      in an error occurs while trying to open/write the data file(s)
      */
-    public void generateData(String dataFilesDir, int fileCount) throws IOException {
+    public void generateData(String dataFilesDir, double[] fileShares, boolean compressed)
+    throws IOException {
         // clear stats
         this.generatedEvents = 0;
 
-        // Used to create data file(s)
-        CSV_Writer[] writers;
-
-        writers = new CSV_Writer[fileCount];
-        for (int i = 0; i < writers.length; i++) {
-            writers[i] = new CSV_Writer(dataFilesDir + "\\" + (i + 1) + ".csv", 10);
+        int fileCount = fileShares.length;
+        DataGen[] shards = this.split(fileShares);
+        ExecutorService executor = Executors.newFixedThreadPool(
+                Math.min(fileCount, Runtime.getRuntime().availableProcessors()));
+        ArrayList<Future<Void>> results = new ArrayList<Future<Void>>(fileCount);
+        try {
+            for (int i = 0; i < fileCount; i++) {
+                final DataGen shard = shards[i];
+                final String path = new File(dataFilesDir,
+                                             getDataFileName(i + 1, compressed)).getPath();
+                results.add(executor.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        shard.generateShard(path);
+                        return null;
+                    }
+                }));
+            }
+            for (Future<Void> result : results) {
+                result.get();
+            }
+        } catch (ExecutionException ee) {
+            this.stopDataGeneration();
+            if (ee.getCause() instanceof IOException) {
+                throw (IOException) ee.getCause();
+            }
+            throw new IOException(ee.getCause());
+        } catch (InterruptedException ie) {
+            this.stopDataGeneration();
+            throw new IOException("Data generation interrupted.");
+        } finally {
+            executor.shutdown();
         }
+    }
 
+    /**
+     * Generates the events of this stream and saves them into a data file.
+     *
+     * @param path              The path of the data file
+     * @throws IOException      in an error occurs while trying to open/write the data file
+     */
+    private void generateShard(String path) throws IOException {
+        Variate.setThreadStreamIndex(streamIndex);
+        CSV_Writer writer = new CSV_Writer(path, DATA_FILE_FLUSH_INTERVAL);
         try {
-            // Iterates over #events
-            for (long j = 0; j < totalEventCount; j++) {
-                if (keepGenerating) {
-                    // Generates next event and writes it to disk
-                    writers[(int) (j % fileCount)].writeRecord(getNextEvent());
-                } else {
-                    break;
-                }
+            Event e;
+            while (keepGenerating && (e = getNextEvent()) != null) {
+                writer.writeRecord(e);
             }
-
-        } catch (IOException ioe) {
-            throw ioe;
         } finally {
-            // close the files
-            for (int i = 0; i < writers.length; i++) {
-                writers[i].closeFile();
-            }
+            writer.closeFile();
         }
     }
 
@@ -128,43 +411,102 @@ public final class DataGen {
      * @return  an event
      */
     public Event getNextEvent() {
+        return getNextEvent(null);
+    }
+
+    /**
+     * Generates the next event, refilling a recycled instance if possible.
+     *
+     * @param pool  recycles sent events (<tt>null</tt> for allocating a new event)
+     * @return      an event
+     */
+    public Event getNextEvent(EventPool pool) {
         // Variables involved in data generation (the events, attributes, and their values)
         EventType type;
         Event ret;
-        Attribute att;
+        Domain[] ds;
         Domain d;
-        Object value;
+        Attribute[] atts;
+        Object[] values;
 
-        synchronized (this) {
-            this.generatedEvents++;
-            if (generatedEvents > totalEventCount) {
-                return null;
-            }
+        // Events generated before the test are replayed from memory
+        if (preloadedDataset != null) {
+            return preloadedDataset.nextEvent(pool);
         }
 
+        if (generatedEvents >= totalEventCount) {
+            return null;
+        }
+        this.generatedEvents++;
+
         // Choose a type according to the mix
-        type = (EventType) typeChooser.generateValue(); // This method must be thread-safe
+        type = (EventType) typeChooser.generateValue();
+        ds = domainsOf(type);
 
         // Iterates over attributes
-        ret = new Event(type);
-        for (int k = 0; k < type.getAttributes().length; k++) {
-            att = type.getAttributes()[k];
-            d = att.getDomain();
-            if (d != null) {
-                value = d.generateValue(); // This method must be thread-safe
-                ret.setAttributeValue(k, value);
+        ret = pool != null ? pool.acquire(type) : new Event(type);
+        atts = type.getAttributes();
+        values = ret.getValues();
+        for (int k = 0; k < ds.length; k++) {
+            d = ds[k];
+            if (d == null) {
+                continue;
+            }
+            // Numeric values are generated as primitives of the attribute's type
+            if (d.isNumeric()) {
+                switch (atts[k].getType()) {
+                case INTEGER:
+                    values[k] = d.generateInt(ret);
+                    continue;
+                case LONG:
+                    values[k] = d.generateLong(ret);
+                    continue;
+                case FLOAT:
+                    values[k] = (float) d.generateDouble(ret);
+                    continue;
+                case DOUBLE:
+                    values[k] = d.generateDouble(ret);
+                    continue;
+                default:
+                    break;
+                }
             }
+            ret.setAttributeValue(k, d.generateValue(ret));
         }
 
         return ret;
     }
 
+    /**
+     * Retrieves the domains used to generate the attributes of an event type.
+     *
+     * @param type  the event type
+     * @return      the domains of the type's attributes
+     */
+    private Domain[] domainsOf(EventType type) {
+        for (int i = 0; i < eventTypes.length; i++) {
+            if (eventTypes[i] == type) {
+                return domains[i];
+            }
+        }
+        Attribute[] atts = type.getAttributes();
+        Domain[] ret = new Domain[atts.length];
+        for (int k = 0; k < atts.length; k++) {
+            ret[k] = atts[k].getDomain();
+        }
+        return ret;
+    }
+
     /**
      * Interrupts the generation of new events.
      */
     public void stopDataGeneration() {
         this.keepGenerating = false;
-
+        if (streams != null) {
+            for (DataGen stream : streams) {
+                stream.stopDataGeneration();
+            }
+        }
     }
 
     /**
@@ -172,6 +514,13 @@ public final class DataGen {
      * @return the number of events generated so far.
      */
     public long getGeneratedEventsCount() {
+        if (streams != null) {
+            long count = 0;
+            for (DataGen stream : streams) {
+                count += stream.generatedEvents;
+            }
+            return count;
+        }
         return generatedEvents;
     }
 
@@ -181,6 +530,6 @@ public final class DataGen {
      * @return the ratio [generated events] / [events to generate]
      */
     public double getProgress() {
-        return 1.0 * this.generatedEvents / this.totalEventCount;
+        return 1.0 * this.getGeneratedEventsCount() / this.totalEventCount;
     }
 }
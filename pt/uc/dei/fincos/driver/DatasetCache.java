@@ -0,0 +1,639 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+import pt.uc.dei.fincos.basic.Attribute;
+import pt.uc.dei.fincos.basic.Domain;
+import pt.uc.dei.fincos.basic.EventType;
+import pt.uc.dei.fincos.basic.PredefinedListDomain;
+import pt.uc.dei.fincos.basic.RandomDomain;
+import pt.uc.dei.fincos.basic.RandomWalkDomain;
+import pt.uc.dei.fincos.basic.SequentialDomain;
+import pt.uc.dei.fincos.basic.SkewedDomain;
+import pt.uc.dei.fincos.random.ConstantVariate;
+import pt.uc.dei.fincos.random.RandomExponentialVariate;
+import pt.uc.dei.fincos.random.RandomNormalVariate;
+import pt.uc.dei.fincos.random.RandomUniformVariate;
+import pt.uc.dei.fincos.random.Variate;
+
+/**
+ * A content-addressed store of the datasets generated for synthetic
+ * workload phases, so that datasets can be reused across test runs.
+ *
+ * Each dataset is kept in a directory named after a hash of everything that
+ * determines its contents (the phase's schema and domains, number of events,
+ * event mix, random seed and the split of the events into data files). A
+ * manifest with the size and the CRC-32 checksum of every data file is
+ * written once a dataset has been completely generated, and datasets are
+ * reused only if their files still match the manifest.
+ *
+ * When the datasets in the cache exceed a configured size, the least
+ * recently used ones are evicted. Entries in use hold a shared lock, so
+ * that Driver processes on the same machine can reuse a dataset at the same
+ * time; the lock is exclusive only while the dataset is being generated.
+ * Locked entries are never evicted.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see DataGen
+ */
+public final class DatasetCache {
+
+    /** Default maximum size of the cache, in megabytes. */
+    public static final int DEFAULT_CACHE_SIZE = 4096;
+
+    /** Version of the layout of the data files and of the keys; part of every key. */
+    private static final int FORMAT_VERSION = 2;
+
+    /** Name of the file that describes a complete entry. */
+    private static final String MANIFEST_FILE = "manifest.properties";
+
+    /** Suffix of the files used to lock entries. */
+    private static final String LOCK_SUFFIX = ".lock";
+
+    /** Size of the buffer used to compute checksums. */
+    private static final int BUFFER_SIZE = 65536;
+
+    /** Entries currently open in this JVM, by the path of their lock file. File locks
+     *  are held per JVM, so an entry opened twice (e.g., by two phases with the same
+     *  dataset) must share its lock. */
+    private static final HashMap<String, Entry> OPEN_ENTRIES = new HashMap<String, Entry>();
+
+    /** The directory where entries are stored. */
+    private final File rootDir;
+
+    /** Maximum size of the cache, in bytes. */
+    private final long maxBytes;
+
+    /**
+     * Creates a cache of datasets.
+     *
+     * @param rootDir   the directory where entries are stored
+     * @param maxSize   maximum size of the cache, in megabytes
+     */
+    public DatasetCache(File rootDir, int maxSize) {
+        this.rootDir = rootDir;
+        this.maxBytes = maxSize * 1048576L;
+    }
+
+    /**
+     * Computes the key of the dataset of a synthetic workload phase. The key
+     * covers only the parameters of data generation (event types and their
+     * mix, attributes, the parameters of their domains, number of events,
+     * random seed and split into data files), and not the state of the
+     * generators, so that it does not change as events are generated.
+     * The seeds of all domains are derived from the phase's random seed.
+     * Random walks are shared by the streams that generate the data files
+     * concurrently, so that the values of a dataset split into several files
+     * depend on thread timing; such datasets are not cached.
+     *
+     * @param phase         the synthetic workload phase
+     * @param fileShares    the share of the events stored in each data file
+     * @param compressed    indicates if the data files are compressed
+     * @return              the key of the phase's dataset, or <tt>null</tt> if
+     *                      the phase has no random seed (i.e., its dataset
+     *                      is not reproducible) or if it uses a domain whose
+     *                      parameters are not known to the cache or whose
+     *                      values depend on thread timing
+     * @throws IOException  if the key cannot be computed
+     */
+    public static String keyOf(SyntheticWorkloadPhase phase, double[] fileShares,
+                               boolean compressed)
+    throws IOException {
+        if (phase.getRandomSeed() == null) {
+            return null;
+        }
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IOException(e);
+        }
+        DataOutputStream out = new DataOutputStream(
+                new DigestOutputStream(new OutputStream() {
+                    @Override
+                    public void write(int b) {
+                    }
+                }, md));
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(phase.getSchema().size());
+        for (Map.Entry<EventType, Double> type : phase.getSchema().entrySet()) {
+            out.writeUTF(type.getKey().getName());
+            out.writeDouble(type.getValue());
+            out.writeInt(type.getKey().getAttributeCount());
+            for (Attribute att : type.getKey().getAttributes()) {
+                out.writeUTF(att.getName());
+                out.writeUTF(att.getType().name());
+                if (fileShares.length > 1 && att.getDomain() instanceof RandomWalkDomain) {
+                    return null;
+                }
+                if (!writeDomain(out, att.getDomain())) {
+                    return null;
+                }
+            }
+        }
+        out.writeLong(phase.getTotalEventCount());
+        out.writeBoolean(phase.isDeterministicEventMix());
+        out.writeLong(phase.getRandomSeed());
+        out.writeInt(fileShares.length);
+        for (double share : fileShares) {
+            out.writeDouble(share);
+        }
+        out.writeBoolean(compressed);
+        out.close();
+
+        StringBuilder key = new StringBuilder();
+        for (byte b : md.digest()) {
+            key.append(Character.forDigit((b >> 4) & 0xF, 16));
+            key.append(Character.forDigit(b & 0xF, 16));
+        }
+        return key.toString();
+    }
+
+    /**
+     * Writes the parameters of a domain.
+     *
+     * @param out           where the parameters are written
+     * @param d             a domain
+     * @return              <tt>false</tt> if the parameters of the domain are unknown
+     * @throws IOException  if an I/O error occurs
+     */
+    private static boolean writeDomain(DataOutputStream out, Domain d) throws IOException {
+        if (d instanceof PredefinedListDomain) {
+            PredefinedListDomain list = (PredefinedListDomain) d;
+            out.writeUTF("LIST");
+            out.writeBoolean(list.isDeterministic());
+            if (list.getItemMix() != null) {
+                out.writeInt(list.getItemMix().size());
+                for (Map.Entry<Object, Double> item : list.getItemMix().entrySet()) {
+                    out.writeUTF(String.valueOf(item.getKey()));
+                    out.writeDouble(item.getValue());
+                }
+            } else {
+                out.writeInt(list.getItems().length);
+                for (Object item : list.getItems()) {
+                    out.writeUTF(String.valueOf(item));
+                }
+            }
+            return true;
+        } else if (d instanceof RandomDomain) {
+            out.writeUTF("RANDOM");
+            return writeVariate(out, ((RandomDomain) d).getVariate());
+        } else if (d instanceof SequentialDomain) {
+            SequentialDomain seq = (SequentialDomain) d;
+            out.writeUTF("SEQUENTIAL");
+            out.writeBoolean(seq.isPartitioned());
+            return writeVariate(out, seq.getInitialVariate())
+                   && writeVariate(out, seq.getIncrementVariate());
+        } else if (d instanceof SkewedDomain) {
+            SkewedDomain skewed = (SkewedDomain) d;
+            out.writeUTF("SKEWED");
+            out.writeUTF(skewed.getDistribution().name());
+            out.writeLong(skewed.getCardinality());
+            out.writeDouble(skewed.getExponent());
+            out.writeDouble(skewed.getHotFraction());
+            out.writeDouble(skewed.getHotProbability());
+            out.writeUTF(String.valueOf(skewed.getKeyPrefix()));
+            return true;
+        } else if (d instanceof RandomWalkDomain) {
+            RandomWalkDomain walk = (RandomWalkDomain) d;
+            out.writeUTF("RANDOM_WALK");
+            out.writeInt(walk.getKeyIndex());
+            out.writeInt(walk.getCardinality());
+            out.writeUTF(walk.getMode().name());
+            out.writeDouble(walk.getMin());
+            out.writeDouble(walk.getMax());
+            return writeVariate(out, walk.getInitialVariate())
+                   && writeVariate(out, walk.getStepVariate());
+        }
+        return false;
+    }
+
+    /**
+     * Writes the parameters of a variate.
+     *
+     * @param out           where the parameters are written
+     * @param v             a variate
+     * @return              <tt>false</tt> if the parameters of the variate are unknown
+     * @throws IOException  if an I/O error occurs
+     */
+    private static boolean writeVariate(DataOutputStream out, Variate v) throws IOException {
+        if (v instanceof ConstantVariate) {
+            out.writeUTF("CONSTANT");
+            out.writeDouble(((ConstantVariate) v).getValue());
+        } else if (v instanceof RandomUniformVariate) {
+            out.writeUTF("UNIFORM");
+            out.writeDouble(((RandomUniformVariate) v).getLower());
+            out.writeDouble(((RandomUniformVariate) v).getUpper());
+        } else if (v instanceof RandomNormalVariate) {
+            out.writeUTF("NORMAL");
+            out.writeDouble(((RandomNormalVariate) v).getMean());
+            out.writeDouble(((RandomNormalVariate) v).getStdev());
+        } else if (v instanceof RandomExponentialVariate) {
+            out.writeUTF("EXPONENTIAL");
+            out.writeDouble(((RandomExponentialVariate) v).getLambda());
+        } else {
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Opens the entry of a dataset and locks it in shared mode, waiting if
+     * another process is generating the dataset. If the entry is already open
+     * in this JVM, the same entry is returned, and it remains locked until it
+     * has been closed as many times as it was opened.
+     *
+     * @param key           the key of the dataset
+     * @return              the entry
+     * @throws IOException  if the entry cannot be created or locked
+     */
+    public Entry open(String key) throws IOException {
+        rootDir.mkdirs();
+        File lock = new File(rootDir, key + LOCK_SUFFIX);
+        String lockPath = lock.getCanonicalPath();
+        Entry entry;
+        synchronized (OPEN_ENTRIES) {
+            entry = OPEN_ENTRIES.get(lockPath);
+            if (entry == null) {
+                entry = new Entry(key, lockPath, new RandomAccessFile(lock, "rw"));
+                OPEN_ENTRIES.put(lockPath, entry);
+            }
+            entry.openCount++;
+        }
+        // Not within the monitor: this may wait for other processes
+        try {
+            entry.lock(true, false);
+        } catch (IOException e) {
+            entry.close();
+            throw e;
+        }
+        return entry;
+    }
+
+    /**
+     * Removes least recently used entries until the cache fits its maximum
+     * size. Entries that are locked or that have not been completely
+     * generated are kept.
+     */
+    public void evict() {
+        File[] dirs = rootDir.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        ArrayList<File> entries = new ArrayList<File>();
+        long totalBytes = 0;
+        for (File dir : dirs) {
+            if (dir.isDirectory() && new File(dir, MANIFEST_FILE).exists()) {
+                entries.add(dir);
+                totalBytes += sizeOf(dir);
+            }
+        }
+        // Least recently used first
+        Collections.sort(entries, new Comparator<File>() {
+            @Override
+            public int compare(File a, File b) {
+                long t1 = new File(a, MANIFEST_FILE).lastModified();
+                long t2 = new File(b, MANIFEST_FILE).lastModified();
+                return t1 < t2 ? -1 : (t1 > t2 ? 1 : 0);
+            }
+        });
+        for (File dir : entries) {
+            if (totalBytes <= maxBytes) {
+                break;
+            }
+            File lock = new File(rootDir, dir.getName() + LOCK_SUFFIX);
+            RandomAccessFile lockFile = null;
+            try {
+                lockFile = new RandomAccessFile(lock, "rw");
+                FileLock fl = lockFile.getChannel().tryLock();
+                if (fl != null) {
+                    long bytes = sizeOf(dir);
+                    deleteContents(dir);
+                    dir.delete();
+                    totalBytes -= bytes;
+                    fl.release();
+                }
+            } catch (OverlappingFileLockException e) {
+                // Entry is in use by this process
+            } catch (IOException e) {
+                // Entry is kept
+            } finally {
+                if (lockFile != null) {
+                    try {
+                        lockFile.close();
+                    } catch (IOException e) {
+                        // ignored
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     *
+     * @param dir   a directory
+     * @return      the total size of the files in the directory, in bytes
+     */
+    private static long sizeOf(File dir) {
+        long bytes = 0;
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                bytes += f.length();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Deletes all files of a directory.
+     *
+     * @param dir   a directory
+     */
+    private static void deleteContents(File dir) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                f.delete();
+            }
+        }
+    }
+
+    /**
+     * Computes the CRC-32 checksum of a file.
+     *
+     * @param f             a file
+     * @return              the checksum of the file
+     * @throws IOException  if the file cannot be read
+     */
+    private static long checksumOf(File f) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        InputStream in = new FileInputStream(f);
+        try {
+            int n;
+            while ((n = in.read(buffer)) > 0) {
+                crc.update(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * An entry of the cache, i.e., the directory where the data files of a
+     * dataset are stored. The entry is locked until it is closed.
+     */
+    public final class Entry {
+        /** The key of the dataset. */
+        private final String key;
+
+        /** The directory of the entry. */
+        private final File dir;
+
+        /** The file used to lock the entry. */
+        private final RandomAccessFile lockFile;
+
+        /** The lock held on the entry (<tt>null</tt> if not locked yet). */
+        private FileLock lock;
+
+        /** Canonical path of the file used to lock the entry. */
+        private final String lockPath;
+
+        /** Number of times the entry has been opened and not closed yet. */
+        private int openCount;
+
+        /**
+         *
+         * @param key       the key of the dataset
+         * @param lockPath  canonical path of the file used to lock the entry
+         * @param lockFile  the file used to lock the entry
+         */
+        private Entry(String key, String lockPath, RandomAccessFile lockFile) {
+            this.key = key;
+            this.dir = new File(rootDir, key);
+            this.lockPath = lockPath;
+            this.lockFile = lockFile;
+        }
+
+        /**
+         * Locks the entry in shared or exclusive mode, waiting for other
+         * processes if needed.
+         *
+         * @param shared        <tt>true</tt> for a shared lock,
+         *                      <tt>false</tt> for an exclusive one
+         * @param replace       indicates if a lock already held in the other
+         *                      mode must be replaced; otherwise it is kept
+         * @throws IOException  if the entry cannot be locked
+         */
+        private synchronized void lock(boolean shared, boolean replace) throws IOException {
+            if (lock != null) {
+                if (!replace || lock.isShared() == shared) {
+                    return;
+                }
+                lock.release();
+                lock = null;
+            }
+            lock = lockFile.getChannel().lock(0, Long.MAX_VALUE, shared);
+        }
+
+        /**
+         *
+         * @return  the key of the dataset
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         *
+         * @return  the directory where the data files of the dataset are stored
+         */
+        public File getDirectory() {
+            return dir;
+        }
+
+        /**
+         * Checks if the entry holds a complete and intact dataset. If so, the
+         * entry is marked as recently used.
+         *
+         * @return  <tt>true</tt> if the dataset can be reused,
+         *          <tt>false</tt> otherwise
+         */
+        public boolean isValid() {
+            File manifestFile = new File(dir, MANIFEST_FILE);
+            if (!manifestFile.exists()) {
+                return false;
+            }
+            try {
+                Properties manifest = new Properties();
+                InputStream in = new FileInputStream(manifestFile);
+                try {
+                    manifest.load(in);
+                } finally {
+                    in.close();
+                }
+                int fileCount = Integer.parseInt(manifest.getProperty("files"));
+                boolean compressed = Boolean.parseBoolean(manifest.getProperty("compressed"));
+                for (int i = 1; i <= fileCount; i++) {
+                    File f = new File(dir, DataGen.getDataFileName(i, compressed));
+                    if (!f.exists()
+                        || f.length() != Long.parseLong(manifest.getProperty(i + ".size"))
+                        || checksumOf(f) != Long.parseLong(manifest.getProperty(i + ".crc"))) {
+                        return false;
+                    }
+                }
+            } catch (Exception e) {
+                return false;
+            }
+            manifestFile.setLastModified(System.currentTimeMillis());
+            return true;
+        }
+
+        /**
+         *
+         * @return  the number of events of the dataset, as recorded in its
+         *          manifest (-1 if unknown)
+         */
+        public long getEventCount() {
+            Properties manifest = new Properties();
+            try {
+                InputStream in = new FileInputStream(new File(dir, MANIFEST_FILE));
+                try {
+                    manifest.load(in);
+                } finally {
+                    in.close();
+                }
+                return Long.parseLong(manifest.getProperty("events"));
+            } catch (Exception e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Locks the entry in exclusive mode and empties it, so that its
+         * dataset can be generated. If another process completed the dataset
+         * while this one waited for the lock, the dataset is kept instead, and
+         * the entry is locked in shared mode again.
+         *
+         * @return              <tt>true</tt> if the entry has been emptied,
+         *                      <tt>false</tt> if it holds a valid dataset
+         * @throws IOException  if the entry cannot be locked
+         */
+        public boolean clear() throws IOException {
+            lock(false, true);
+            if (isValid()) {
+                lock(true, true);
+                return false;
+            }
+            if (dir.exists()) {
+                deleteContents(dir);
+            } else {
+                dir.mkdirs();
+            }
+            return true;
+        }
+
+        /**
+         * Records that the dataset has been completely generated, and locks
+         * the entry in shared mode again.
+         *
+         * @param fileCount     the number of data files of the dataset
+         * @param eventCount    the number of events of the dataset
+         * @param compressed    indicates if the data files are compressed
+         * @throws IOException  if the manifest cannot be written
+         */
+        public void commit(int fileCount, long eventCount, boolean compressed)
+        throws IOException {
+            Properties manifest = new Properties();
+            manifest.setProperty("files", Integer.toString(fileCount));
+            manifest.setProperty("events", Long.toString(eventCount));
+            manifest.setProperty("compressed", Boolean.toString(compressed));
+            for (int i = 1; i <= fileCount; i++) {
+                File f = new File(dir, DataGen.getDataFileName(i, compressed));
+                manifest.setProperty(i + ".size", Long.toString(f.length()));
+                manifest.setProperty(i + ".crc", Long.toString(checksumOf(f)));
+            }
+            // Written last: an entry without manifest is incomplete
+            File tmp = new File(dir, MANIFEST_FILE + ".tmp");
+            OutputStream out = new FileOutputStream(tmp);
+            try {
+                manifest.store(out, "FINCoS dataset " + key);
+            } finally {
+                out.close();
+            }
+            File manifestFile = new File(dir, MANIFEST_FILE);
+            manifestFile.delete();
+            if (!tmp.renameTo(manifestFile)) {
+                throw new IOException("Could not write manifest of dataset " + key + ".");
+            }
+            lock(true, true);
+            // Another process may have evicted the entry while it was unlocked
+            if (!manifestFile.exists()) {
+                throw new IOException("Dataset " + key + " was evicted while in use.");
+            }
+        }
+
+        /**
+         * Releases the lock held on the entry, once the entry has been closed
+         * as many times as it was opened.
+         */
+        public void close() {
+            synchronized (OPEN_ENTRIES) {
+                if (openCount == 0 || --openCount > 0) {
+                    return;
+                }
+                OPEN_ENTRIES.remove(lockPath);
+                // Neither call blocks; releasing within the monitor keeps this
+                // JVM from reopening the entry while it is still locked
+                try {
+                    if (lock != null) {
+                        lock.release();
+                    }
+                    lockFile.close();
+                } catch (IOException e) {
+                    // ignored
+                }
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.text.DecimalFormat;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -61,9 +62,14 @@ import pt.uc.dei.fincos.basic.Step;
 import pt.uc.dei.fincos.controller.ConnectionConfig;
 import pt.uc.dei.fincos.controller.DriverConfig;
 import pt.uc.dei.fincos.controller.Logger;
+import pt.uc.dei.fincos.data.BinaryDataFileReader;
+import pt.uc.dei.fincos.data.BinaryEventFile;
 import pt.uc.dei.fincos.data.DataFileReader;
+import pt.uc.dei.fincos.data.EventFileReader;
 import pt.uc.dei.fincos.driver.Scheduler.ArrivalProcess;
+import pt.uc.dei.fincos.perfmon.AllocationStats;
 import pt.uc.dei.fincos.perfmon.DriverPerfStats;
+import pt.uc.dei.fincos.perfmon.LatencyHistogram;
 import pt.uc.dei.fincos.sink.Sink;
 
 
@@ -86,12 +92,22 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
     /** Folder where generated data is saved on disk (if configured to do so). */
     private static final String DEFAULT_DATA_FILES_DIR = Globals.APP_PATH + "data";
 
-    /** Number of files into which generated data is saved (if configured to do so).*/
-    private static final int DATA_FILE_COUNT = 1;
+    /** Capacity of the buffer of each partition in parallel replays of data files. */
+    private static final int REPLAY_BUFFER_SIZE = 8192;
+
+    /** Size from which CSV data files are read and parsed ahead of their Senders, in bytes. */
+    private static final long READ_AHEAD_THRESHOLD = 16L << 20;
 
     /** Generates input data (synthetic workloads). */
     private DataGen dg;
 
+    /** Datasets kept in memory, per phase (DATASET phases with preloading only). */
+    private ColumnarDataset[] preloadedDatasets;
+
+    /** Cache entries holding the data files of each phase
+     *  (DATASET phases, when the dataset cache is enabled). */
+    private DatasetCache.Entry[] datasetEntries;
+
     /** Configuration parameters of this driver. */
     private DriverConfig drConfig;
 
@@ -122,6 +138,12 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
 
     /** Number of Sender threads (applies only for synthetic workloads). */
     private int threadCount;
+
+    /** Schedules of the logical sources of the current phase ("many sources" mode only). */
+    private SourceScheduler[] sourceSchedulers;
+
+    /** Intended average rate of each logical source of the current phase, in events/second. */
+    private double[] intendedSourceRates;
     // ========================================================================
 
 
@@ -265,11 +287,12 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                     + "  \n\tEvent submission rates:\n\t\tinitial: "
                     + sPhase.getInitialRate() + " events/second."
                     + "\n\t\tfinal:" + sPhase.getFinalRate() + " events/second."
-                    + "\n\t\taverage: "
-                    + ((sPhase.getInitialRate() + sPhase.getFinalRate()) / 2)
+                    + (sPhase.getRateProfile() != null
+                       ? "\n\t\tprofile: " + sPhase.getRateProfile()
+                       : "")
+                    + "\n\t\taverage: " + sPhase.getMeanRate()
                     + " events/second."
-                    + "\n\t\tPoisson: "
-                    + (sPhase.getArrivalProcess() == ArrivalProcess.POISSON ? "Yes" : "No")
+                    + "\n\t\tArrival process: " + sPhase.getArrivalProcess()
                     + "\n\tEvent count: " + sPhase.getTotalEventCount() + " events."
                     );
         } else if (w instanceof ExternalFileWorkloadPhase) {
@@ -303,6 +326,14 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                 detailInfo += "\n\tEvents will be submitted at a rate of "
                         + filePhase.getEventSubmissionRate() + " events/sec.";
             }
+            if (filePhase.hasReplayWindow()) {
+                detailInfo += "\n\tReplay window: "
+                        + (filePhase.getReplayStart() != Long.MIN_VALUE
+                           ? "from " + filePhase.getReplayStart() + " " : "")
+                        + (filePhase.getReplayEnd() != Long.MAX_VALUE
+                           ? "up to " + filePhase.getReplayEnd() + " " : "")
+                        + (filePhase.isIndexed() ? "(indexed)" : "(not indexed)");
+            }
             //Event types info
             if (filePhase.containsEventTypes()) {
                 detailInfo += "\n\tContains event types: Yes";
@@ -500,6 +531,15 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
             int extFilePhaseCount = 0;
             long t0, t1;
             long generatedEventCount = 0;
+            long preloadedBytes = 0;
+            preloadedDatasets = new ColumnarDataset[cfg.getWorkload().length];
+            releaseDatasetEntries();
+            datasetEntries = new DatasetCache.Entry[cfg.getWorkload().length];
+            DatasetCache datasetCache = null;
+            if (cfg.getDatasetCacheSize() > 0) {
+                datasetCache = new DatasetCache(new File(DEFAULT_DATA_FILES_DIR, "cache"),
+                                                cfg.getDatasetCacheSize());
+            }
 
             showInfo("Initializing Workload (" + cfg.getWorkload().length + " phases)");
             t0 = System.currentTimeMillis();
@@ -515,29 +555,68 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                             showInfo("\tLoading data...");
                             dg = new DataGen(syntheticPhase);
                             this.updateStatus(Step.LOADING, 0);
-                            // Cleans data directory
-                            File phaseDataDir = new File(DEFAULT_DATA_FILES_DIR
-                                                       + File.separator + cfg.getAlias()
-                                                       + File.separator + "phase_" + (i + 1));
-                            if (phaseDataDir.exists()) {
-                                for (
-                                        File  f : phaseDataDir.listFiles(new FileFilter() {
-                                            public boolean accept(File pathname) {
-                                                return pathname.getName().contains(".csv");
+                            if (syntheticPhase.isPreloadDataset()) {
+                                // Keeps events in memory, ready to be replayed
+                                preloadedDatasets[i] = dg.generateDataset();
+                                if (this.status.getStep() == Step.STOPPED) {
+                                    return false;
+                                }
+                                long datasetBytes = preloadedDatasets[i].getMemoryUsage();
+                                preloadedBytes += datasetBytes;
+                                showInfo("\tDone! " + preloadedDatasets[i].size()
+                                        + " events preloaded in memory ("
+                                        + Globals.FLOAT_FORMAT_2.format(datasetBytes / 1048576.0)
+                                        + " MB, " + Globals.FLOAT_FORMAT_2.format((double) datasetBytes
+                                                / Math.max(1, preloadedDatasets[i].size()))
+                                        + " bytes/event).");
+                            } else {
+                                double[] fileShares = getSenderShares(syntheticPhase);
+                                // Datasets of reproducible phases are kept in the cache
+                                String key = datasetCache != null
+                                             ? DatasetCache.keyOf(syntheticPhase, fileShares,
+                                                     cfg.isCompressDatasets())
+                                             : null;
+                                DatasetCache.Entry entry = null;
+                                if (key != null) {
+                                    entry = datasetCache.open(key);
+                                    datasetEntries[i] = entry;
+                                }
+                                if (entry != null && (entry.isValid() || !entry.clear())) {
+                                    showInfo("\tDone! Reusing dataset " + key + " ("
+                                            + entry.getEventCount() + " events).");
+                                } else {
+                                    File phaseDataDir = getPhaseDataDir(i + 1);
+                                    if (entry == null) {
+                                        // Cleans data directory
+                                        if (phaseDataDir.exists()) {
+                                            for (
+                                                    File  f : phaseDataDir.listFiles(new FileFilter() {
+                                                        public boolean accept(File pathname) {
+                                                            return pathname.getName().contains(".csv");
+                                                        }
+                                                    }
+                                                    )) {
+                                                f.delete();
                                             }
+                                        } else {
+                                            phaseDataDir.mkdirs();
                                         }
-                                        )) {
-                                    f.delete();
+                                    }
+                                    // Generates events
+                                    // (one data file per Sender, generated in parallel)
+                                    dg.generateData(phaseDataDir.getAbsolutePath(), fileShares,
+                                                    cfg.isCompressDatasets());
+                                    if (this.status.getStep() == Step.STOPPED) {
+                                        return false;
+                                    }
+                                    if (entry != null) {
+                                        entry.commit(fileShares.length, dg.getGeneratedEventsCount(),
+                                                     cfg.isCompressDatasets());
+                                        datasetCache.evict();
+                                    }
+                                    showInfo("\tDone! ");
                                 }
-                            } else {
-                                phaseDataDir.mkdirs();
-                            }
-                            // Generates events
-                            dg.generateData(phaseDataDir.getAbsolutePath(), DATA_FILE_COUNT);
-                            if (this.status.getStep() == Step.STOPPED) {
-                                return false;
                             }
-                            showInfo("\tDone! ");
                             generatedEventCount += dg.getGeneratedEventsCount();
                         } catch (Exception ioe) {
                             showInfo("ERROR: Could not load data (" + ioe.getMessage() + ")");
@@ -558,6 +637,15 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                    + "\n\t # Synthetic phases: " + synthPhaseCount
                    + " (Total of generated events: " + generatedEventCount + ")"
                    + "\n\t # External File phases: " + extFilePhaseCount + ".");
+            if (preloadedBytes > 0) {
+                Runtime rt = Runtime.getRuntime();
+                showInfo("\t Memory used by preloaded datasets: "
+                       + Globals.FLOAT_FORMAT_2.format(preloadedBytes / 1048576.0) + " MB"
+                       + " (heap used: "
+                       + Globals.FLOAT_FORMAT_2.format((rt.totalMemory() - rt.freeMemory()) / 1048576.0)
+                       + " MB, max heap: "
+                       + Globals.FLOAT_FORMAT_2.format(rt.maxMemory() / 1048576.0) + " MB).");
+            }
             return true;
         } else {
             showInfo("Cannot load driver. Driver has already been loaded.");
@@ -686,11 +774,13 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                 @Override
                 public void run() {
                     try {
-                        long testT0, phaseT0;
+                        long testT0, phaseT0, gcCount0, gcTime0;
                         testT0 = System.currentTimeMillis();
 
                         for (int i = 0; i < drConfig.getWorkload().length; i++) {
                             phaseT0 = System.currentTimeMillis();
+                            gcCount0 = AllocationStats.getCollectionCount();
+                            gcTime0 = AllocationStats.getCollectionTime();
 
                             // Starts phase
                             if (drConfig.getWorkload()[i] instanceof SyntheticWorkloadPhase) {
@@ -725,6 +815,9 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                             showInfo("Phase " + (i + 1) + " finished "
                                     + "(elapsed time: " + (now - phaseT0) / 1000
                                     +  " seconds).");
+                            showPacingAccuracy();
+                            showSourceRateAccuracy(now - phaseT0);
+                            showAllocationStats(gcCount0, gcTime0);
                         }
 
                         long now = System.currentTimeMillis();
@@ -769,8 +862,7 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
     throws IOException, InterruptedException {
         ThreadGroup senderGroup;
         Scheduler sch;
-        DataFileReader reader = null;
-        double initialThreadRate, finalThreadRate;
+        DataFileReader[] readers = null;
         LinkedHashMap<EventType, Double> schema;
         Set<EventType> types = null;
         senderGroup = new ThreadGroup("Senders");
@@ -781,46 +873,71 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
         if (schema != null) {
             types = schema.keySet();
         }
-        initialThreadRate = syntheticPhase.getInitialRate() / threadCount;
-        finalThreadRate  = syntheticPhase.getFinalRate() / threadCount;
         // Creates dispatcher threads
-        senders = new Sender[threadCount];
-
-        if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.DATASET) {
-            reader = new DataFileReader(DEFAULT_DATA_FILES_DIR
-                                        + File.separator + drConfig.getAlias()
-                                        + File.separator + "phase_" + (phaseNumber)
-                                        + File.separator + DATA_FILE_COUNT
-                                        + ".csv", types);
+        int senderCount = getSenderCount(syntheticPhase);
+        sourceSchedulers = null;
+        intendedSourceRates = null;
+        if (syntheticPhase.getSourceCount() > 0) {
+            createSourceSchedulers(syntheticPhase, senderCount);
+        }
+        senders = new Sender[senderCount];
+
+        DataGen[] dgStreams = null;
+        ColumnarDataset dataset = preloadedDatasets != null
+                                  ? preloadedDatasets[phaseNumber - 1] : null;
+        if (dataset != null) {
+            // Each Sender replays its own partition of the dataset kept in memory
+            dg = new DataGen(syntheticPhase, dataset);
+            dgStreams = dg.split(getSenderShares(syntheticPhase));
+        } else if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.DATASET) {
+            // Each Sender replays its own shard of the dataset
+            readers = new DataFileReader[senderCount];
+            File phaseDataDir = getPhaseDataDir(phaseNumber);
+            for (int j = 0; j < senderCount; j++) {
+                File shard = new File(phaseDataDir,
+                                      DataGen.getDataFileName(j + 1, drConfig.isCompressDatasets()));
+                readers[j] = new DataFileReader(shard.getPath(), types);
+                if (shard.length() >= READ_AHEAD_THRESHOLD
+                    && Runtime.getRuntime().availableProcessors() >= 2 * senderCount) {
+                    // Senders already run in parallel: one parser thread each
+                    readers[j].setReadAhead(1);
+                }
+            }
         } else if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.RUNTIME) {
+            // Each Sender generates its share of the events independently
             dg = new DataGen(syntheticPhase);
+            dgStreams = dg.split(getSenderShares(syntheticPhase));
         }
 
-        for (int j = 0; j < threadCount; j++) {
-            sch = new Scheduler(initialThreadRate, finalThreadRate,
-                    syntheticPhase.getDuration(),
-                    syntheticPhase.getArrivalProcess(),
-                    syntheticPhase.getRandomSeed());
+        for (int j = 0; j < senderCount; j++) {
+            if (sourceSchedulers == null) {
+                sch = syntheticPhase.createScheduler(1.0 / threadCount,
+                                                     syntheticPhase.getRandomSeed());
+            } else {
+                sch = null;
+            }
             if (adapterType == AdapterType.JMS) {
-                if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.DATASET) {
-                    senders[j] = new Sender(jmsInterface, sch, reader, false,
+                if (readers != null) {
+                    senders[j] = new Sender(jmsInterface, sch, readers[j], false,
                                             senderGroup, this.alias + "/sender-" + (j + 1),
                                             1, rtMode, rtResolution, useScheduledTime,
                                             perfTracingEnabled);
-                } else if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.RUNTIME) {
-                    senders[j] = new Sender(jmsInterface, sch, dg,
+                } else if (dg != null) {
+                    senders[j] = new Sender(jmsInterface, sch,
+                                            dgStreams != null ? dgStreams[j] : dg,
                                             senderGroup, this.alias + "/sender-" + (j + 1),
                                             1, rtMode, rtResolution, useScheduledTime,
                                             perfTracingEnabled);
                 }
             } else if (adapterType == AdapterType.CEP) {
-                if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.DATASET) {
-                    senders[j] = new Sender(cepEngineInterface, sch, reader, false,
+                if (readers != null) {
+                    senders[j] = new Sender(cepEngineInterface, sch, readers[j], false,
                                             senderGroup, this.alias + "/sender-" + (j + 1),
                                             1, rtMode, rtResolution, useScheduledTime,
                                             perfTracingEnabled);
-                } else if (syntheticPhase.getDataGenMode() == SyntheticWorkloadPhase.RUNTIME) {
-                    senders[j] = new Sender(cepEngineInterface, sch, dg,
+                } else if (dg != null) {
+                    senders[j] = new Sender(cepEngineInterface, sch,
+                                            dgStreams != null ? dgStreams[j] : dg,
                                             senderGroup, this.alias + "/sender-" + (j + 1),
                                             1, rtMode, rtResolution, useScheduledTime,
                                             perfTracingEnabled);
@@ -828,6 +945,12 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
             }
 
             senders[j].setLogger(logger);
+            senders[j].setPacingMode(drConfig.getPacingMode());
+            senders[j].setMaxBatchSize(drConfig.getMaxBatchSize());
+            senders[j].setReuseEvents(drConfig.isReuseEvents());
+            if (sourceSchedulers != null) {
+                senders[j].setSources(sourceSchedulers[j]);
+            }
             senders[j].start();
         }
         updateStatus(Step.RUNNING, 0);
@@ -841,6 +964,77 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
         dg = null;
     }
 
+    /**
+     * Computes the number of Sender threads of a synthetic phase.
+     *
+     * @param syntheticPhase    The workload parameters
+     * @return                  the number of Sender threads
+     */
+    private int getSenderCount(SyntheticWorkloadPhase syntheticPhase) {
+        if (syntheticPhase.getSourceCount() > 0) {
+            // Logical sources are multiplexed over the dispatcher threads
+            return Math.min(threadCount, syntheticPhase.getSourceCount());
+        }
+        return threadCount;
+    }
+
+    /**
+     * Computes the share of the load of a synthetic phase submitted by each
+     * of its Sender threads.
+     *
+     * @param syntheticPhase    The workload parameters
+     * @return                  the share of the load of each Sender thread
+     */
+    private double[] getSenderShares(SyntheticWorkloadPhase syntheticPhase) {
+        int senderCount = getSenderCount(syntheticPhase);
+        double[] senderShares = new double[senderCount];
+        if (syntheticPhase.getSourceCount() > 0) {
+            // sources are assigned to Senders in a round-robin fashion
+            double[] sourceShares = syntheticPhase.getSourceRateShares();
+            for (int i = 0; i < sourceShares.length; i++) {
+                senderShares[i % senderCount] += sourceShares[i];
+            }
+        } else {
+            Arrays.fill(senderShares, 1.0 / senderCount);
+        }
+        return senderShares;
+    }
+
+    /**
+     * Creates the schedules of the logical sources of a phase running in
+     * "many sources" mode. Each source gets its own Scheduler, with a share
+     * of the phase's rate, and sources are assigned to Sender threads in a
+     * round-robin fashion.
+     *
+     * @param syntheticPhase    The workload parameters
+     * @param senderCount       The number of Sender threads
+     */
+    private void createSourceSchedulers(SyntheticWorkloadPhase syntheticPhase, int senderCount) {
+        int sourceCount = syntheticPhase.getSourceCount();
+        double[] shares = syntheticPhase.getSourceRateShares();
+        Long seed = syntheticPhase.getRandomSeed();
+        Scheduler[][] schedulers = new Scheduler[senderCount][];
+        int[][] sourceIds = new int[senderCount][];
+
+        for (int j = 0; j < senderCount; j++) {
+            int n = (sourceCount - j + senderCount - 1) / senderCount;
+            schedulers[j] = new Scheduler[n];
+            sourceIds[j] = new int[n];
+        }
+        intendedSourceRates = new double[sourceCount];
+        for (int i = 0; i < sourceCount; i++) {
+            intendedSourceRates[i] = shares[i] * syntheticPhase.getMeanRate();
+            schedulers[i % senderCount][i / senderCount] =
+                syntheticPhase.createScheduler(shares[i], seed != null ? seed + i : null);
+            sourceIds[i % senderCount][i / senderCount] = i;
+        }
+        sourceSchedulers = new SourceScheduler[senderCount];
+        for (int j = 0; j < senderCount; j++) {
+            sourceSchedulers[j] = new SourceScheduler(schedulers[j], sourceIds[j],
+                                                      seed != null ? seed + sourceCount + j : null);
+        }
+    }
+
     /**
      * Starts a phase with a workload controlled by an external dataset file.
      *
@@ -851,15 +1045,15 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
     private void startExternalDatasetPhase(ExternalFileWorkloadPhase filePhase, int phaseNumber)
     throws IOException {
         Scheduler sch;
-        DataFileReader reader = null;
+        EventFileReader reader = null;
+        if (filePhase.isParallelReplay() && threadCount > 1) {
+            startParallelReplayPhase(filePhase, phaseNumber);
+            return;
+        }
         showInfo("Phase " + phaseNumber + " started. Initializing dispatcher thread...");
         senders = new Sender[1];
 
-        reader = new DataFileReader(filePhase.getFilePath(), filePhase.getDelimiter(),
-                filePhase.containsTimestamps(), filePhase.getTimestampUnit(),
-                filePhase.getTimestampIndex(), filePhase.isIncludingTS(),
-                filePhase.containsEventTypes(), filePhase.getTypeIndex(),
-                filePhase.getSingleEventTypeName());
+        reader = openDataFile(filePhase);
         if (adapterType == AdapterType.JMS) {
             // Event submission is based on timestamps in the data file
             if (filePhase.containsTimestamps() && filePhase.isUsingTimestamps()) {
@@ -896,6 +1090,8 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
             }
         }
         senders[0].setLogger(logger);
+        senders[0].setPacingMode(drConfig.getPacingMode());
+        senders[0].setMaxBatchSize(drConfig.getMaxBatchSize());
         senders[0].start();
 
         updateStatus(Step.RUNNING, 0);
@@ -909,6 +1105,74 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
         }
     }
 
+    /**
+     * Starts a phase with a workload controlled by an external dataset file,
+     * whose records are spread over multiple Senders (one per thread). Events
+     * of the same type (or with the same partition key) are sent, in file order,
+     * by the same Sender.
+     *
+     * @param filePhase         The workload parameters
+     * @param phaseNumber       The ID of the phase
+     * @throws IOException      if an error occurs while opening the data file
+     */
+    private void startParallelReplayPhase(ExternalFileWorkloadPhase filePhase, int phaseNumber)
+    throws IOException {
+        Scheduler sch = null;
+        ThreadGroup senderGroup = new ThreadGroup("Senders");
+        showInfo("Phase " + phaseNumber + " started. "
+                + "Initializing dispatcher threads (Thread Count: "
+                + threadCount + ", partitioned by "
+                + (filePhase.getPartitionKeyIndex() == -1
+                   ? "event type" : "field " + filePhase.getPartitionKeyIndex()) + ")");
+
+        EventFileReader reader = openDataFile(filePhase);
+        if (!filePhase.containsTimestamps() || !filePhase.isUsingTimestamps()) {
+            // Event submission is scheduled based on a fixed rate
+            sch = new Scheduler(filePhase.getEventSubmissionRate(),
+                    filePhase.getEventSubmissionRate(),
+                    1, ArrivalProcess.DETERMINISTIC, 1L);
+        }
+        PartitionedReplayer replayer = new PartitionedReplayer(this.alias + "/replayer",
+                reader, sch, filePhase.getTimestampUnit(), filePhase.getLoopCount(),
+                threadCount, filePhase.getPartitionKeyIndex(), REPLAY_BUFFER_SIZE);
+
+        senders = new Sender[threadCount];
+        for (int j = 0; j < threadCount; j++) {
+            if (adapterType == AdapterType.JMS) {
+                senders[j] = new Sender(jmsInterface, replayer, j,
+                                        senderGroup, this.alias + "/sender-" + (j + 1),
+                                        rtMode, rtResolution, useScheduledTime,
+                                        perfTracingEnabled);
+            } else if (adapterType == AdapterType.CEP) {
+                senders[j] = new Sender(cepEngineInterface, replayer, j,
+                                        senderGroup, this.alias + "/sender-" + (j + 1),
+                                        rtMode, rtResolution, useScheduledTime,
+                                        perfTracingEnabled);
+            }
+            senders[j].setLogger(logger);
+            senders[j].setPacingMode(drConfig.getPacingMode());
+            senders[j].setMaxBatchSize(drConfig.getMaxBatchSize());
+        }
+        replayer.start();
+        for (Sender sender : senders) {
+            sender.start();
+        }
+
+        updateStatus(Step.RUNNING, 0);
+        showInfo("Done! Sending events...");
+
+        // Waits for completion of all sending threads
+        try {
+            for (Sender sender : senders) {
+                sender.join();
+            }
+            replayer.stopReplay();
+            replayer.join();
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+        }
+    }
+
     /**
      * Resumes load submission (if Driver is currently paused).
      */
@@ -923,6 +1187,76 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
         }
     }
 
+    /**
+     * Opens the data file of an external file phase, which is either a CSV
+     * file or a binary event file (see {@link BinaryEventFile}). CSV files are
+     * restricted to the phase's replay window, if any.
+     *
+     * @param filePhase     the external file phase
+     * @return              a reader for the phase's data file
+     * @throws IOException  if the data file (or its timestamp index) cannot be read
+     */
+    private EventFileReader openDataFile(ExternalFileWorkloadPhase filePhase) throws IOException {
+        if (BinaryEventFile.isBinaryFile(filePhase.getFilePath())) {
+            if (filePhase.hasReplayWindow()) {
+                showInfo("WARNING: Replay windows are not supported for binary event files."
+                         + " The whole file will be replayed.");
+            }
+            return new BinaryDataFileReader(filePhase.getFilePath());
+        }
+        DataFileReader reader = new DataFileReader(filePhase.getFilePath(),
+                filePhase.getDelimiter(),
+                filePhase.containsTimestamps(), filePhase.getTimestampUnit(),
+                filePhase.getTimestampIndex(), filePhase.isIncludingTS(),
+                filePhase.containsEventTypes(), filePhase.getTypeIndex(),
+                filePhase.getSingleEventTypeName());
+        int cpus = Runtime.getRuntime().availableProcessors();
+        if (cpus > 1 && new File(filePhase.getFilePath()).length() >= READ_AHEAD_THRESHOLD) {
+            // Leaves half of the processors to the Senders
+            reader.setReadAhead(Math.max(1, cpus / 2));
+        }
+        if (filePhase.hasReplayWindow()) {
+            if (filePhase.containsTimestamps()) {
+                reader.setReplayWindow(filePhase.getReplayStart(), filePhase.getReplayEnd(),
+                                       filePhase.isIndexed());
+            } else {
+                showInfo("WARNING: Replay window ignored (data file has no timestamps).");
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Retrieves the directory where the data files of a DATASET phase are
+     * stored: either an entry of the dataset cache or, when the dataset is not
+     * cached, a directory of its own.
+     *
+     * @param phaseNumber   the number of the phase
+     * @return              the directory of the phase's data files
+     */
+    private File getPhaseDataDir(int phaseNumber) {
+        if (datasetEntries != null && datasetEntries[phaseNumber - 1] != null) {
+            return datasetEntries[phaseNumber - 1].getDirectory();
+        }
+        return new File(DEFAULT_DATA_FILES_DIR + File.separator + drConfig.getAlias()
+                        + File.separator + "phase_" + phaseNumber);
+    }
+
+    /**
+     * Releases the cache entries holding the datasets of the current workload,
+     * so that they can be evicted.
+     */
+    private void releaseDatasetEntries() {
+        if (datasetEntries != null) {
+            for (DatasetCache.Entry entry : datasetEntries) {
+                if (entry != null) {
+                    entry.close();
+                }
+            }
+            datasetEntries = null;
+        }
+    }
+
     /**
      * Releases any resources currently held by this Driver
      * (i.e., connections, log files, etc.).
@@ -932,6 +1266,8 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
             logger.close();
             logger = null;
         }
+        preloadedDatasets = null;
+        releaseDatasetEntries();
 
         try {
             if (jmsInterface != null) {
@@ -1050,10 +1386,118 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
         }
     }
 
+    /**
+     * Shows how close the actual inter-arrival times of the events sent
+     * during the last phase were to the intended ones, and how far behind
+     * schedule events were sent.
+     */
+    private void showPacingAccuracy() {
+        double weightedErrorSum = 0;
+        long maxError = 0;
+        long eventCount = 0;
+        long batchCount = 0, batchedEvents = 0;
+        LatencyHistogram sendLag = new LatencyHistogram();
+        for (Sender sender: senders) {
+            sendLag.add(sender.getSendLag());
+            batchCount += sender.getSentBatchCount();
+            batchedEvents += sender.getBatchedEventCount();
+            weightedErrorSum += sender.getAvgInterArrivalError() * sender.getSentEventCount();
+            maxError = Math.max(maxError, sender.getMaxInterArrivalError());
+            eventCount += sender.getSentEventCount();
+        }
+        if (eventCount > 0) {
+            showInfo("\tInter-arrival error (" + (drConfig.getPacingMode() == Pacer.NANO_PACING
+                                                    ? "nanosecond" : "millisecond")
+                   + " pacing): avg " + Globals.FLOAT_FORMAT_3.format(weightedErrorSum / eventCount / 1E3)
+                   + " us, max " + Globals.FLOAT_FORMAT_3.format(maxError / 1E3) + " us.");
+            showInfo("\tSend lag: p50 " + Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(50) / 1E6)
+                   + " ms, p99 " + Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(99) / 1E6)
+                   + " ms, p99.9 " + Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(99.9) / 1E6)
+                   + " ms, max " + Globals.FLOAT_FORMAT_3.format(sendLag.getMax() / 1E6) + " ms.");
+            if (batchCount > 0) {
+                showInfo("\tMicro-batching: " + batchedEvents + " events sent in " + batchCount
+                       + " batches (avg size: "
+                       + Globals.FLOAT_FORMAT_2.format((double) batchedEvents / batchCount) + ").");
+            }
+        }
+    }
+
+    /**
+     * Shows how close the actual rates of the logical sources of the last
+     * phase were to the intended ones ("many sources" mode only).
+     *
+     * @param elapsedMillis     The elapsed time of the phase, in milliseconds
+     */
+    private void showSourceRateAccuracy(long elapsedMillis) {
+        if (sourceSchedulers == null || elapsedMillis <= 0) {
+            return;
+        }
+        double elapsedSecs = elapsedMillis / 1000.0;
+        double[] errors = new double[intendedSourceRates.length];
+        double errorSum = 0;
+        long totalArrivals = 0;
+        double intendedTotal = 0;
+        for (SourceScheduler sources: sourceSchedulers) {
+            for (int i = 0; i < sources.getSourceCount(); i++) {
+                int id = sources.getSourceId(i);
+                double actualRate = sources.getArrivalCount(i) / elapsedSecs;
+                errors[id] = Math.abs(actualRate - intendedSourceRates[id]) / intendedSourceRates[id];
+                errorSum += errors[id];
+                totalArrivals += sources.getArrivalCount(i);
+            }
+        }
+        for (double rate: intendedSourceRates) {
+            intendedTotal += rate;
+        }
+        Arrays.sort(errors);
+        showInfo("\tSources: " + errors.length + ". Total rate: "
+               + Globals.FLOAT_FORMAT_2.format(totalArrivals / elapsedSecs) + " events/s (intended: "
+               + Globals.FLOAT_FORMAT_2.format(intendedTotal) + " events/s).");
+        showInfo("\tPer-source rate error: avg "
+               + Globals.FLOAT_FORMAT_2.format(100 * errorSum / errors.length)
+               + "%, p99 " + Globals.FLOAT_FORMAT_2.format(100 * errors[(int) Math.ceil(0.99 * errors.length) - 1])
+               + "%, max " + Globals.FLOAT_FORMAT_2.format(100 * errors[errors.length - 1]) + "%.");
+    }
+
+    /**
+     * Shows how much memory the sender threads (and their producers) allocated
+     * per sent event during the last phase, and the garbage collection
+     * activity of the Driver in the same period.
+     *
+     * @param gcCount0  number of garbage collections at the start of the phase
+     * @param gcTime0   time spent in garbage collections at the start of the phase,
+     *                  in milliseconds
+     */
+    private void showAllocationStats(long gcCount0, long gcTime0) {
+        long allocatedBytes = 0, eventCount = 0, reusedCount = 0;
+        for (Sender sender: senders) {
+            eventCount += sender.getSentEventCount();
+            reusedCount += sender.getReusedEventCount();
+            if (allocatedBytes != -1) {
+                allocatedBytes = sender.getAllocatedBytes() != -1
+                                 ? allocatedBytes + sender.getAllocatedBytes() : -1;
+            }
+        }
+        showInfo("\tGC: " + (AllocationStats.getCollectionCount() - gcCount0)
+               + " collections (" + (AllocationStats.getCollectionTime() - gcTime0) + " ms).");
+        if (allocatedBytes != -1 && eventCount > 0) {
+            showInfo("\tAllocation by sender threads: "
+                   + Globals.FLOAT_FORMAT_2.format((double) allocatedBytes / eventCount)
+                   + " bytes/event (total: "
+                   + Globals.FLOAT_FORMAT_2.format(allocatedBytes / 1048576.0) + " MB"
+                   + (reusedCount > 0 ? ", " + reusedCount + " events recycled" : "") + ").");
+        }
+    }
+
     @Override
     public DriverPerfStats getPerfStats() throws RemoteException {
         long start = Long.MAX_VALUE;
         long end = 0;
+        long producerStalls = 0;
+        long interArrivalErrorSum = 0, interArrivalCount = 0, interArrivalErrorMax = 0;
+        LatencyHistogram sendLag = new LatencyHistogram();
+        double fillLevelSum = 0;
+        int bufferCount = 0;
         HashMap<String, Integer> streamStats = new HashMap<String, Integer>();
         if (this.senders != null) {
             for (Sender sender: this.senders) {
@@ -1062,6 +1506,16 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                     if (senderStats.getStart() != -1) { // there is some stat
                         start = Math.min(start, senderStats.getStart());
                         end = Math.max(end, senderStats.getEnd());
+                        producerStalls += senderStats.getProducerStalls();
+                        interArrivalErrorSum += senderStats.getInterArrivalErrorSum();
+                        interArrivalCount += senderStats.getInterArrivalCount();
+                        interArrivalErrorMax = Math.max(interArrivalErrorMax,
+                                                        senderStats.getMaxInterArrivalError());
+                        sendLag.add(senderStats.getSendLag());
+                        if (senderStats.getBufferFillLevel() != -1) {
+                            fillLevelSum += senderStats.getBufferFillLevel();
+                            bufferCount++;
+                        }
                         for (Entry<String, Integer> e: senderStats.getStreamStats().entrySet()) {
                             String stream = e.getKey();
                             Integer senderCount = e.getValue();
@@ -1079,7 +1533,14 @@ public final class Driver extends JFrame implements DriverRemoteFunctions {
                 }
             }
         }
-        return new DriverPerfStats(start, end, streamStats);
+        DriverPerfStats ret = new DriverPerfStats(start, end, streamStats);
+        ret.setProducerStalls(producerStalls);
+        ret.addInterArrivalErrors(interArrivalErrorSum, interArrivalCount, interArrivalErrorMax);
+        ret.getSendLag().add(sendLag);
+        if (bufferCount > 0) {
+            ret.setBufferFillLevel(fillLevelSum / bufferCount);
+        }
+        return ret;
     }
 
 }
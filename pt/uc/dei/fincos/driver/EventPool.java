@@ -0,0 +1,120 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+import pt.uc.dei.fincos.basic.Event;
+import pt.uc.dei.fincos.basic.EventType;
+
+/**
+ * Recycles the Event instances exchanged between an {@link EventProducer}
+ * and its {@link Sender}, so that, in steady state, events and their arrays
+ * of values are refilled in place instead of being allocated anew (values
+ * themselves are still boxed).
+ *
+ * The Sender releases each event once the adapter has consumed it (events
+ * are not pooled for adapters that keep their arrays of values, see
+ * {@link pt.uc.dei.fincos.adapters.InputAdapter#retainsEventValues()});
+ * released events travel back to the producer through a
+ * single-producer/single-consumer ring buffer and are kept in per-type free
+ * lists until they are acquired again.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see EventProducer
+ */
+public final class EventPool {
+
+    /** Events released by the Sender, on their way back to the producer. */
+    private final EventRingBuffer<Event> released;
+
+    /** Free events, per event type (accessed only by the producer). */
+    private final IdentityHashMap<EventType, ArrayDeque<Event>> free =
+            new IdentityHashMap<EventType, ArrayDeque<Event>>();
+
+    /** Number of events allocated by this pool. */
+    private volatile long allocatedCount = 0;
+
+    /** Number of acquired events that were recycled. */
+    private volatile long reusedCount = 0;
+
+    /**
+     *
+     * @param capacity  maximum number of events in flight between the
+     *                  producer and the Sender (events released beyond
+     *                  this limit are left to the garbage collector)
+     */
+    public EventPool(int capacity) {
+        this.released = new EventRingBuffer<Event>(capacity);
+    }
+
+    /**
+     * Retrieves an empty event of a given type (called by the producer).
+     *
+     * @param type  the type of the event
+     * @return      a recycled event, or a new one if there is none available
+     */
+    public Event acquire(EventType type) {
+        Event e;
+        while ((e = released.poll()) != null) {
+            ArrayDeque<Event> list = free.get(e.getType());
+            if (list == null) {
+                list = new ArrayDeque<Event>();
+                free.put(e.getType(), list);
+            }
+            list.addLast(e);
+        }
+        ArrayDeque<Event> list = free.get(type);
+        if (list != null && (e = list.pollFirst()) != null) {
+            reusedCount++;
+            e.clear();
+            return e;
+        }
+        allocatedCount++;
+        return new Event(type);
+    }
+
+    /**
+     * Gives an event back to the pool (called by the Sender, once the event
+     * has been sent).
+     *
+     * @param e     the event
+     */
+    public void release(Event e) {
+        released.offer(e);
+    }
+
+    /**
+     *
+     * @return  the number of events allocated by this pool
+     */
+    public long getAllocatedCount() {
+        return allocatedCount;
+    }
+
+    /**
+     *
+     * @return  the number of acquired events that were recycled
+     */
+    public long getReusedCount() {
+        return reusedCount;
+    }
+}
@@ -0,0 +1,234 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.concurrent.locks.LockSupport;
+
+import pt.uc.dei.fincos.data.EventFileReader;
+import pt.uc.dei.fincos.perfmon.AllocationStats;
+import pt.uc.dei.fincos.random.Variate;
+
+/**
+ * Producer stage of a {@link Sender}: generates (synthetic workloads) or
+ * parses (datasets) events ahead of time and places them into a bounded
+ * ring buffer, so that the send loop only has to dequeue pre-built events.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Sender
+ * @see EventRingBuffer
+ */
+public final class EventProducer extends Thread {
+
+    /** Time the producer waits before retrying when the buffer is full, in nanoseconds. */
+    private static final long FULL_BUFFER_PARK_TIME = 50000;
+
+    /** Buffer into which produced events are placed. */
+    private final EventRingBuffer<Object> buffer;
+
+    /** Generates input data on synthetic workloads. */
+    private final DataGen datagen;
+
+    /** Reads input data from a data file. */
+    private final EventFileReader dataFileReader;
+
+    /** Number of times the data file must be read. */
+    private final int fileRepeatCount;
+
+    /** Recycles the events sent by the Sender (synthetic workloads only; may be <tt>null</tt>). */
+    private final EventPool pool;
+
+    /** Bytes allocated by this thread while producing events (-1 if not measured). */
+    private volatile long allocatedBytes = -1;
+
+    /** Set when all events have been produced (or production failed). */
+    private volatile boolean finished = false;
+
+    /** Set when the producer must stop as soon as possible. */
+    private volatile boolean stopped = false;
+
+    /** Number of times the producer found the buffer full. */
+    private volatile long fullBufferCount = 0;
+
+    /** The error that interrupted event production, if any. */
+    private volatile Exception error;
+
+    /**
+     * Creates a producer for a synthetic workload whose data is generated in runtime.
+     *
+     * @param name              the name of the producer thread
+     * @param datagen           events' data generator
+     * @param bufferCapacity    capacity of the event buffer
+     */
+    public EventProducer(String name, DataGen datagen, int bufferCapacity) {
+        this(name, datagen, null, 1, bufferCapacity, null);
+    }
+
+    /**
+     * Creates a producer for a synthetic workload whose data is generated in
+     * runtime, into event instances recycled from the Sender.
+     *
+     * @param name              the name of the producer thread
+     * @param datagen           events' data generator
+     * @param bufferCapacity    capacity of the event buffer
+     * @param pool              recycles the events sent by the Sender
+     */
+    public EventProducer(String name, DataGen datagen, int bufferCapacity, EventPool pool) {
+        this(name, datagen, null, 1, bufferCapacity, pool);
+    }
+
+    /**
+     * Creates a producer for a workload whose data is read from a data file.
+     *
+     * @param name              the name of the producer thread
+     * @param dataFileReader    reads events from the data file
+     * @param fileRepeatCount   number of times the data file must be read
+     * @param bufferCapacity    capacity of the event buffer
+     */
+    public EventProducer(String name, EventFileReader dataFileReader, int fileRepeatCount,
+            int bufferCapacity) {
+        this(name, null, dataFileReader, fileRepeatCount, bufferCapacity, null);
+    }
+
+    /**
+     * Private constructor.
+     *
+     * @param name              the name of the producer thread
+     * @param datagen           events' data generator
+     * @param dataFileReader    reads events from the data file
+     * @param fileRepeatCount   number of times the data file must be read
+     * @param bufferCapacity    capacity of the event buffer
+     * @param pool              recycles the events sent by the Sender
+     */
+    private EventProducer(String name, DataGen datagen, EventFileReader dataFileReader,
+            int fileRepeatCount, int bufferCapacity, EventPool pool) {
+        super(name);
+        this.datagen = datagen;
+        this.dataFileReader = dataFileReader;
+        this.fileRepeatCount = fileRepeatCount;
+        this.pool = pool;
+        this.buffer = new EventRingBuffer<Object>(bufferCapacity);
+        this.setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        long allocated0 = AllocationStats.getCurrentThreadAllocatedBytes();
+        try {
+            if (dataFileReader != null) {
+                for (int i = 0; i < fileRepeatCount && !stopped; i++) {
+                    if (i > 0) {
+                        dataFileReader.reOpen();
+                    }
+                    Object event = dataFileReader.getNextCSVEvent();
+                    while (event != null && publish(event)) {
+                        event = dataFileReader.getNextCSVEvent();
+                    }
+                }
+            } else if (datagen != null) {
+                // Random numbers of shared domains come from this stream's generators
+                Variate.setThreadStreamIndex(datagen.getStreamIndex());
+                Object event = datagen.getNextEvent(pool);
+                while (event != null && publish(event)) {
+                    event = datagen.getNextEvent(pool);
+                }
+            }
+        } catch (Exception e) {
+            if (!stopped) {
+                this.error = e;
+            }
+        } finally {
+            if (allocated0 != -1) {
+                this.allocatedBytes = AllocationStats.getCurrentThreadAllocatedBytes() - allocated0;
+            }
+            this.finished = true;
+        }
+    }
+
+    /**
+     * Places an event into the buffer, waiting for room if it is full.
+     *
+     * @param event     the event
+     * @return          <tt>true</tt> if the event has been published,
+     *                  <tt>false</tt> if the producer was stopped
+     */
+    private boolean publish(Object event) {
+        if (buffer.offer(event)) {
+            return true;
+        }
+        fullBufferCount++;
+        while (!stopped) {
+            LockSupport.parkNanos(FULL_BUFFER_PARK_TIME);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stops event production.
+     */
+    public void stopProducing() {
+        this.stopped = true;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     *
+     * @return  the buffer into which events are placed
+     */
+    public EventRingBuffer<Object> getBuffer() {
+        return buffer;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if no more events will be placed into the buffer
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     *
+     * @return  the number of times the producer found the buffer full
+     */
+    public long getFullBufferCount() {
+        return fullBufferCount;
+    }
+
+    /**
+     *
+     * @return  the number of bytes allocated by this thread while producing
+     *          events, or -1 if it has not been measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     *
+     * @return  the error that interrupted event production,
+     *          or <tt>null</tt> if there was none
+     */
+    public Exception getError() {
+        return error;
+    }
+}
@@ -0,0 +1,145 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bounded, lock-free ring buffer for exactly one producer thread and
+ * exactly one consumer thread. Used to decouple event production
+ * (generation or parsing) from event submission in {@link Sender} threads.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @param <E>   the type of the elements held in the buffer
+ *
+ * @see EventProducer
+ */
+public final class EventRingBuffer<E> {
+
+    /** Buffer slots. */
+    private final Object[] slots;
+
+    /** Used to map a sequence number to a slot (capacity - 1). */
+    private final int mask;
+
+    /** Sequence number of the next slot to be read (updated only by the consumer). */
+    private final AtomicLong head = new AtomicLong(0);
+
+    /** Sequence number of the next slot to be written (updated only by the producer). */
+    private final AtomicLong tail = new AtomicLong(0);
+
+    /** Producer's cached copy of <tt>head</tt>. */
+    private long headCache = 0;
+
+    /** Consumer's cached copy of <tt>tail</tt>. */
+    private long tailCache = 0;
+
+    /**
+     * Creates a new ring buffer.
+     *
+     * @param capacity  the minimum number of elements the buffer must hold
+     *                  (rounded up to the next power of two)
+     */
+    public EventRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Invalid buffer capacity (" + capacity + ").");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size = size << 1;
+        }
+        this.slots = new Object[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * Inserts an element into the buffer, if there is room for it.
+     * Must be called only by the producer thread.
+     *
+     * @param e     the element to be inserted
+     * @return      <tt>true</tt> if the element has been inserted,
+     *              <tt>false</tt> if the buffer is full
+     */
+    public boolean offer(E e) {
+        long t = tail.get();
+        if (t - headCache >= slots.length) {
+            headCache = head.get();
+            if (t - headCache >= slots.length) {
+                return false;
+            }
+        }
+        slots[(int) t & mask] = e;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Removes the oldest element from the buffer.
+     * Must be called only by the consumer thread.
+     *
+     * @return  the oldest element, or <tt>null</tt> if the buffer is empty
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= tailCache) {
+            tailCache = tail.get();
+            if (h >= tailCache) {
+                return null;
+            }
+        }
+        int index = (int) h & mask;
+        E e = (E) slots[index];
+        slots[index] = null;
+        head.lazySet(h + 1);
+        return e;
+    }
+
+    /**
+     *
+     * @return  the (approximate) number of elements currently in the buffer
+     */
+    public int size() {
+        long size = tail.get() - head.get();
+        if (size < 0) {
+            return 0;
+        } else if (size > slots.length) {
+            return slots.length;
+        }
+        return (int) size;
+    }
+
+    /**
+     *
+     * @return  the maximum number of elements the buffer can hold
+     */
+    public int capacity() {
+        return slots.length;
+    }
+
+    /**
+     *
+     * @return  the (approximate) fraction of the buffer currently in use,
+     *          in the [0, 1] range
+     */
+    public double getFillLevel() {
+        return 1.0 * size() / slots.length;
+    }
+}
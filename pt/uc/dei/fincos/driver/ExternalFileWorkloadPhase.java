@@ -69,6 +69,24 @@ public final class ExternalFileWorkloadPhase extends WorkloadPhase {
     /** The number of times the external file will be submitted. */
     private int loopCount;
 
+    /** A flag indicating if the external file is replayed by multiple Senders. */
+    private boolean parallelReplay = false;
+
+    /** The index of the payload field whose value determines the Sender of each
+     *  record in parallel replays (-1 for the event type). */
+    private int partitionKeyIndex = -1;
+
+    /** Timestamp of the first record to be replayed (<tt>Long.MIN_VALUE</tt>
+     *  for the beginning of the file). */
+    private long replayStart = Long.MIN_VALUE;
+
+    /** Timestamp of the last record to be replayed (<tt>Long.MAX_VALUE</tt>
+     *  for the end of the file). */
+    private long replayEnd = Long.MAX_VALUE;
+
+    /** A flag indicating if the external file is accessed through a timestamp index. */
+    private boolean indexed = false;
+
     /** Timestamp of the data file is expressed in milliseconds. */
     public static final int MILLISECONDS = 0;
 
@@ -390,4 +408,114 @@ public final class ExternalFileWorkloadPhase extends WorkloadPhase {
     public int getLoopCount() {
         return loopCount;
     }
+
+    /**
+     * Sets the value of the flag that indicates whether the external file
+     * is replayed by as many Senders as the thread count of the Driver or
+     * by a single one. In parallel replays, events are still sent in file
+     * order for each event type or partition key.
+     *
+     * @param parallelReplay    <tt>true</tt> for replaying the file with
+     *                          multiple Senders, <tt>false</tt> otherwise
+     */
+    public void setParallelReplay(boolean parallelReplay) {
+        this.parallelReplay = parallelReplay;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if the external file is replayed by
+     *          multiple Senders, <tt>false</tt> otherwise
+     */
+    public boolean isParallelReplay() {
+        return parallelReplay;
+    }
+
+    /**
+     * Sets the field whose value determines the Sender of each record in
+     * parallel replays. Records with the same value are sent in file order.
+     *
+     * @param partitionKeyIndex     the index of a field in the payload of the events
+     *                              (-1 for partitioning events by type)
+     */
+    public void setPartitionKeyIndex(int partitionKeyIndex) {
+        this.partitionKeyIndex = partitionKeyIndex >= 0 ? partitionKeyIndex : -1;
+    }
+
+    /**
+     *
+     * @return  the index of the payload field that determines the Sender of each record
+     *          in parallel replays, or -1 if records are partitioned by event type
+     */
+    public int getPartitionKeyIndex() {
+        return partitionKeyIndex;
+    }
+
+    /**
+     * Restricts the replay of the external file (and of each of its loops)
+     * to the records whose timestamps fall in a given window. Timestamps are
+     * expressed in the unit of the file (milliseconds since the epoch, for
+     * date and time records).
+     *
+     * @param replayStart   timestamp of the first record to be replayed
+     *                      (<tt>Long.MIN_VALUE</tt> for the beginning of the file)
+     * @param replayEnd     timestamp of the last record to be replayed
+     *                      (<tt>Long.MAX_VALUE</tt> for the end of the file)
+     */
+    public void setReplayWindow(long replayStart, long replayEnd) {
+        if (replayStart > replayEnd) {
+            throw new InvalidParameterException("Invalid replay window ("
+                                              + replayStart + " > " + replayEnd + ").");
+        }
+        this.replayStart = replayStart;
+        this.replayEnd = replayEnd;
+    }
+
+    /**
+     *
+     * @return  the timestamp of the first record to be replayed
+     *          (<tt>Long.MIN_VALUE</tt> if replay starts at the beginning of the file)
+     */
+    public long getReplayStart() {
+        return replayStart;
+    }
+
+    /**
+     *
+     * @return  the timestamp of the last record to be replayed
+     *          (<tt>Long.MAX_VALUE</tt> if replay ends at the end of the file)
+     */
+    public long getReplayEnd() {
+        return replayEnd;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if only part of the external file is replayed,
+     *          <tt>false</tt> otherwise
+     */
+    public boolean hasReplayWindow() {
+        return replayStart != Long.MIN_VALUE || replayEnd != Long.MAX_VALUE;
+    }
+
+    /**
+     * Sets the value of the flag that indicates whether the replay window is
+     * located through a sparse timestamp index of the external file, built
+     * once and stored next to it, instead of by reading the file from its
+     * beginning.
+     *
+     * @param indexed   <tt>true</tt> for using a timestamp index
+     */
+    public void setIndexed(boolean indexed) {
+        this.indexed = indexed;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if the external file is accessed through
+     *          a timestamp index, <tt>false</tt> otherwise
+     */
+    public boolean isIndexed() {
+        return indexed;
+    }
 }
@@ -0,0 +1,79 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Paces event submission in {@link Sender} threads.
+ *
+ * Two pacing modes are supported: the original millisecond-resolution mode,
+ * in which senders sleep until the scheduled time of the next event, and a
+ * nanosecond-resolution mode based on <tt>System.nanoTime()</tt> deadlines,
+ * in which senders park while far from the deadline and spin when close to it.
+ * The latter keeps the actual inter-arrival times close to the ones produced
+ * by the {@link Scheduler} even at very high rates, at the cost of CPU usage.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Sender
+ */
+public final class Pacer {
+
+    /** Events are paced with millisecond resolution (Thread.sleep). */
+    public static final int MILLIS_PACING = 0;
+
+    /** Events are paced with nanosecond resolution (park, then spin). */
+    public static final int NANO_PACING = 1;
+
+    /** Distance from the deadline, in nanoseconds, below which the pacer spins instead of parking. */
+    private static final long SPIN_THRESHOLD = 100000;
+
+    /**
+     * Non-instantiable class.
+     */
+    private Pacer() { }
+
+    /**
+     * Blocks the calling thread until the deadline passed as argument.
+     *
+     * @param deadline  the deadline, in the time base of <tt>System.nanoTime()</tt>
+     */
+    public static void awaitDeadline(long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > SPIN_THRESHOLD) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+            remaining = deadline - System.nanoTime();
+        }
+        while (deadline - System.nanoTime() > 0) {
+            // spins
+        }
+    }
+
+    /**
+     * Checks if the value passed as argument is a valid pacing mode.
+     *
+     * @param pacingMode    the pacing mode
+     * @return              <tt>true</tt> if the pacing mode is valid,
+     *                      <tt>false</tt> otherwise
+     */
+    public static boolean isValidMode(int pacingMode) {
+        return pacingMode == MILLIS_PACING || pacingMode == NANO_PACING;
+    }
+}
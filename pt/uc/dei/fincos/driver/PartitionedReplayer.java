@@ -0,0 +1,349 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+
+import pt.uc.dei.fincos.basic.CSV_Event;
+import pt.uc.dei.fincos.data.EventFileReader;
+
+/**
+ * Reads an external data file and spreads its records over a number of
+ * partitions, each one replayed by a different {@link Sender}.
+ *
+ * Records are assigned to partitions by event type or by the value of a
+ * key field, so that all the events with the same type (or key) are sent,
+ * in file order, by the same Sender. The time at which every event must be
+ * sent is computed here, in file order, either from the timestamps in the
+ * data file or from a fixed rate; it is then carried in the event's timestamp
+ * field, as an offset, in nanoseconds, from the start of the replay. Senders
+ * replay their partitions against a common time base, which keeps the
+ * global order of the file up to the pacing accuracy of the Senders.
+ *
+ * Events are dispatched shortly before they are due, so that changes in the
+ * replay rate apply to all the events not yet dispatched. Events of a full
+ * partition are held in a backlog, so that a slow Sender does not hold back
+ * the others until its backlog is full as well.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Sender
+ * @see ExternalFileWorkloadPhase
+ */
+public final class PartitionedReplayer extends Thread {
+
+    /** Time the replayer waits before retrying when a partition is full, in nanoseconds. */
+    private static final long FULL_BUFFER_PARK_TIME = 50000;
+
+    /** Maximum time an event is dispatched ahead of its due time, in nanoseconds. */
+    private static final long MAX_LEAD_TIME = 10000000;
+
+    /** Maximum time the replayer waits before checking the replay rate again, in nanoseconds. */
+    private static final long MAX_PARK_TIME = 1000000;
+
+    /** Reads events from the data file. */
+    private final EventFileReader dataFileReader;
+
+    /** Schedules event submission when the timestamps in the data file are not used. */
+    private final Scheduler scheduler;
+
+    /** Number of nanoseconds per unit of the timestamps in the data file. */
+    private final double timestampResolution;
+
+    /** Number of times the data file must be read. */
+    private final int fileRepeatCount;
+
+    /** Index of the payload field used to partition events (-1 for event type). */
+    private final int keyIndex;
+
+    /** One buffer per partition. */
+    private final List<EventRingBuffer<CSV_Event>> partitions;
+
+    /** Events that did not fit into their partitions yet, one queue per partition. */
+    private final List<ArrayDeque<CSV_Event>> backlogs;
+
+    /** Total number of events in the backlogs. */
+    private int backlogCount = 0;
+
+    /** A multiplication factor used to increase or decrease the replay rate. */
+    private volatile double factor = 1.0;
+
+    /** Start of the replay, in milliseconds (wall-clock time). */
+    private long startMillis;
+
+    /** Start of the replay, in the time base of <tt>System.nanoTime()</tt>. */
+    private long startNanos;
+
+    /** Set when all events have been dispatched (or dispatching failed). */
+    private volatile boolean finished = false;
+
+    /** Set when the replay must stop as soon as possible. */
+    private volatile boolean stopped = false;
+
+    /** The error that interrupted the replay, if any. */
+    private volatile Exception error;
+
+    /**
+     * Creates a replayer for a data file.
+     *
+     * @param name              the name of the replayer thread
+     * @param dataFileReader    reads events from the data file
+     * @param scheduler         schedules event submission according to a fixed rate
+     *                          (<tt>null</tt> for using the timestamps in the data file)
+     * @param timestampUnit     time unit of the timestamps in the data file
+     * @param fileRepeatCount   number of times the data file must be read
+     * @param partitionCount    number of partitions (i.e., of Senders)
+     * @param keyIndex          index of the payload field used to partition events
+     *                          (-1 for partitioning them by event type)
+     * @param bufferCapacity    capacity of the buffer of each partition
+     */
+    public PartitionedReplayer(String name, EventFileReader dataFileReader, Scheduler scheduler,
+            int timestampUnit, int fileRepeatCount, int partitionCount, int keyIndex,
+            int bufferCapacity) {
+        super(name);
+        this.dataFileReader = dataFileReader;
+        this.scheduler = scheduler;
+        if (timestampUnit == ExternalFileWorkloadPhase.MILLISECONDS) {
+            this.timestampResolution = 1E6;
+        } else { // seconds and date/time
+            this.timestampResolution = 1E9;
+        }
+        this.fileRepeatCount = fileRepeatCount;
+        this.keyIndex = keyIndex;
+        this.partitions = new ArrayList<EventRingBuffer<CSV_Event>>(partitionCount);
+        this.backlogs = new ArrayList<ArrayDeque<CSV_Event>>(partitionCount);
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(new EventRingBuffer<CSV_Event>(bufferCapacity));
+            backlogs.add(new ArrayDeque<CSV_Event>());
+        }
+        this.setDaemon(true);
+    }
+
+    /**
+     * Starts the replay: due offsets of events are relative to this instant.
+     */
+    @Override
+    public synchronized void start() {
+        this.startMillis = System.currentTimeMillis();
+        this.startNanos = System.nanoTime();
+        super.start();
+    }
+
+    @Override
+    public void run() {
+        long dueOffset = 0;   // in nanoseconds
+        try {
+            for (int i = 0; i < fileRepeatCount && !stopped; i++) {
+                if (i > 0) {
+                    dataFileReader.reOpen();
+                }
+                CSV_Event event = dataFileReader.getNextCSVEvent();
+                long lastTS = event != null ? event.getTimestamp() : 0;
+                while (event != null) {
+                    long currentTS = event.getTimestamp();
+                    dueOffset = awaitDueOffset(dueOffset, currentTS - lastTS);
+                    if (dueOffset < 0) {
+                        return;
+                    }
+                    lastTS = currentTS;
+                    event.setTimestamp(dueOffset);
+                    if (!publish(event, partitionOf(event))) {
+                        return;
+                    }
+                    event = dataFileReader.getNextCSVEvent();
+                }
+            }
+            while (backlogCount > 0) {
+                if (stopped) {
+                    return;
+                }
+                LockSupport.parkNanos(FULL_BUFFER_PARK_TIME);
+                drainBacklogs();
+            }
+        } catch (Exception e) {
+            if (!stopped) {
+                this.error = e;
+            }
+        } finally {
+            this.finished = true;
+            dataFileReader.closeFile();
+        }
+    }
+
+    /**
+     * Computes the due offset of the next event and waits until it is at
+     * most {@link #MAX_LEAD_TIME} ahead. When the timestamps in the data file
+     * are used, the offset is recomputed on every wake-up, so that a new
+     * rate factor applies even to an event that is still waiting.
+     *
+     * @param lastOffset    due offset of the previous event, in nanoseconds
+     * @param interval      time elapsed since the previous event, in units of
+     *                      the timestamps in the data file (ignored when
+     *                      events are scheduled at a fixed rate)
+     * @return              the due offset of the event, in nanoseconds,
+     *                      or -1 if the replay was stopped
+     */
+    private long awaitDueOffset(long lastOffset, long interval) {
+        long interArrivalTime = scheduler != null ? scheduler.getInterArrivalTime() : 0;
+        while (true) {
+            long dueOffset;
+            if (scheduler != null) {
+                dueOffset = lastOffset + interArrivalTime;
+            } else {
+                dueOffset = lastOffset + Math.round(timestampResolution * interval / factor);
+            }
+            drainBacklogs();
+            long waitTime = startNanos + dueOffset - MAX_LEAD_TIME - System.nanoTime();
+            if (waitTime <= 0) {
+                return dueOffset;
+            }
+            if (stopped) {
+                return -1;
+            }
+            LockSupport.parkNanos(backlogCount > 0 ? FULL_BUFFER_PARK_TIME
+                                                   : Math.min(waitTime, MAX_PARK_TIME));
+        }
+    }
+
+    /**
+     * Determines the partition of an event.
+     *
+     * @param event     the event
+     * @return          the index of the partition the event belongs to
+     */
+    private int partitionOf(CSV_Event event) {
+        String key;
+        if (keyIndex >= 0 && keyIndex < event.getPayload().length) {
+            key = event.getPayload()[keyIndex];
+        } else {
+            key = event.getType();
+        }
+        return key == null ? 0 : (key.hashCode() & Integer.MAX_VALUE) % partitions.size();
+    }
+
+    /**
+     * Places an event into a partition or, if the partition is full (or has
+     * older events waiting), into its backlog. Waits only when the backlog
+     * itself is full.
+     *
+     * @param event     the event
+     * @param index     the index of the partition
+     * @return          <tt>true</tt> if the event has been published,
+     *                  <tt>false</tt> if the replay was stopped
+     */
+    private boolean publish(CSV_Event event, int index) {
+        ArrayDeque<CSV_Event> backlog = backlogs.get(index);
+        if (backlog.isEmpty() && partitions.get(index).offer(event)) {
+            return true;
+        }
+        backlog.add(event);
+        backlogCount++;
+        while (backlog.size() > partitions.get(index).capacity()) {
+            if (stopped) {
+                return false;
+            }
+            LockSupport.parkNanos(FULL_BUFFER_PARK_TIME);
+            drainBacklogs();
+        }
+        return true;
+    }
+
+    /**
+     * Moves events from the backlogs into their partitions, as long as there is room.
+     */
+    private void drainBacklogs() {
+        if (backlogCount == 0) {
+            return;
+        }
+        for (int i = 0; i < backlogs.size(); i++) {
+            ArrayDeque<CSV_Event> backlog = backlogs.get(i);
+            EventRingBuffer<CSV_Event> partition = partitions.get(i);
+            while (!backlog.isEmpty() && partition.offer(backlog.peek())) {
+                backlog.poll();
+                backlogCount--;
+            }
+        }
+    }
+
+    /**
+     * Stops the replay.
+     */
+    public void stopReplay() {
+        this.stopped = true;
+        LockSupport.unpark(this);
+    }
+
+    /**
+     * Method used to increase or decrease the replay rate.
+     *
+     * @param factor    the multiplication factor (e.g. 2 = 2x faster than original rate)
+     */
+    public void setRateFactor(double factor) {
+        if (scheduler != null) {
+            scheduler.setRateFactor(factor);
+        } else {
+            this.factor = factor;
+        }
+    }
+
+    /**
+     *
+     * @param index     the index of a partition
+     * @return          the buffer of the partition
+     */
+    public EventRingBuffer<CSV_Event> getPartition(int index) {
+        return partitions.get(index);
+    }
+
+    /**
+     *
+     * @return  the start of the replay, in milliseconds
+     */
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    /**
+     *
+     * @return  the start of the replay, in the time base of <tt>System.nanoTime()</tt>
+     */
+    public long getStartNanos() {
+        return startNanos;
+    }
+
+    /**
+     *
+     * @return  <tt>true</tt> if no more events will be placed into the partitions
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    /**
+     *
+     * @return  the error that interrupted the replay,
+     *          or <tt>null</tt> if there was none
+     */
+    public Exception getError() {
+        return error;
+    }
+}
@@ -0,0 +1,231 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+
+/**
+ * An arbitrary event rate curve for a synthetic workload phase, built out
+ * of points (linearly interpolated), steps and spikes, optionally
+ * modulated by a sinusoid.
+ *
+ * Before the phase starts, the curve is sampled into a lookup table (see
+ * {@link #compile(double)}), so that evaluating the current event rate
+ * costs the same no matter how complex the curve is.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see     Scheduler
+ * @see     SyntheticWorkloadPhase
+ */
+public final class RateProfile implements Serializable {
+
+    /** serial id. */
+    private static final long serialVersionUID = 4730981726305946751L;
+
+    /** Maximum number of intervals of the lookup table. */
+    private static final int MAX_TABLE_INTERVALS = 1 << 16;
+
+    /** Minimum length of the intervals of the lookup table, in seconds. */
+    private static final double MIN_TABLE_RESOLUTION = 0.001;
+
+    /** The points of the curve ({time in seconds, rate in events/second}), sorted by time. */
+    private final ArrayList<double[]> points = new ArrayList<double[]>();
+
+    /** Relative amplitude of the sinusoidal modulation (0 for none). */
+    private double sinusoidAmplitude = 0;
+
+    /** Period of the sinusoidal modulation, in seconds. */
+    private double sinusoidPeriod = 0;
+
+    /**
+     * Adds a point to the curve. The rate varies linearly between
+     * consecutive points, and two points at a same time make a step.
+     *
+     * @param time  the time since the beginning of the phase, in seconds
+     * @param rate  the event rate at that time, in events/second
+     */
+    public void addPoint(double time, double rate) {
+        if (time < 0 || rate < 0) {
+            throw new IllegalArgumentException("Invalid rate profile point ("
+                                             + time + ", " + rate + ").");
+        }
+        int i = points.size();
+        while (i > 0 && points.get(i - 1)[0] > time) {
+            i--;
+        }
+        points.add(i, new double[] {time, rate});
+    }
+
+    /**
+     * Changes the event rate abruptly at a given time.
+     *
+     * @param time  the time of the step, in seconds
+     * @param rate  the event rate after the step, in events/second
+     */
+    public void addStep(double time, double rate) {
+        double before = getBaseRate(time);
+        addPoint(time, before);
+        addPoint(time, rate);
+    }
+
+    /**
+     * Replaces the event rate of a given interval by a (higher) constant
+     * rate, returning to the previous curve at the end of the interval.
+     *
+     * @param time      the start of the spike, in seconds
+     * @param duration  the duration of the spike, in seconds
+     * @param rate      the event rate during the spike, in events/second
+     */
+    public void addSpike(double time, double duration, double rate) {
+        double before = getBaseRate(time);
+        double after = getBaseRate(time + duration);
+        for (int i = points.size() - 1; i >= 0; i--) {
+            double t = points.get(i)[0];
+            if (t > time && t < time + duration) {
+                points.remove(i);
+            }
+        }
+        addPoint(time, before);
+        addPoint(time, rate);
+        addPoint(time + duration, rate);
+        addPoint(time + duration, after);
+    }
+
+    /**
+     * Modulates the curve by a sinusoid: rate(t) = curve(t) * (1 + A.sin(2.pi.t/P)).
+     *
+     * @param amplitude     the relative amplitude A (between 0 and 1)
+     * @param period        the period P, in seconds
+     */
+    public void setSinusoid(double amplitude, double period) {
+        if (amplitude < 0 || amplitude > 1 || period <= 0) {
+            throw new IllegalArgumentException("Invalid sinusoid ("
+                                             + amplitude + ", " + period + ").");
+        }
+        this.sinusoidAmplitude = amplitude;
+        this.sinusoidPeriod = period;
+    }
+
+    /**
+     *
+     * @return  the points of the curve ({time, rate}), sorted by time
+     */
+    public double[][] getPoints() {
+        return points.toArray(new double[0][]);
+    }
+
+    /**
+     *
+     * @return  the relative amplitude of the sinusoidal modulation (0 for none)
+     */
+    public double getSinusoidAmplitude() {
+        return sinusoidAmplitude;
+    }
+
+    /**
+     *
+     * @return  the period of the sinusoidal modulation, in seconds
+     */
+    public double getSinusoidPeriod() {
+        return sinusoidPeriod;
+    }
+
+    /**
+     * Computes the event rate at a given time, without the sinusoidal
+     * modulation. Before the first point and after the last one, the rate
+     * is constant.
+     *
+     * @param time  the time since the beginning of the phase, in seconds
+     * @return      the event rate, in events/second
+     */
+    private double getBaseRate(double time) {
+        if (points.isEmpty()) {
+            return 0;
+        }
+        int i = points.size() - 1;
+        while (i > 0 && points.get(i)[0] > time) {
+            i--;
+        }
+        double[] p = points.get(i);
+        if (time <= p[0] || i == points.size() - 1) {
+            return p[1];
+        }
+        double[] next = points.get(i + 1);
+        return p[1] + (time - p[0]) * (next[1] - p[1]) / (next[0] - p[0]);
+    }
+
+    /**
+     * Computes the event rate at a given time.
+     *
+     * @param time  the time since the beginning of the phase, in seconds
+     * @return      the event rate, in events/second
+     */
+    public double getRate(double time) {
+        double rate = getBaseRate(time);
+        if (sinusoidAmplitude > 0) {
+            rate *= 1 + sinusoidAmplitude * Math.sin(2 * Math.PI * time / sinusoidPeriod);
+        }
+        return rate;
+    }
+
+    /**
+     * Samples the curve into a lookup table of equally spaced points (at
+     * most one per millisecond, and at most 65537 points). Rates between
+     * consecutive entries are linearly interpolated.
+     *
+     * @param duration  the duration of the phase, in seconds
+     * @return          the event rates (in events/second) at times
+     *                  <tt>i * duration / (length - 1)</tt>
+     */
+    public double[] compile(double duration) {
+        int intervals = (int) Math.max(1, Math.min(MAX_TABLE_INTERVALS,
+                                                   duration / MIN_TABLE_RESOLUTION));
+        double[] table = new double[intervals + 1];
+        for (int i = 0; i <= intervals; i++) {
+            table[i] = getRate(i * duration / intervals);
+        }
+        return table;
+    }
+
+    /**
+     * Computes the mean event rate of the curve over a phase.
+     *
+     * @param duration  the duration of the phase, in seconds
+     * @return          the mean event rate, in events/second
+     */
+    public double getMeanRate(double duration) {
+        double[] table = compile(duration);
+        double sum = 0;
+        for (int i = 1; i < table.length; i++) {
+            sum += (table[i - 1] + table[i]) / 2;
+        }
+        return sum / (table.length - 1);
+    }
+
+    @Override
+    public String toString() {
+        return points.size() + " point(s)"
+               + (sinusoidAmplitude > 0
+                  ? ", sinusoid (amplitude: " + sinusoidAmplitude
+                    + ", period: " + sinusoidPeriod + " s)"
+                  : "");
+    }
+}
@@ -33,7 +33,15 @@ public final class Scheduler {
         /** constant interarrival time (1/rate). */
         DETERMINISTIC,
         /** exponentially distributed interarrival time. */
-        POISSON
+        POISSON,
+        /** Poisson arrivals modulated by alternating ON (burst) and OFF periods of
+         *  exponentially distributed durations (two-state MMPP). */
+        ON_OFF,
+        /** Pareto-distributed (heavy-tailed) interarrival time. */
+        PARETO,
+        /** Poisson arrivals modulated by ON and OFF periods of Pareto-distributed
+         *  durations, which yields a self-similar (long-range dependent) load. */
+        SELF_SIMILAR
     };
 
     /** The initial event submission rate (in events/nanosec). */
@@ -57,13 +65,43 @@ public final class Scheduler {
     /** Random number generator. */
     private final Random rnd;
 
+    /** Ratio between the event rate during ON periods and the mean event rate. */
+    private double burstRatio = 3;
+
+    /** Mean duration of ON periods, in nanoseconds. */
+    private double meanOnPeriod = 1E9;
+
+    /** Mean duration of OFF periods, in nanoseconds. */
+    private double meanOffPeriod = 3E9;
+
+    /** Shape of the Pareto distribution of interarrival times (PARETO process). */
+    private double paretoShape = 1.5;
+
+    /** Hurst parameter of the load (SELF_SIMILAR process). */
+    private double hurstParameter = 0.8;
+
+    /** Indicates if the ON/OFF processes are currently in an ON period. */
+    private boolean onPeriod;
+
+    /** End of the current ON/OFF period (in nanoseconds), or -1 before the first period. */
+    private long periodEnd = -1;
+
+    /** The event rate multiplier of the current ON/OFF period. */
+    private double periodRateFactor = 1.0;
+
+    /** Event rates (in events/nanosec) sampled from a rate profile, if any. */
+    private double[] rateTable;
+
+    /** Time between consecutive entries of the rate table, in nanoseconds. */
+    private double rateTableStep;
+
     /**
      *
      * @param initialEventRate  The initial event submission rate (events/sec)
      * @param finalEventRate    The final event submission rate (events/sec)
      * @param testDuration      Total test duration, in seconds
-     * @param arrivalProcess    Either DETERMINISTIC or POISSON
-     * @param seed              Seed for random number generation in case of Poisson Process
+     * @param arrivalProcess    The distribution of interarrival times
+     * @param seed              Seed for random number generation in case of stochastic processes
      * @throws Exception
      */
     public Scheduler(double initialEventRate, double finalEventRate, long testDuration,
@@ -83,8 +121,8 @@ public final class Scheduler {
      *
      * @param eventRate         The event submission rate (in events/sec)
      * @param testDuration      Total test duration, in seconds
-     * @param arrivalProcess    Either DETERMINISTIC or POISSON
-     * @param seed              Seed for random number generation in case of Poisson Process
+     * @param arrivalProcess    The distribution of interarrival times
+     * @param seed              Seed for random number generation in case of stochastic processes
      * @throws Exception
      */
     public Scheduler(double eventRate, int testDuration, ArrivalProcess arrivalProcess, Long seed) {
@@ -134,10 +172,73 @@ public final class Scheduler {
         }
     }
 
+    /**
+     * Sets the parameters of the ON/OFF periods of the ON_OFF and SELF_SIMILAR
+     * processes. The event rate during ON and OFF periods is set so that the
+     * mean event rate is preserved (the burst ratio is limited accordingly).
+     *
+     * @param ratio         ratio between the event rate during ON periods and
+     *                      the mean event rate
+     * @param meanOn        mean duration of ON periods, in seconds
+     * @param meanOff       mean duration of OFF periods, in seconds
+     */
+    public void setBurstParameters(double ratio, double meanOn, double meanOff) {
+        this.burstRatio = ratio;
+        this.meanOnPeriod = meanOn * 1E9;   // converts to nanoseconds
+        this.meanOffPeriod = meanOff * 1E9; // converts to nanoseconds
+    }
+
+    /**
+     * Makes the event rate follow an arbitrary curve, rather than varying
+     * linearly from the initial to the final rate. The curve is sampled
+     * into a lookup table beforehand, so that evaluating the current rate
+     * has constant cost.
+     *
+     * @param profile   the rate curve
+     * @param share     the fraction of the curve's rate assigned to this Scheduler
+     */
+    public void setRateProfile(RateProfile profile, double share) {
+        double[] rates = profile.compile(this.testDuration / 1E9);
+        double[] table = new double[rates.length];
+        for (int i = 0; i < rates.length; i++) {
+            // converts to events/nanoseconds (at least 0.1 events/second)
+            table[i] = Math.max(share * rates[i] / 1E9, 1E-10);
+        }
+        this.rateTableStep = (double) this.testDuration / (table.length - 1);
+        this.rateTable = table;
+    }
+
+    /**
+     * Sets the shape of the Pareto distribution of interarrival times
+     * (PARETO process). The lower the shape, the heavier the tail.
+     *
+     * @param shape     the shape (must be greater than 1)
+     */
+    public void setParetoShape(double shape) {
+        this.paretoShape = shape;
+    }
+
+    /**
+     * Sets the Hurst parameter of the load (SELF_SIMILAR process). The
+     * durations of the ON/OFF periods follow a Pareto distribution with
+     * shape 3 - 2H.
+     *
+     * @param hurst     the Hurst parameter (between 0.5 and 1, exclusive)
+     */
+    public void setHurstParameter(double hurst) {
+        this.hurstParameter = hurst;
+    }
+
     /**
      * Gets the inter-arrival times of events
      * If the arrival process is DETERMINISTIC, T = 1/X.
      * If the arrival process is POISSON, T = -ln(U)/X.
+     * If the arrival process is PARETO, T = Xm/U^(1/a), with Xm = (a-1)/(a*X).
+     * If the arrival process is ON_OFF or SELF_SIMILAR, T is exponentially
+     * distributed, with rate X scaled up or down in ON and OFF periods.
+     * If a rate profile has been set, the rate varies during T: the expected
+     * number of events in T (rather than T * X) then follows the distributions
+     * above (see {@link #getNextArrival(double, double)}).
      *
      * @return  The time in nanoseconds
      */
@@ -147,6 +248,11 @@ public final class Scheduler {
             return this.getDeterministicInterArrivalTime();
         case POISSON:
             return this.getPoissonInterArrivalTime();
+        case PARETO:
+            return this.getParetoInterArrivalTime();
+        case ON_OFF:
+        case SELF_SIMILAR:
+            return this.getModulatedInterArrivalTime();
         default:
             return this.getDeterministicInterArrivalTime();
         }
@@ -159,7 +265,7 @@ public final class Scheduler {
      * @return  The time in nanoseconds
      */
     private long getDeterministicInterArrivalTime() {
-        long interTime = Math.round(1 / this.getEventRate(this.currentTime));
+        long interTime = Math.round(this.getNextArrival(this.currentTime, 1) - this.currentTime);
         this.currentTime = this.currentTime + interTime;
         return interTime;
     }
@@ -172,14 +278,127 @@ public final class Scheduler {
      */
     private long getPoissonInterArrivalTime() {
         long interTime = Math.round(
-                -Math.log(rnd.nextDouble())
-                /
-                this.getEventRate(this.currentTime)
+                this.getNextArrival(this.currentTime, -Math.log(rnd.nextDouble()))
+                - this.currentTime
         );
         this.currentTime = this.currentTime + interTime;
         return interTime;
     }
 
+    /**
+     * Gets the inter-arrival times of events
+     * (Pareto-distributed, with mean 1/X).
+     *
+     * @return The time in nanoseconds
+     */
+    private long getParetoInterArrivalTime() {
+        double minimum = (paretoShape - 1) / paretoShape;
+        long interTime = Math.round(
+                this.getNextArrival(this.currentTime,
+                                    minimum / Math.pow(1 - rnd.nextDouble(), 1 / paretoShape))
+                - this.currentTime);
+        this.currentTime = this.currentTime + interTime;
+        return interTime;
+    }
+
+    /**
+     * Gets the inter-arrival times of events (Poisson Process modulated by
+     * ON/OFF periods). Since exponential interarrival times are memoryless,
+     * an arrival that would fall after the end of the current period is
+     * simply re-drawn from the end of the period, at the rate of the next one.
+     *
+     * @return The time in nanoseconds
+     */
+    private long getModulatedInterArrivalTime() {
+        double t = this.currentTime;
+        while (true) {
+            if (t >= periodEnd) {
+                startNextPeriod((long) t);
+            }
+            double events = -Math.log(1 - rnd.nextDouble());
+            double dt = periodRateFactor > 0
+                        ? this.getNextArrival(t, events / periodRateFactor) - t
+                        : Double.POSITIVE_INFINITY;
+            if (t + dt < periodEnd) {
+                t = t + dt;
+                break;
+            }
+            t = periodEnd;
+        }
+        long interTime = Math.round(t - this.currentTime);
+        this.currentTime = this.currentTime + interTime;
+        return interTime;
+    }
+
+    /**
+     * Switches between ON and OFF periods (the first period is ON with
+     * probability equal to the fraction of time spent in ON periods) and
+     * draws the duration of the new period.
+     *
+     * @param t     the current time, in nanoseconds
+     */
+    private void startNextPeriod(long t) {
+        double onFraction = meanOnPeriod / (meanOnPeriod + meanOffPeriod);
+        double onFactor = Math.min(Math.max(burstRatio, 1), 1 / onFraction);
+        if (periodEnd == -1) {
+            onPeriod = rnd.nextDouble() < onFraction;
+            periodEnd = t;
+        } else {
+            onPeriod = !onPeriod;
+        }
+        periodRateFactor = onPeriod
+                           ? onFactor
+                           : onFraction < 1 ? (1 - onFraction * onFactor) / (1 - onFraction) : 0;
+        double mean = onPeriod ? meanOnPeriod : meanOffPeriod;
+        double duration;
+        if (arrivalProcess == ArrivalProcess.SELF_SIMILAR) {
+            double shape = 3 - 2 * hurstParameter;
+            duration = mean * (shape - 1) / shape / Math.pow(1 - rnd.nextDouble(), 1 / shape);
+        } else {
+            duration = -Math.log(1 - rnd.nextDouble()) * mean;
+        }
+        periodEnd = periodEnd + Math.max(1, Math.round(duration));
+    }
+
+    /**
+     * Computes the time at which a given number of events is expected to have
+     * been submitted, departing from a given time. If a rate profile has been
+     * set, the rate is integrated over the entries of the rate table, so that
+     * low rates delay arrivals only until the rate rises again; otherwise, the
+     * rate at the departing time is used.
+     *
+     * @param t         the departing time, in nanoseconds
+     * @param events    the expected number of events
+     * @return          the time of the arrival, in nanoseconds
+     */
+    private double getNextArrival(double t, double events) {
+        if (this.rateTable == null) {
+            return t + events / this.getEventRate((long) t);
+        }
+        double remaining = events / this.rateFactor;
+        if (remaining <= 0) {
+            return t;
+        }
+        int last = this.rateTable.length - 1;
+        for (int i = (int) (t / this.rateTableStep); i < last; i++) {
+            // The rate varies linearly up to the next entry of the table
+            double end = (i + 1) * this.rateTableStep;
+            double r1 = this.rateTable[i + 1];
+            double r0 = this.rateTable[i]
+                        + (t / this.rateTableStep - i) * (r1 - this.rateTable[i]);
+            double area = (r0 + r1) / 2 * (end - t);
+            if (area >= remaining) {
+                // Solves r0 * dt + (r1 - r0) / (end - t) * dt^2 / 2 = remaining
+                double slope = (r1 - r0) / (end - t);
+                return t + 2 * remaining
+                           / (r0 + Math.sqrt(Math.max(0, r0 * r0 + 2 * slope * remaining)));
+            }
+            remaining -= area;
+            t = end;
+        }
+        return t + remaining / this.rateTable[last];
+    }
+
     /**
      * Computes current event rate (for X0 != Xf, variation is linear).
      *
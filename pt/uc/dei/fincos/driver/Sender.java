@@ -19,6 +19,7 @@
 package pt.uc.dei.fincos.driver;
 
 import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
 
 import pt.uc.dei.fincos.adapters.InputAdapter;
 import pt.uc.dei.fincos.basic.CSV_Event;
@@ -27,8 +28,10 @@ import pt.uc.dei.fincos.basic.Globals;
 import pt.uc.dei.fincos.basic.Status;
 import pt.uc.dei.fincos.basic.Step;
 import pt.uc.dei.fincos.controller.Logger;
-import pt.uc.dei.fincos.data.DataFileReader;
+import pt.uc.dei.fincos.data.EventFileReader;
+import pt.uc.dei.fincos.perfmon.AllocationStats;
 import pt.uc.dei.fincos.perfmon.DriverPerfStats;
+import pt.uc.dei.fincos.perfmon.LatencyHistogram;
 
 
 /**
@@ -62,11 +65,14 @@ public final class Sender extends Thread {
     /** Schedules event creation and submission on synthetic workloads. */
     private final Scheduler scheduler;
 
+    /** Schedules the arrivals of many logical sources ("many sources" mode only). */
+    private SourceScheduler sources;
+
     /** Generates input data on synthetic workloads. */
     private DataGen datagen;
 
     /** Reads input data from a external file (if used). */
-    private DataFileReader dataFileReader;
+    private EventFileReader dataFileReader;
 
     /** Saves submitted events to disk. */
     private Logger logger;
@@ -74,6 +80,76 @@ public final class Sender extends Thread {
     /** Highest resolution for Thread.sleep() method, in nanoseconds. Configured value: 1ms. */
     private static final long SLEEP_TIME_RESOLUTION = (long) 1E6;
 
+    /** Capacity of the buffer between the producer stage and the send loop. */
+    private static final int EVENT_BUFFER_SIZE = 8192;
+
+    /** Time the send loop waits when the producer has not caught up yet, in nanoseconds. */
+    private static final long EMPTY_BUFFER_PARK_TIME = 10000;
+
+    /** Dispatches the records of a data file among Senders (partitioned replays only). */
+    private PartitionedReplayer replayer;
+
+    /** The partition of the data file replayed by this Sender (partitioned replays only). */
+    private EventRingBuffer<CSV_Event> partition;
+
+    /** Generates or parses events ahead of the send loop (scheduled runs only). */
+    private EventProducer producer;
+
+    /** How event submission is paced: with millisecond or nanosecond resolution. */
+    private int pacingMode = Pacer.MILLIS_PACING;
+
+    /** Start of the current run, in milliseconds (wall-clock time). */
+    private long runStartMillis;
+
+    /** Start of the current run, in the time base of <tt>System.nanoTime()</tt>. */
+    private long runStartNanos;
+
+    /** Scheduled offset of the last sent event from the start of the run, in nanoseconds. */
+    private long lastDueOffset = -1;
+
+    /** Time at which the last event was released for submission, in nanoseconds. */
+    private long lastReleaseTime;
+
+    /** Sum of the inter-arrival errors measured so far, in nanoseconds. */
+    private long interArrivalErrorSum = 0;
+
+    /** Largest inter-arrival error measured so far, in nanoseconds. */
+    private long interArrivalErrorMax = 0;
+
+    /** Number of inter-arrival errors measured so far. */
+    private long interArrivalCount = 0;
+
+    /** Distribution of the delays between the intended and the actual dispatch
+     *  times of the events sent so far, in nanoseconds. */
+    private final LatencyHistogram sendLag = new LatencyHistogram();
+
+    /** Maximum number of late events coalesced into a single adapter call (1 = no batching). */
+    private int maxBatchSize = 1;
+
+    /** Events (strongly typed) released for submission but not sent yet. */
+    private Event[] eventBatch;
+
+    /** Events (read from data files) released for submission but not sent yet. */
+    private CSV_Event[] csvBatch;
+
+    /** Number of events in the pending batch. */
+    private int batchCount = 0;
+
+    /** Number of batches sent so far. */
+    private long sentBatchCount = 0;
+
+    /** Number of events sent in batches so far. */
+    private long batchedEventCount = 0;
+
+    /** Indicates if sent events are recycled by the producer (synthetic workloads only). */
+    private boolean reuseEvents = false;
+
+    /** Recycles sent events (<tt>null</tt> if events are not reused). */
+    private EventPool eventPool;
+
+    /** Bytes allocated by this thread and its producer during the last run (-1 if not measured). */
+    private long allocatedBytes = -1;
+
     /** Current status of this thread. */
     private Status status;
 
@@ -155,7 +231,7 @@ public final class Sender extends Thread {
      *                              *sending time* for response time measurement.
      * @param perfTracingEnabled    indicates if online performance monitoring is enabled
      */
-    public Sender(InputAdapter adapter, Scheduler scheduler, DataFileReader dataReader,
+    public Sender(InputAdapter adapter, Scheduler scheduler, EventFileReader dataReader,
             boolean containsTimestamps, ThreadGroup group, String id,
             int loopCount, int rtMode, int rtResolution, boolean useScheduleTime,
             boolean perfTracingEnabled) {
@@ -193,7 +269,7 @@ public final class Sender extends Thread {
      *                              *sending time* for response time measurement.
      * @param perfTracingEnabled    indicates if online performance monitoring is enabled
      */
-    public Sender(InputAdapter adapter, DataFileReader dataReader,
+    public Sender(InputAdapter adapter, EventFileReader dataReader,
             int timestampUnit, int loopCount, int rtMode, int rtResolution,
             boolean useScheduleTime, boolean perfTracingEnabled) {
         this.adapter = adapter;
@@ -214,6 +290,46 @@ public final class Sender extends Thread {
         this.perfStats = new DriverPerfStats();
     }
 
+    /**
+     * Constructor #4: events are taken from a partition of a data file and
+     *                 sent at the times computed by the replayer of the file.
+     *
+     * @param adapter               Interface with the system to where events must be sent
+     *                              (i.e., a CEP engine or a JMS provider)
+     * @param replayer              Dispatches the records of the data file among Senders
+     * @param partitionIndex        The partition replayed by this Sender
+     * @param group                 A thread group
+     * @param id                    A thread ID
+     * @param rtMode                response time measurement mode
+     *                              (either END-TO-END or ADAPTER)
+     * @param rtResolution          response time measurement resolution
+     *                              (either Milliseconds or Nanoseconds)
+     * @param useScheduleTime       use events' *scheduled time* instead of
+     *                              *sending time* for response time measurement.
+     * @param perfTracingEnabled    indicates if online performance monitoring is enabled
+     */
+    public Sender(InputAdapter adapter, PartitionedReplayer replayer, int partitionIndex,
+            ThreadGroup group, String id, int rtMode, int rtResolution,
+            boolean useScheduleTime, boolean perfTracingEnabled) {
+        super(group, id);
+        this.adapter = adapter;
+        this.scheduler = null;
+        this.replayer = replayer;
+        this.partition = replayer.getPartition(partitionIndex);
+        this.status = new Status(Step.STOPPED, 0);
+        this.fileRepeatCount = 1;
+        this.useScheduledTime = useScheduleTime;
+        if (useScheduleTime) {
+            this.rtMode = Globals.END_TO_END_RT;
+            this.rtResolution = Globals.MILLIS_RT;
+        } else {
+            this.rtMode = rtMode;
+            this.rtResolution = rtResolution;
+        }
+        this.perfTracingEnabled = perfTracingEnabled;
+        this.perfStats = new DriverPerfStats();
+    }
+
     /**
      * @return  the current status of this sender thread
      */
@@ -263,7 +379,11 @@ public final class Sender extends Thread {
      * @param factor		The multiplication factor (e.g. 2 = 2x faster than original rate)
      */
     public void setRateFactor(double factor) {
-        if (this.scheduler != null) {  // scheduled run
+        if (this.replayer != null) {  // partitioned replay
+            this.replayer.setRateFactor(factor);
+        } else if (this.sources != null) {  // many sources
+            this.sources.setRateFactor(factor);
+        } else if (this.scheduler != null) {  // scheduled run
             this.scheduler.setRateFactor(factor);
         } else {  // timestamped run
             this.factor = factor;
@@ -273,7 +393,9 @@ public final class Sender extends Thread {
 
     @Override
     public void run() {
-        if (this.scheduler != null) {
+        if (this.replayer != null) {
+            partitionedRun();
+        } else if (this.scheduler != null || this.sources != null) {
             scheduledRun();
         } else {
             timestampedRun();
@@ -285,89 +407,116 @@ public final class Sender extends Thread {
      */
     private void scheduledRun() {
         long interTime;                 // inter-arrival time, in nanoseconds
-        long sleepTime;                 // in milliseconds
         long pauseT0;                   // in nanoseconds
-        Event event = null;
-        CSV_Event csvEvent = null;
+        Object event;
+        boolean starving = false;
+        long allocated0 = AllocationStats.getCurrentThreadAllocatedBytes();
 
         try {
             this.status.setStep(Step.RUNNING);
 
+            // Events are generated/parsed ahead of time by a producer thread
             if (dataFileReader != null) {
-                csvEvent = dataFileReader.getNextCSVEvent();
-            } else if (datagen != null) {
-                synchronized (datagen) {
-                    event = datagen.getNextEvent();
-                }
+                producer = new EventProducer(this.getName() + "/producer", dataFileReader,
+                                             fileRepeatCount, EVENT_BUFFER_SIZE);
+            } else if (reuseEvents && !adapter.retainsEventValues()) {
+                // Events in flight: the ones in the buffer plus the pending batch
+                eventPool = new EventPool(EVENT_BUFFER_SIZE + maxBatchSize + 1);
+                producer = new EventProducer(this.getName() + "/producer", datagen,
+                                             EVENT_BUFFER_SIZE, eventPool);
+            } else {
+                producer = new EventProducer(this.getName() + "/producer", datagen,
+                                             EVENT_BUFFER_SIZE);
             }
-
-            for (int i = 0; i < fileRepeatCount; i++) {
-                long expectedElapsedTime = 0; // in nanoseconds
-                long now;
-                long t0 = System.currentTimeMillis();
-                long firstTimestamp = t0;
-                long scheduledTime = 0;
-
-                while (event != null || csvEvent != null) {
-                    try {
-                        // Checks if driver has been paused and waits if so
-                        synchronized (this) {
-                            pauseT0 = 0;
-                            while (this.status.getStep() == Step.PAUSED) {
-                                if (pauseT0 == 0) {
-                                    pauseT0 = System.nanoTime();
-                                }
-                                this.wait();
-                            }
-                            if (pauseT0 != 0) {
-                                timeInPause += (System.nanoTime() - pauseT0);
+            producer.start();
+            EventRingBuffer<Object> buffer = producer.getBuffer();
+
+            long expectedElapsedTime = 0; // in nanoseconds
+            long scheduledTime = 0;
+            startPacing();
+
+            while (true) {
+                event = buffer.poll();
+                if (event == null) {
+                    if (producer.isFinished()) {
+                        // Last events may have been published just before the producer finished
+                        event = buffer.poll();
+                        if (event == null) {
+                            break;
+                        }
+                    } else {
+                        // Producer cannot keep up with the send loop
+                        if (!starving) {
+                            starving = true;
+                            if (perfTracingEnabled) {
+                                this.perfStats.incrementProducerStalls();
                             }
                         }
-                        // Checks if driver was stopped
                         if (this.status.getStep() == Step.STOPPED) {
                             return;
                         }
+                        // Events released so far must not wait for the producer
+                        flushBatch();
+                        LockSupport.parkNanos(EMPTY_BUFFER_PARK_TIME);
+                        continue;
+                    }
+                }
+                starving = false;
 
+                try {
+                    // Checks if driver has been paused and waits if so
+                    if (this.status.getStep() == Step.PAUSED) {
+                        flushBatch();
+                    }
+                    synchronized (this) {
+                        pauseT0 = 0;
+                        while (this.status.getStep() == Step.PAUSED) {
+                            if (pauseT0 == 0) {
+                                pauseT0 = System.nanoTime();
+                            }
+                            this.wait();
+                        }
+                        if (pauseT0 != 0) {
+                            timeInPause += (System.nanoTime() - pauseT0);
+                        }
+                    }
+                    // Checks if driver was stopped
+                    if (this.status.getStep() == Step.STOPPED) {
+                        return;
+                    }
+
+                    if (this.sources != null) {
+                        // Arrival of the earliest due logical source
+                        expectedElapsedTime = this.sources.nextArrival();
+                    } else {
                         interTime = this.scheduler.getInterArrivalTime();
                         expectedElapsedTime += interTime;
-                        scheduledTime = firstTimestamp + (expectedElapsedTime + timeInPause) / SLEEP_TIME_RESOLUTION;
-                        now = System.currentTimeMillis();
-                        sleepTime = scheduledTime - now;
-                        if (sleepTime > 0) {
-                            Thread.sleep(sleepTime);
-                        }
+                    }
+                    scheduledTime = awaitScheduledTime(expectedElapsedTime + timeInPause);
 
+                    if (event instanceof Event) {
                         if (useScheduledTime) {
-                            if (event != null) {
-                                event.setTimestamp(scheduledTime);
-                            } else {
-                                csvEvent.setTimestamp(scheduledTime);
-                            }
-                        }
-                        // Sends the event
-                        if (event != null) {
-                            this.sendEvent(event);
-                        } else {
-                            this.sendEvent(csvEvent);
+                            ((Event) event).setTimestamp(scheduledTime);
                         }
-                    } catch (Exception exc) {
-                        System.err.println("Cannot send event (" + exc.getMessage() + ")");
-                        exc.printStackTrace();
-                        if (this.status.getStep() == Step.RUNNING) {
-                            this.status.setStep(Step.ERROR);
+                        this.enqueue((Event) event);
+                    } else {
+                        if (useScheduledTime) {
+                            ((CSV_Event) event).setTimestamp(scheduledTime);
                         }
+                        this.enqueue((CSV_Event) event);
                     }
-
-                    if (dataFileReader != null) { // read event from data file
-                        csvEvent = dataFileReader.getNextCSVEvent();
-                    } else if (datagen != null)  { // generate event
-                        event = datagen.getNextEvent();
+                } catch (Exception exc) {
+                    System.err.println("Cannot send event (" + exc.getMessage() + ")");
+                    exc.printStackTrace();
+                    if (this.status.getStep() == Step.RUNNING) {
+                        this.status.setStep(Step.ERROR);
                     }
                 }
-                if (dataFileReader != null) {
-                    dataFileReader.reOpen();
-                    event = dataFileReader.getNextEvent();
-                }
+            }
+
+            flushBatch();
+            if (producer.getError() != null) {
+                throw producer.getError();
             }
 
             this.status.setStep(Step.FINISHED);
@@ -380,6 +529,18 @@ public final class Sender extends Thread {
             exc.printStackTrace();
             return;
         } finally {
+            if (producer != null) {
+                producer.stopProducing();
+                try {
+                    producer.join();
+                } catch (InterruptedException ie) {
+                    System.err.println("Interrupted while waiting for event producer.");
+                }
+                if (allocated0 != -1 && producer.getAllocatedBytes() != -1) {
+                    allocatedBytes = AllocationStats.getCurrentThreadAllocatedBytes() - allocated0
+                                     + producer.getAllocatedBytes();
+                }
+            }
             if (dataFileReader != null) {
                 dataFileReader.closeFile();
             }
@@ -392,7 +553,6 @@ public final class Sender extends Thread {
      */
     private void timestampedRun() {
         long interTime;                 // interarrival time in nanoseconds
-        long sleepTime;                 // in milliseconds
         long pauseT0;                   // in milliseconds
         long currentTS, lastTS;         // in milliseconds
         long timeResolution;
@@ -420,14 +580,15 @@ public final class Sender extends Thread {
                 // Used when timestamping mode is based on scheduled time -----------------
                 long scheduledTime;
                 long expectedElapsedTime = 0;
-                long now;
-                long t0 = System.currentTimeMillis();
-                long firstTimestamp = t0;
+                startPacing();
                 //------------------------------------------------------------------------
 
                 while (event != null) {
                     try {
                         // Checks if driver was paused and waits if so
+                        if (this.status.getStep() == Step.PAUSED) {
+                            flushBatch();
+                        }
                         synchronized (this) {
                             pauseT0 = 0;
                             while (this.status.getStep() == Step.PAUSED) {
@@ -450,18 +611,12 @@ public final class Sender extends Thread {
                         interTime = Math.round(1E6 * timeResolution * (currentTS - lastTS)
                                                                     / factor);
                         expectedElapsedTime += interTime;
-                        scheduledTime = firstTimestamp + (expectedElapsedTime + timeInPause)
-                                                         / SLEEP_TIME_RESOLUTION;
-                        now = System.currentTimeMillis();
-                        sleepTime = scheduledTime - now;
-                        if (sleepTime > 0) {
-                            Thread.sleep(sleepTime);
-                        }
+                        scheduledTime = awaitScheduledTime(expectedElapsedTime + timeInPause);
                         lastTS = currentTS;
 
                         // Sends the event
                         event.setTimestamp(scheduledTime);
-                        this.sendEvent(event);
+                        this.enqueue(event);
 
                     } catch (Exception e2) {
                         System.err.println("Cannot send event (" + e2.getMessage() + ")");
@@ -472,6 +627,7 @@ public final class Sender extends Thread {
 
                     event = dataFileReader.getNextCSVEvent();
                 }
+                flushBatch();
 
                 dataFileReader.reOpen();
             }
@@ -493,6 +649,296 @@ public final class Sender extends Thread {
         }
     }
 
+    /**
+     * Workload where events are taken from a partition of a data file and
+     * sent at the times computed by the replayer of the file.
+     */
+    private void partitionedRun() {
+        long pauseT0;                   // in nanoseconds
+        long scheduledTime;             // in milliseconds
+        CSV_Event event;
+        boolean starving = false;
+
+        try {
+            this.status.setStep(Step.RUNNING);
+            startPacing(replayer.getStartMillis(), replayer.getStartNanos());
+
+            while (true) {
+                event = partition.poll();
+                if (event == null) {
+                    if (replayer.isFinished()) {
+                        event = partition.poll();
+                        if (event == null) {
+                            break;
+                        }
+                    } else {
+                        if (!starving) {
+                            starving = true;
+                            if (perfTracingEnabled) {
+                                this.perfStats.incrementProducerStalls();
+                            }
+                        }
+                        if (this.status.getStep() == Step.STOPPED) {
+                            return;
+                        }
+                        // Events released so far must not wait for the producer
+                        flushBatch();
+                        LockSupport.parkNanos(EMPTY_BUFFER_PARK_TIME);
+                        continue;
+                    }
+                }
+                starving = false;
+
+                try {
+                    // Checks if driver has been paused and waits if so
+                    if (this.status.getStep() == Step.PAUSED) {
+                        flushBatch();
+                    }
+                    synchronized (this) {
+                        pauseT0 = 0;
+                        while (this.status.getStep() == Step.PAUSED) {
+                            if (pauseT0 == 0) {
+                                pauseT0 = System.nanoTime();
+                            }
+                            this.wait();
+                        }
+                        if (pauseT0 != 0) {
+                            timeInPause += (System.nanoTime() - pauseT0);
+                        }
+                    }
+                    // Checks if driver was stopped
+                    if (this.status.getStep() == Step.STOPPED) {
+                        return;
+                    }
+
+                    // The timestamp of the event carries its due offset
+                    scheduledTime = awaitScheduledTime(event.getTimestamp() + timeInPause);
+                    event.setTimestamp(scheduledTime);
+                    this.enqueue(event);
+                } catch (Exception exc) {
+                    System.err.println("Cannot send event (" + exc.getMessage() + ")");
+                    if (this.status.getStep() == Step.RUNNING) {
+                        this.status.setStep(Step.ERROR);
+                    }
+                }
+            }
+
+            flushBatch();
+            if (replayer.getError() != null) {
+                throw replayer.getError();
+            }
+
+            this.status.setStep(Step.FINISHED);
+        } catch (IOException ioe) {
+            System.err.println("Cannot read datafile (" + ioe.getMessage() + ")");
+            this.status.setStep(Step.ERROR);
+        } catch (Exception exc) {
+            System.err.println("Unexpected exception. (" + exc.getClass()
+                             + "-" + exc.getMessage() + ")\n load submisson will abort.");
+            exc.printStackTrace();
+            this.status.setStep(Step.ERROR);
+        } finally {
+            if (this.status.getStep() != Step.FINISHED) {
+                // The replayer must not block on a partition nobody consumes
+                replayer.stopReplay();
+            }
+        }
+    }
+
+    /**
+     * Marks the start of a run: scheduled offsets passed to
+     * {@link #awaitScheduledTime(long)} are relative to this instant.
+     */
+    private void startPacing() {
+        startPacing(System.currentTimeMillis(), System.nanoTime());
+    }
+
+    /**
+     * Marks the start of a run at a given instant.
+     *
+     * @param startMillis   the start of the run, in milliseconds
+     * @param startNanos    the start of the run, in the time base of <tt>System.nanoTime()</tt>
+     */
+    private void startPacing(long startMillis, long startNanos) {
+        runStartMillis = startMillis;
+        runStartNanos = startNanos;
+        lastDueOffset = -1;
+    }
+
+    /**
+     * Waits until the scheduled time of the next event and measures how late
+     * it is released (send lag) and the error between its intended and actual
+     * inter-arrival times.
+     *
+     * Because the schedule is never shifted when the Sender falls behind (e.g.,
+     * if the system under test blocks inside <tt>InputAdapter.send</tt>),
+     * the send lag is accounted for every event, free of coordinated omission.
+     *
+     * @param dueOffset     the time, in nanoseconds, elapsed since the start of
+     *                      the run at which the next event must be sent
+     * @return              the scheduled time of the next event, in milliseconds
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    private long awaitScheduledTime(long dueOffset) throws InterruptedException {
+        long scheduledTime = runStartMillis + dueOffset / SLEEP_TIME_RESOLUTION;
+        if (batchCount > 0 && System.nanoTime() - runStartNanos < dueOffset) {
+            // Next event is not late: pending events must not wait for it
+            flushBatch();
+        }
+        if (pacingMode == Pacer.NANO_PACING) {
+            Pacer.awaitDeadline(runStartNanos + dueOffset);
+        } else {
+            long sleepTime = scheduledTime - System.currentTimeMillis();
+            if (sleepTime > 0) {
+                Thread.sleep(sleepTime);
+            }
+        }
+
+        long releaseTime = System.nanoTime();
+        long lag = releaseTime - (runStartNanos + dueOffset);
+        sendLag.recordValue(lag);
+        if (perfTracingEnabled) {
+            this.perfStats.recordSendLag(lag);
+        }
+
+        // Inter-arrival error: |actual inter-arrival time - intended inter-arrival time|
+        if (lastDueOffset != -1) {
+            long error = Math.abs((releaseTime - lastReleaseTime) - (dueOffset - lastDueOffset));
+            interArrivalErrorSum += error;
+            interArrivalCount++;
+            if (error > interArrivalErrorMax) {
+                interArrivalErrorMax = error;
+            }
+            if (perfTracingEnabled) {
+                this.perfStats.addInterArrivalError(error);
+            }
+        }
+        lastReleaseTime = releaseTime;
+        lastDueOffset = dueOffset;
+
+        return scheduledTime;
+    }
+
+    /**
+     * Sends an event to the system under test or, if micro-batching is
+     * enabled, adds it to the pending batch. Batches only build up while
+     * the Sender is behind schedule: they are flushed as soon as the next
+     * event is not due yet.
+     *
+     * @param event         the event to be sent
+     * @throws Exception    if an error occurs during event submission
+     */
+    private void enqueue(Event event) throws Exception {
+        if (maxBatchSize <= 1) {
+            sendEvent(event);
+        } else {
+            if (eventBatch == null) {
+                eventBatch = new Event[maxBatchSize];
+            }
+            eventBatch[batchCount++] = event;
+            if (batchCount == maxBatchSize) {
+                flushBatch();
+            }
+        }
+    }
+
+    /**
+     * Sends an event to the system under test or, if micro-batching is
+     * enabled, adds it to the pending batch.
+     *
+     * @param event         the event to be sent
+     * @throws Exception    if an error occurs during event submission
+     */
+    private void enqueue(CSV_Event event) throws Exception {
+        if (maxBatchSize <= 1) {
+            sendEvent(event);
+        } else {
+            if (csvBatch == null) {
+                csvBatch = new CSV_Event[maxBatchSize];
+            }
+            csvBatch[batchCount++] = event;
+            if (batchCount == maxBatchSize) {
+                flushBatch();
+            }
+        }
+    }
+
+    /**
+     * Sends the pending batch of events (if any) with a single adapter call.
+     */
+    private void flushBatch() {
+        if (batchCount == 0) {
+            return;
+        }
+        int count = batchCount;
+        batchCount = 0;
+        try {
+            long sendTime = 0;
+            boolean stamp = rtMode == Globals.END_TO_END_RT && !useScheduledTime;
+            if (stamp) {
+                if (rtResolution == Globals.MILLIS_RT) {
+                    sendTime = System.currentTimeMillis();
+                } else if (rtResolution == Globals.NANO_RT) {
+                    sendTime = System.nanoTime();
+                }
+            }
+            if (eventBatch != null) {
+                if (stamp) {
+                    for (int i = 0; i < count; i++) {
+                        eventBatch[i].setTimestamp(sendTime);
+                    }
+                }
+                if (count == 1) {
+                    adapter.send(eventBatch[0]);
+                } else {
+                    adapter.send(eventBatch, count);
+                }
+                for (int i = 0; i < count; i++) {
+                    if (logger != null) {
+                        logger.log(eventBatch[i]);
+                    }
+                    if (perfTracingEnabled) {
+                        this.perfStats.incrementCount(eventBatch[i].getType().getName());
+                    }
+                    if (eventPool != null) {
+                        eventPool.release(eventBatch[i]);
+                    }
+                    eventBatch[i] = null;
+                }
+            } else {
+                if (stamp) {
+                    for (int i = 0; i < count; i++) {
+                        csvBatch[i].setTimestamp(sendTime);
+                    }
+                }
+                if (count == 1) {
+                    adapter.send(csvBatch[0]);
+                } else {
+                    adapter.send(csvBatch, count);
+                }
+                for (int i = 0; i < count; i++) {
+                    if (logger != null) {
+                        logger.log(csvBatch[i]);
+                    }
+                    if (perfTracingEnabled) {
+                        this.perfStats.incrementCount(csvBatch[i].getType());
+                    }
+                    csvBatch[i] = null;
+                }
+            }
+            sentEventCount += count;
+            if (count > 1) {
+                sentBatchCount++;
+                batchedEventCount += count;
+            }
+        } catch (Exception exc) {
+            System.err.println("Cannot send event (" + exc.getMessage() + ")");
+            if (this.status.getStep() == Step.RUNNING) {
+                this.status.setStep(Step.ERROR);
+            }
+        }
+    }
+
     /**
      * Sends an event to the system under test.
      *
@@ -525,6 +971,11 @@ public final class Sender extends Thread {
             this.perfStats.incrementCount(event.getType().getName());
         }
 
+        // The event can now be refilled by the producer
+        if (eventPool != null) {
+            eventPool.release(event);
+        }
+
         sentEventCount++;
     }
 
@@ -572,6 +1023,106 @@ public final class Sender extends Thread {
         this.logger = logger;
     }
 
+    /**
+     * Sets how event submission is paced by this sender thread.
+     *
+     * @param pacingMode    either {@link Pacer#MILLIS_PACING} or {@link Pacer#NANO_PACING}
+     */
+    public void setPacingMode(int pacingMode) {
+        if (!Pacer.isValidMode(pacingMode)) {
+            throw new IllegalArgumentException("Invalid pacing mode: " + pacingMode);
+        }
+        this.pacingMode = pacingMode;
+    }
+
+    /**
+     * Makes this sender thread serve many independent logical sources, each
+     * one with its own arrival process, instead of a single Scheduler.
+     *
+     * @param sources   the schedule of the logical sources
+     */
+    public void setSources(SourceScheduler sources) {
+        this.sources = sources;
+    }
+
+    /**
+     * Sets the maximum number of events that are coalesced into a single
+     * adapter call when this sender thread falls behind schedule.
+     *
+     * @param maxBatchSize  the maximum batch size (1 disables micro-batching)
+     */
+    public void setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Invalid batch size: " + maxBatchSize);
+        }
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * @return  the number of batches (of two or more events) sent so far
+     */
+    public long getSentBatchCount() {
+        return sentBatchCount;
+    }
+
+    /**
+     * @return  the number of events sent in batches so far
+     */
+    public long getBatchedEventCount() {
+        return batchedEventCount;
+    }
+
+    /**
+     * Indicates if, on synthetic workloads, sent events must be given back
+     * to the producer and refilled in place, rather than discarded.
+     *
+     * @param reuseEvents   <tt>true</tt> for recycling events
+     */
+    public void setReuseEvents(boolean reuseEvents) {
+        this.reuseEvents = reuseEvents;
+    }
+
+    /**
+     *
+     * @return  the number of events recycled during the last run
+     */
+    public long getReusedEventCount() {
+        return eventPool != null ? eventPool.getReusedCount() : 0;
+    }
+
+    /**
+     *
+     * @return  the number of bytes allocated by this thread and its producer
+     *          during the last run, or -1 if it has not been measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    /**
+     * @return  the mean difference between the intended and the actual
+     *          inter-arrival times of the events sent so far, in nanoseconds
+     */
+    public double getAvgInterArrivalError() {
+        return interArrivalCount > 0 ? (double) interArrivalErrorSum / interArrivalCount : 0;
+    }
+
+    /**
+     * @return  the largest difference between the intended and the actual
+     *          inter-arrival times of the events sent so far, in nanoseconds
+     */
+    public long getMaxInterArrivalError() {
+        return interArrivalErrorMax;
+    }
+
+    /**
+     * @return  the distribution of the delays between the intended and the actual
+     *          dispatch times of the events sent so far, in nanoseconds
+     */
+    public LatencyHistogram getSendLag() {
+        return sendLag;
+    }
+
     /**
      * Indicates if this sender thread is using event's scheduled time as their timestamp.
      *
@@ -598,6 +1149,9 @@ public final class Sender extends Thread {
      * @return  the performance stats for this sender
      */
     protected DriverPerfStats getPerfStats() {
+        if (producer != null) {
+            this.perfStats.setBufferFillLevel(producer.getBuffer().getFillLevel());
+        }
         return this.perfStats;
     }
 
@@ -0,0 +1,159 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.driver;
+
+import java.util.Random;
+
+/**
+ * Merges the arrival processes of many independent logical sources (e.g.,
+ * one per ticker symbol), each one driven by its own {@link Scheduler},
+ * into a single time-ordered schedule that can be served by one Sender.
+ *
+ * Pending arrivals are kept in a binary min-heap keyed by due time, so that
+ * each arrival costs O(log n), regardless of the number of sources. This
+ * allows a small, fixed pool of Sender threads to simulate tens of thousands
+ * of feeds.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Scheduler
+ * @see Sender
+ */
+public final class SourceScheduler {
+
+    /** The schedulers of the sources served by this instance. */
+    private final Scheduler[] schedulers;
+
+    /** The global identifiers of the sources served by this instance. */
+    private final int[] sourceIds;
+
+    /** Due time of the next arrival of each source, in nanoseconds since the start of the run. */
+    private final long[] due;
+
+    /** Number of arrivals of each source so far. */
+    private final long[] counts;
+
+    /** Binary min-heap of source indexes, ordered by due time. */
+    private final int[] heap;
+
+    /**
+     * Creates a schedule for a set of sources.
+     *
+     * The first arrival of each source is placed at a random point of its first
+     * inter-arrival period, so that deterministic sources are not synchronized.
+     *
+     * @param schedulers    the schedulers of the sources
+     * @param sourceIds     the global identifiers of the sources
+     * @param seed          seed for placing the first arrivals (<tt>null</tt> for random)
+     */
+    public SourceScheduler(Scheduler[] schedulers, int[] sourceIds, Long seed) {
+        if (schedulers.length == 0 || schedulers.length != sourceIds.length) {
+            throw new IllegalArgumentException("Invalid source list.");
+        }
+        this.schedulers = schedulers;
+        this.sourceIds = sourceIds;
+        this.due = new long[schedulers.length];
+        this.counts = new long[schedulers.length];
+        this.heap = new int[schedulers.length];
+        Random rnd = seed != null ? new Random(seed) : new Random();
+        for (int i = 0; i < schedulers.length; i++) {
+            due[i] = (long) (rnd.nextDouble() * schedulers[i].getInterArrivalTime());
+            heap[i] = i;
+        }
+        for (int i = heap.length / 2 - 1; i >= 0; i--) {
+            siftDown(i);
+        }
+    }
+
+    /**
+     * Consumes the earliest pending arrival and schedules the next one of
+     * the same source.
+     *
+     * @return  the due time of the arrival, in nanoseconds since the start of the run
+     */
+    public long nextArrival() {
+        int source = heap[0];
+        long t = due[source];
+        counts[source]++;
+        due[source] = t + schedulers[source].getInterArrivalTime();
+        siftDown(0);
+        return t;
+    }
+
+    /**
+     * Restores the heap property from a given position downwards.
+     *
+     * @param pos   the position in the heap
+     */
+    private void siftDown(int pos) {
+        int source = heap[pos];
+        long t = due[source];
+        int half = heap.length >>> 1;
+        while (pos < half) {
+            int child = 2 * pos + 1;
+            int right = child + 1;
+            if (right < heap.length && due[heap[right]] < due[heap[child]]) {
+                child = right;
+            }
+            if (t <= due[heap[child]]) {
+                break;
+            }
+            heap[pos] = heap[child];
+            pos = child;
+        }
+        heap[pos] = source;
+    }
+
+    /**
+     * Sets the factor by which the event rate of every source is multiplied.
+     *
+     * @param factor    the new value for the multiplier factor
+     */
+    public void setRateFactor(double factor) {
+        for (Scheduler s : schedulers) {
+            s.setRateFactor(factor);
+        }
+    }
+
+    /**
+     *
+     * @return  the number of sources served by this instance
+     */
+    public int getSourceCount() {
+        return schedulers.length;
+    }
+
+    /**
+     *
+     * @param index     the index of a source (in the [0, getSourceCount()) range)
+     * @return          the global identifier of the source
+     */
+    public int getSourceId(int index) {
+        return sourceIds[index];
+    }
+
+    /**
+     *
+     * @param index     the index of a source (in the [0, getSourceCount()) range)
+     * @return          the number of arrivals of the source so far
+     */
+    public long getArrivalCount(int index) {
+        return counts[index];
+    }
+}
@@ -44,7 +44,7 @@ public final class SyntheticWorkloadPhase extends WorkloadPhase {
 	/** The final event submission rate of this phase, in events per second. */
 	private final double finalRate;
 
-	/** The arrival process of this phase (either POISSION or DETERMINISTIC). */
+	/** The arrival process of this phase (e.g., POISSON or DETERMINISTIC). */
 	private ArrivalProcess arrivalProcess;
 
 	/** The event types defined for this phase and their corresponding mixes. */
@@ -65,13 +65,41 @@ public final class SyntheticWorkloadPhase extends WorkloadPhase {
 	/** Random-number generation seed (used for repeatability).*/
 	private Long randomSeed;
 
+	/** Indicates if a DATASET is kept in memory rather than saved into disk. */
+	private boolean preloadDataset = false;
+
+	/** Number of independent logical sources (0 if "many sources" mode is disabled). */
+	private int sourceCount = 0;
+
+	/** Skew of the rates of the logical sources (0 for equal rates). */
+	private double sourceRateSkew = 0;
+
+	/** Ratio between the event rate during bursts and the mean event rate
+	 *  (ON_OFF and SELF_SIMILAR arrival processes). */
+	private double burstRatio = 3;
+
+	/** Mean duration of bursts (ON periods), in seconds. */
+	private double meanBurstDuration = 1;
+
+	/** Mean duration of the periods between bursts (OFF periods), in seconds. */
+	private double meanIdleDuration = 3;
+
+	/** Shape of the Pareto distribution of interarrival times (PARETO arrival process). */
+	private double paretoShape = 1.5;
+
+	/** Hurst parameter of the load (SELF_SIMILAR arrival process). */
+	private double hurstParameter = 0.8;
+
+	/** An arbitrary event rate curve, which overrides the initial and final rates (optional). */
+	private RateProfile rateProfile;
+
 
 	/**
 	 *
 	 * @param duration                 The duration of the phase, in seconds
 	 * @param initialRate			   The initial event submission rate, in events/second
 	 * @param finalRate				   The final event submission rate, in events/second
-	 * @param arrivalProcess 		   Either DETERMINISTIC or POISSON
+	 * @param arrivalProcess 		   The distribution of interarrival times
 	 * @param schema				   The event types defined for this phase and
 	 *                                 their corresponding mixes
 	 * @param deterministicEventMix    Indicates if event types are generated
@@ -149,7 +177,7 @@ public final class SyntheticWorkloadPhase extends WorkloadPhase {
 
 	/**
 	 *
-	 * @return the arrival process of this phase (either POISSION or DETERMINISTIC)
+	 * @return the arrival process of this phase (e.g., POISSON or DETERMINISTIC)
 	 */
 	public ArrivalProcess getArrivalProcess() {
 		return arrivalProcess;
@@ -178,8 +206,38 @@ public final class SyntheticWorkloadPhase extends WorkloadPhase {
 	 * @return the total number of events of this phase
 	 */
 	public long getTotalEventCount() {
-		double avgRate = (initialRate + finalRate) / 2;
-		return Math.round(duration * avgRate);
+		return Math.round(duration * getMeanRate());
+	}
+
+	/**
+	 *
+	 * @return the mean event submission rate of this phase, in events per second
+	 */
+	public double getMeanRate() {
+		if (rateProfile != null) {
+			return rateProfile.getMeanRate(duration);
+		}
+		return (initialRate + finalRate) / 2;
+	}
+
+	/**
+	 * Makes the event rate of this phase follow an arbitrary curve (steps,
+	 * spikes, sinusoids, etc.), instead of varying linearly from the
+	 * initial to the final rate.
+	 *
+	 * @param rateProfile      the rate curve (<tt>null</tt> for a linear variation)
+	 */
+	public void setRateProfile(RateProfile rateProfile) {
+		this.rateProfile = rateProfile;
+	}
+
+	/**
+	 *
+	 * @return the rate curve of this phase, or <tt>null</tt> if the rate
+	 *         varies linearly from the initial to the final rate
+	 */
+	public RateProfile getRateProfile() {
+		return rateProfile;
 	}
 
 	/**
@@ -192,4 +250,199 @@ public final class SyntheticWorkloadPhase extends WorkloadPhase {
 		return deterministicEventMix;
 	}
 
+
+	/**
+	 * Indicates if the dataset of this phase (DATASET data generation mode
+	 * only) must be kept in memory, in columnar form, rather than saved into
+	 * a data file and parsed back during load submission.
+	 *
+	 * @param preloadDataset   <tt>true</tt> for keeping the dataset in memory
+	 */
+	public void setPreloadDataset(boolean preloadDataset) {
+		this.preloadDataset = preloadDataset;
+	}
+
+	/**
+	 *
+	 * @return <tt>true</tt> if the dataset of this phase is kept in memory,
+	 *         <tt>false</tt> otherwise
+	 */
+	public boolean isPreloadDataset() {
+		return preloadDataset;
+	}
+
+	/**
+	 * Enables or disables the "many sources" mode, in which the load of the
+	 * phase is generated by a number of independent logical sources (e.g., one
+	 * per ticker symbol), each one with its own arrival process, multiplexed
+	 * over the Driver's sender threads.
+	 *
+	 * @param sourceCount      the number of logical sources (0 for disabling the mode)
+	 */
+	public void setSourceCount(int sourceCount) {
+		if (sourceCount < 0) {
+			throw new IllegalArgumentException("Invalid source count ("
+											 + sourceCount + ").");
+		}
+		this.sourceCount = sourceCount;
+	}
+
+	/**
+	 *
+	 * @return the number of logical sources, or 0 if "many sources" mode is disabled
+	 */
+	public int getSourceCount() {
+		return sourceCount;
+	}
+
+	/**
+	 * Sets the skew of the rates of the logical sources: the rate of the
+	 * i-th source is proportional to 1/i^skew.
+	 *
+	 * @param sourceRateSkew   the skew (0 for equal rates)
+	 */
+	public void setSourceRateSkew(double sourceRateSkew) {
+		if (sourceRateSkew < 0) {
+			throw new IllegalArgumentException("Invalid source rate skew ("
+											 + sourceRateSkew + ").");
+		}
+		this.sourceRateSkew = sourceRateSkew;
+	}
+
+	/**
+	 *
+	 * @return the skew of the rates of the logical sources (0 for equal rates)
+	 */
+	public double getSourceRateSkew() {
+		return sourceRateSkew;
+	}
+
+	/**
+	 * Sets the parameters of the bursts of the ON_OFF and SELF_SIMILAR arrival
+	 * processes, which alternate between ON periods (bursts) and OFF periods.
+	 * The mean event rate of the phase is preserved.
+	 *
+	 * @param burstRatio           ratio between the event rate during bursts and
+	 *                             the mean event rate
+	 * @param meanBurstDuration    mean duration of bursts, in seconds
+	 * @param meanIdleDuration     mean duration of the periods between bursts, in seconds
+	 */
+	public void setBurstParameters(double burstRatio, double meanBurstDuration,
+								   double meanIdleDuration) {
+		if (burstRatio < 1 || meanBurstDuration <= 0 || meanIdleDuration <= 0) {
+			throw new IllegalArgumentException("Invalid burst parameters ("
+											 + burstRatio + ", " + meanBurstDuration
+											 + ", " + meanIdleDuration + ").");
+		}
+		this.burstRatio = burstRatio;
+		this.meanBurstDuration = meanBurstDuration;
+		this.meanIdleDuration = meanIdleDuration;
+	}
+
+	/**
+	 *
+	 * @return the ratio between the event rate during bursts and the mean event rate
+	 */
+	public double getBurstRatio() {
+		return burstRatio;
+	}
+
+	/**
+	 *
+	 * @return the mean duration of bursts, in seconds
+	 */
+	public double getMeanBurstDuration() {
+		return meanBurstDuration;
+	}
+
+	/**
+	 *
+	 * @return the mean duration of the periods between bursts, in seconds
+	 */
+	public double getMeanIdleDuration() {
+		return meanIdleDuration;
+	}
+
+	/**
+	 * Sets the shape of the Pareto distribution of interarrival times
+	 * (PARETO arrival process). The lower the shape, the heavier the tail.
+	 *
+	 * @param paretoShape      the shape (must be greater than 1)
+	 */
+	public void setParetoShape(double paretoShape) {
+		if (paretoShape <= 1) {
+			throw new IllegalArgumentException("Invalid Pareto shape ("
+											 + paretoShape + ").");
+		}
+		this.paretoShape = paretoShape;
+	}
+
+	/**
+	 *
+	 * @return the shape of the Pareto distribution of interarrival times
+	 */
+	public double getParetoShape() {
+		return paretoShape;
+	}
+
+	/**
+	 * Sets the Hurst parameter of the load (SELF_SIMILAR arrival process).
+	 * The closer to 1, the stronger the long-range dependence of the load.
+	 *
+	 * @param hurstParameter   the Hurst parameter (between 0.5 and 1, exclusive)
+	 */
+	public void setHurstParameter(double hurstParameter) {
+		if (hurstParameter <= 0.5 || hurstParameter >= 1) {
+			throw new IllegalArgumentException("Invalid Hurst parameter ("
+											 + hurstParameter + ").");
+		}
+		this.hurstParameter = hurstParameter;
+	}
+
+	/**
+	 *
+	 * @return the Hurst parameter of the load
+	 */
+	public double getHurstParameter() {
+		return hurstParameter;
+	}
+
+	/**
+	 * Creates a Scheduler for (a share of) the load of this phase.
+	 *
+	 * @param share            the fraction of the phase's event rate assigned
+	 *                         to the Scheduler
+	 * @param seed             seed for random number generation
+	 * @return                 a Scheduler following the arrival process and
+	 *                         the rate curve of this phase
+	 */
+	public Scheduler createScheduler(double share, Long seed) {
+		Scheduler sch = new Scheduler(share * initialRate, share * finalRate,
+									  duration, arrivalProcess, seed);
+		if (rateProfile != null) {
+			sch.setRateProfile(rateProfile, share);
+		}
+		sch.setBurstParameters(burstRatio, meanBurstDuration, meanIdleDuration);
+		sch.setParetoShape(paretoShape);
+		sch.setHurstParameter(hurstParameter);
+		return sch;
+	}
+
+	/**
+	 * Computes the share of the phase's rate assigned to each logical source.
+	 *
+	 * @return the rate shares of the logical sources (they sum up to 1)
+	 */
+	public double[] getSourceRateShares() {
+		double[] shares = new double[sourceCount];
+		double sum = 0;
+		for (int i = 0; i < sourceCount; i++) {
+			shares[i] = 1 / Math.pow(i + 1, sourceRateSkew);
+			sum += shares[i];
+		}
+		for (int i = 0; i < sourceCount; i++) {
+			shares[i] /= sum;
+		}
+		return shares;
+	}
 }
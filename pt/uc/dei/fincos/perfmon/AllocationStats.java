@@ -0,0 +1,83 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.perfmon;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Static methods for measuring memory allocation and garbage collection
+ * activity of the running JVM.
+ *
+ * Per-thread allocation is only available on JVMs that support it
+ * (e.g., HotSpot); elsewhere, -1 is returned.
+ *
+ * @author  Marcelo R.N. Mendes
+ */
+public final class AllocationStats {
+
+    /** Not instantiable. */
+    private AllocationStats() { }
+
+    /**
+     *
+     * @return  the number of bytes allocated so far by the calling thread,
+     *          or -1 if the JVM does not measure it
+     */
+    public static long getCurrentThreadAllocatedBytes() {
+        try {
+            ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hsBean = (com.sun.management.ThreadMXBean) bean;
+                if (hsBean.isThreadAllocatedMemorySupported()
+                    && hsBean.isThreadAllocatedMemoryEnabled()) {
+                    return hsBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+                }
+            }
+        } catch (LinkageError e) {
+            // Not a HotSpot JVM
+        }
+        return -1;
+    }
+
+    /**
+     *
+     * @return  the total number of garbage collections so far
+     */
+    public static long getCollectionCount() {
+        long ret = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ret += Math.max(0, gc.getCollectionCount());
+        }
+        return ret;
+    }
+
+    /**
+     *
+     * @return  the total time spent in garbage collections so far, in milliseconds
+     */
+    public static long getCollectionTime() {
+        long ret = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            ret += Math.max(0, gc.getCollectionTime());
+        }
+        return ret;
+    }
+}
@@ -42,6 +42,27 @@ public final class DriverPerfStats implements Serializable {
     /** A map stream -> number of events received. */
     private HashMap<String, Integer> streamStats;
 
+    /** Fill level, in the [0, 1] range, of the Senders' event buffers
+     *  (-1 if event production is not decoupled from submission). */
+    private double bufferFillLevel;
+
+    /** Number of times Senders found their event buffer empty
+     *  while event production was still in course. */
+    private long producerStalls;
+
+    /** Sum of the differences between intended and actual inter-arrival times, in nanoseconds. */
+    private long interArrivalErrorSum;
+
+    /** Number of inter-arrival times measured. */
+    private long interArrivalCount;
+
+    /** Largest difference between intended and actual inter-arrival times, in nanoseconds. */
+    private long interArrivalErrorMax;
+
+    /** Distribution of the delays between the intended and the actual
+     *  dispatch times of sent events, in nanoseconds. */
+    private LatencyHistogram sendLag;
+
     /**
      * Initializes an empty set of performance stats.
      */
@@ -63,6 +84,12 @@ public final class DriverPerfStats implements Serializable {
         this.start = start;
         this.end = end;
         this.streamStats = streamStats;
+        this.bufferFillLevel = -1;
+        this.producerStalls = 0;
+        this.interArrivalErrorSum = 0;
+        this.interArrivalCount = 0;
+        this.interArrivalErrorMax = 0;
+        this.sendLag = new LatencyHistogram();
     }
 
     /**
@@ -114,6 +141,133 @@ public final class DriverPerfStats implements Serializable {
         this.streamStats = new HashMap<String, Integer>();
         this.start = -1;
         this.end = -1;
+        this.bufferFillLevel = -1;
+        this.producerStalls = 0;
+        this.interArrivalErrorSum = 0;
+        this.interArrivalCount = 0;
+        this.interArrivalErrorMax = 0;
+        this.sendLag = new LatencyHistogram();
+    }
+
+    /**
+     * Increments the number of times event submission had to wait
+     * for the producer stage.
+     */
+    public void incrementProducerStalls() {
+        this.producerStalls++;
+    }
+
+    /**
+     * Sets the number of times event submission had to wait
+     * for the producer stage.
+     *
+     * @param producerStalls    the number of producer stalls
+     */
+    public void setProducerStalls(long producerStalls) {
+        this.producerStalls = producerStalls;
+    }
+
+    /**
+     *
+     * @return  the number of times event submission had to wait
+     *          for the producer stage
+     */
+    public long getProducerStalls() {
+        return producerStalls;
+    }
+
+    /**
+     * Accounts for the difference between the intended and the actual
+     * inter-arrival time of a sent event.
+     *
+     * @param error     the inter-arrival error, in nanoseconds
+     */
+    public void addInterArrivalError(long error) {
+        this.addInterArrivalErrors(error, 1, error);
+    }
+
+    /**
+     * Accounts for a set of inter-arrival errors (e.g., measured by another Sender).
+     *
+     * @param errorSum  the sum of the inter-arrival errors, in nanoseconds
+     * @param count     the number of inter-arrival errors
+     * @param errorMax  the largest inter-arrival error, in nanoseconds
+     */
+    public void addInterArrivalErrors(long errorSum, long count, long errorMax) {
+        this.interArrivalErrorSum += errorSum;
+        this.interArrivalCount += count;
+        if (errorMax > this.interArrivalErrorMax) {
+            this.interArrivalErrorMax = errorMax;
+        }
+    }
+
+    /**
+     *
+     * @return  the sum of the inter-arrival errors, in nanoseconds
+     */
+    public long getInterArrivalErrorSum() {
+        return interArrivalErrorSum;
+    }
+
+    /**
+     *
+     * @return  the number of inter-arrival errors measured
+     */
+    public long getInterArrivalCount() {
+        return interArrivalCount;
+    }
+
+    /**
+     *
+     * @return  the mean inter-arrival error, in nanoseconds
+     */
+    public double getAvgInterArrivalError() {
+        return interArrivalCount > 0 ? (double) interArrivalErrorSum / interArrivalCount : 0;
+    }
+
+    /**
+     *
+     * @return  the largest inter-arrival error, in nanoseconds
+     */
+    public long getMaxInterArrivalError() {
+        return interArrivalErrorMax;
+    }
+
+    /**
+     * Accounts for the delay between the intended and the actual dispatch
+     * time of a sent event.
+     *
+     * @param lag   the send lag, in nanoseconds
+     */
+    public void recordSendLag(long lag) {
+        this.sendLag.recordValue(lag);
+    }
+
+    /**
+     *
+     * @return  the distribution of the delays between the intended and
+     *          the actual dispatch times of sent events, in nanoseconds
+     */
+    public LatencyHistogram getSendLag() {
+        return sendLag;
+    }
+
+    /**
+     * Sets the fill level of the event buffer(s).
+     *
+     * @param bufferFillLevel   the fill level, in the [0, 1] range
+     */
+    public void setBufferFillLevel(double bufferFillLevel) {
+        this.bufferFillLevel = bufferFillLevel;
+    }
+
+    /**
+     *
+     * @return  the fill level of the event buffer(s), in the [0, 1] range,
+     *          or -1 if event production is not decoupled from submission
+     */
+    public double getBufferFillLevel() {
+        return bufferFillLevel;
     }
 
     /**
@@ -0,0 +1,194 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.perfmon;
+
+import java.io.Serializable;
+
+/**
+ * A log-linear histogram of non-negative durations (e.g., latencies or
+ * send lags, in nanoseconds).
+ *
+ * Values are grouped into power-of-two ranges, each one divided into
+ * {@link #SUB_BUCKET_COUNT} equal-width buckets, which bounds the relative
+ * error of the reported percentiles to about 3% over the whole range
+ * (from nanoseconds to about an hour), with a fixed memory footprint.
+ * Histograms can be merged, so that the ones collected by different
+ * threads or Drivers can be aggregated.
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Histogram
+ */
+public final class LatencyHistogram implements Serializable {
+    /** serial id. */
+    private static final long serialVersionUID = -2650339214526167389L;
+
+    /** Number of bits used to index the buckets within a power-of-two range. */
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /** Number of buckets within a power-of-two range. */
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /** Largest value that can be recorded (greater values are truncated). */
+    public static final long MAX_VALUE = (1L << 42) - 1;
+
+    /** Frequencies of the buckets. */
+    private final long[] counts;
+
+    /** Number of recorded values. */
+    private long count;
+
+    /** Sum of recorded values. */
+    private long sum;
+
+    /** Largest recorded value. */
+    private long max;
+
+    /**
+     * Creates an empty histogram.
+     */
+    public LatencyHistogram() {
+        this.counts = new long[bucketIndex(MAX_VALUE) + 1];
+    }
+
+    /**
+     * Computes the bucket of a given value.
+     *
+     * @param value     the value (in the [0, MAX_VALUE] range)
+     * @return          the index of the bucket the value falls into
+     */
+    private static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * Computes the highest value that falls into a given bucket.
+     *
+     * @param index     the index of the bucket
+     * @return          the upper boundary of the bucket
+     */
+    private static long upperBound(int index) {
+        if (index < 2 * SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long subBucket = (index & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Records a value in the histogram.
+     *
+     * @param value     the value (negative values are recorded as zero)
+     */
+    public void recordValue(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        counts[bucketIndex(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    /**
+     * Adds the values recorded in another histogram to this histogram.
+     *
+     * @param other     the other histogram
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        if (other.max > max) {
+            max = other.max;
+        }
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = 0;
+        }
+        count = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    /**
+     * Computes a percentile of the recorded values.
+     *
+     * @param percentile    the percentile, in the [0, 100] range
+     * @return              the value below which the given percentage of the
+     *                      recorded values fall (0 if the histogram is empty)
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile / 100 * count);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+     *
+     * @return  the number of recorded values
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     *
+     * @return  the mean of the recorded values (0 if the histogram is empty)
+     */
+    public double getMean() {
+        return count > 0 ? (double) sum / count : 0;
+    }
+
+    /**
+     *
+     * @return  the largest recorded value
+     */
+    public long getMax() {
+        return max;
+    }
+}
@@ -27,6 +27,7 @@ import java.util.TreeSet;
 
 import pt.uc.dei.fincos.basic.Globals;
 import pt.uc.dei.fincos.data.CSV_Reader;
+import pt.uc.dei.fincos.data.CSV_Tokenizer;
 import pt.uc.dei.fincos.data.CSV_Writer;
 
 
@@ -361,9 +362,10 @@ public final class OfflinePerformanceValidator {
 
         @Override
         public void run() {
-            String event, streamName;
+            String streamName = null;
             long outputArrivalTime = 0, causerEmissionTime = 0, timestamp = 0;
-            String[] splitEv;
+            CSV_Tokenizer record = new CSV_Tokenizer(Globals.CSV_DELIMITER);
+            int fieldCount;
             long lowerTS = startTime;
             PerformanceStats streamStats, historicStats;
             try {
@@ -434,12 +436,11 @@ public final class OfflinePerformanceValidator {
                         (int) Math.round(1 / Double.parseDouble(logSamplRateStr));
 
                 double rt;
-                while (keepProcessing && (event = logReader.getNextLine()) != null) {
+                while (keepProcessing && logReader.nextRecord(record)) {
                     try {
-                        totalReadBytes += (event.length() / charsPerByte + 2);
-                        splitEv = CSV_Reader.split(event, Globals.CSV_DELIMITER);
-                        streamName = splitEv[STREAM_NAME_FIELD];
-                        timestamp = Long.parseLong(splitEv[TIMESTAMP_FIELD]);
+                        totalReadBytes += (record.getLength() / charsPerByte + 2);
+                        fieldCount = record.getFieldCount();
+                        timestamp = record.getLong(TIMESTAMP_FIELD);
 
                         if (timestamp < startTime) {
                             continue;
@@ -449,6 +450,11 @@ public final class OfflinePerformanceValidator {
                             break;
                         }
 
+                        // Stream names are only created when they change
+                        if (!record.fieldEquals(STREAM_NAME_FIELD, streamName)) {
+                            streamName = record.getField(STREAM_NAME_FIELD);
+                        }
+
                         // For every new event, update stats of corresponding stream
                         streamStats = streamsStats.get(streamName);
                         if (streamStats == null) {
@@ -459,8 +465,8 @@ public final class OfflinePerformanceValidator {
                         streamStats.lastEventCount += logSamplingFactor;
                         streamStats.totalEventCount += logSamplingFactor;
                         if (rtMeasurementMode != Globals.NO_RT) {
-                            outputArrivalTime = Long.parseLong(splitEv[splitEv.length - 1]);
-                            causerEmissionTime = Long.parseLong(splitEv[splitEv.length - 2]);
+                            outputArrivalTime = record.getLong(fieldCount - 1);
+                            causerEmissionTime = record.getLong(fieldCount - 2);
 
                             rt = (outputArrivalTime - causerEmissionTime) / rtFactor;
                             if (rt >= 0) {
@@ -501,7 +507,7 @@ public final class OfflinePerformanceValidator {
                             lowerTS += PerformanceStats.DEFAULT_TIME_BUCKET_IN_MILLIS;
                         }
                     } catch (NumberFormatException e) {
-                        System.err.println("Invalid event format - " + event);
+                        System.err.println("Invalid event format - " + record.getLine());
                     } catch (CloneNotSupportedException e) {
                         System.err.println("Error: " + e.getMessage());
                     }
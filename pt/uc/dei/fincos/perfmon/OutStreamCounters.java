@@ -56,6 +56,9 @@ public final class OutStreamCounters implements Serializable, Cloneable {
     /** Number of events processed per second. */
     private double throughput;
 
+    /** Distribution of the response times since last reset, in microseconds. */
+    private LatencyHistogram periodRT;
+
 
     /**
      * Initializes an empty set of performance stats.
@@ -68,6 +71,7 @@ public final class OutStreamCounters implements Serializable, Cloneable {
         this.maxRT = 0;
         this.minRT = Long.MAX_VALUE;
         this.sumSqrRT = 0;
+        this.periodRT = new LatencyHistogram();
     }
 
     /**
@@ -91,6 +95,7 @@ public final class OutStreamCounters implements Serializable, Cloneable {
         this.maxRT = maxRT;
         this.minRT = minRT;
         this.sumSqrRT = sumSqrRT;
+        this.periodRT = new LatencyHistogram();
     }
 
 
@@ -113,6 +118,7 @@ public final class OutStreamCounters implements Serializable, Cloneable {
         maxRT = Math.max(maxRT, lastRT);
         minRT = Math.min(minRT, lastRT);
         sumSqrRT += lastRT * lastRT;
+        periodRT.recordValue(Math.round(lastRT * 1E3));
     }
 
     /**
@@ -171,11 +177,21 @@ public final class OutStreamCounters implements Serializable, Cloneable {
         return totalCount;
     }
 
+    /**
+     *
+     * @return  the distribution of the response times of the events received
+     *          since last reset, in microseconds
+     */
+    public LatencyHistogram getPeriodRT() {
+        return periodRT;
+    }
+
     /**
      * Resets the number of events received since last period.
      */
     public void startNewPeriod() {
         lastCount = 0;
+        periodRT.reset();
     }
 
 
@@ -199,7 +215,9 @@ public final class OutStreamCounters implements Serializable, Cloneable {
 
     @Override
     protected OutStreamCounters clone() {
-        return new OutStreamCounters(totalCount, lastCount, sumRT,
-                                    lastRT, maxRT, minRT, sumSqrRT);
+        OutStreamCounters ret = new OutStreamCounters(totalCount, lastCount, sumRT,
+                                                      lastRT, maxRT, minRT, sumSqrRT);
+        ret.periodRT.add(periodRT);
+        return ret;
     }
 }
@@ -139,6 +139,31 @@ public final class SinkPerfStats implements Serializable, Cloneable {
         return streamStats;
     }
 
+    /**
+     *
+     * @return  the number of events received, from all streams, since last reset
+     */
+    public long getPeriodCount() {
+        long ret = 0;
+        for (OutStreamCounters c : streamStats.values()) {
+            ret += c.getLastCount();
+        }
+        return ret;
+    }
+
+    /**
+     *
+     * @return  the distribution of the response times of the events received,
+     *          from all streams, since last reset (in microseconds)
+     */
+    public LatencyHistogram getPeriodRT() {
+        LatencyHistogram ret = new LatencyHistogram();
+        for (OutStreamCounters c : streamStats.values()) {
+            ret.add(c.getPeriodRT());
+        }
+        return ret;
+    }
+
     @Override
     public SinkPerfStats clone() {
         HashMap<String, OutStreamCounters> streamStats =
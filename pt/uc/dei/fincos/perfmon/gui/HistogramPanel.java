@@ -45,6 +45,7 @@ import org.jfree.data.xy.CategoryTableXYDataset;
 
 import pt.uc.dei.fincos.basic.Globals;
 import pt.uc.dei.fincos.data.CSV_Reader;
+import pt.uc.dei.fincos.data.CSV_Tokenizer;
 import pt.uc.dei.fincos.perfmon.Histogram;
 
 /**
@@ -290,27 +291,23 @@ public class HistogramPanel extends JPanel {
                         // ignores next line of log header (log sampling rate; not relevant here)
                         logReader.getNextLine();
 
-                        String record = logReader.getNextLine();
-                        String streamName;
-                        String[] splitEv;
+                        CSV_Tokenizer record = new CSV_Tokenizer(Globals.CSV_DELIMITER);
+                        int fieldCount;
                         long outputArrivalTime = 0, causerEmissionTime = 0, timestamp;
-                        while (record != null) {
-                            splitEv = CSV_Reader.split(record, Globals.CSV_DELIMITER);
-                            streamName = splitEv[1];
-                            timestamp = Long.parseLong(splitEv[0]);
+                        while (logReader.nextRecord(record)) {
+                            fieldCount = record.getFieldCount();
+                            timestamp = record.getLong(0);
                             if (timestamp < startTimestamp) {
-                                record = logReader.getNextLine();
                                 continue;
                             }
                             if (timestamp > endTimestamp) {
                                 break;
                             }
-                            if (rtMeasurementMode != Globals.NO_RT && streamName.equals(stream)) {
-                                    outputArrivalTime = Long.parseLong(splitEv[splitEv.length - 1]);
-                                    causerEmissionTime = Long.parseLong(splitEv[splitEv.length - 2]);
+                            if (rtMeasurementMode != Globals.NO_RT && record.fieldEquals(1, stream)) {
+                                    outputArrivalTime = record.getLong(fieldCount - 1);
+                                    causerEmissionTime = record.getLong(fieldCount - 2);
                                 hist.addItem((outputArrivalTime - causerEmissionTime) / rtFactor);
                             }
-                            record = logReader.getNextLine();
                         }
                         logReader.closeFile();
                     }
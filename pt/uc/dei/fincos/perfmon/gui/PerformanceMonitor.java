@@ -60,6 +60,7 @@ import pt.uc.dei.fincos.controller.gui.Controller_GUI;
 import pt.uc.dei.fincos.controller.gui.PopupListener;
 import pt.uc.dei.fincos.driver.DriverRemoteFunctions;
 import pt.uc.dei.fincos.perfmon.DriverPerfStats;
+import pt.uc.dei.fincos.perfmon.LatencyHistogram;
 import pt.uc.dei.fincos.perfmon.OutStreamCounters;
 import pt.uc.dei.fincos.perfmon.PerformanceStats;
 import pt.uc.dei.fincos.perfmon.SinkPerfStats;
@@ -141,6 +142,7 @@ public final class PerformanceMonitor extends JFrame {
     JScrollPane statsScroll, graphsScroll;
     JXTable statsTable;
     ArrayList <JTable> statsTables;
+    JXTable driverStatsTable;
     Font statsTableFont = new Font("arial", Font.PLAIN, 14);
     //---------------------------------------------------------------------------------------------
 
@@ -569,7 +571,7 @@ public final class PerformanceMonitor extends JFrame {
     private void loadStatsPanelOnline(String[] serverList) {
         statsPanel.removeAll();
         statsTables.clear();
-        statsPanel.setLayout(new GridLayout(serverList.length, 1));
+        statsPanel.setLayout(new GridLayout(serverList.length + 1, 1));
 
         for (String connAlias : serverList) {
             String server, outputName;
@@ -587,9 +589,74 @@ public final class PerformanceMonitor extends JFrame {
                 }
             }
         }
+        addDriverStatsTable();
         statsPanel.revalidate();
     }
 
+    /**
+     * Adds to the stats panel a table showing, for every Driver, how far
+     * behind schedule events are being sent.
+     */
+    @SuppressWarnings("serial")
+    private void addDriverStatsTable() {
+        JPanel driversPanel = new JPanel(new BorderLayout());
+        driversPanel.setBorder(BorderFactory.createTitledBorder("Drivers"));
+        driverStatsTable = new JXTable();
+        String[] columns = new String [] {"Driver",
+                "Send Lag p50 (ms)", "Send Lag p99 (ms)", "Send Lag p99.9 (ms)",
+                "Send Lag Max (ms)", "Inter-arrival Error (us)",
+                "Producer Stalls", "Buffer Fill (%)"};
+        DefaultTableModel model = new DefaultTableModel(columns, 0)
+        {
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        };
+        for (DriverConfig dr : drivers) {
+            model.addRow(new Object[] {dr.getAlias(), "0.000", "0.000", "0.000",
+                    "0.000", "0.000", "0", "-"});
+        }
+        driverStatsTable.setModel(model);
+        driverStatsTable.setBackground(statsPanel.getBackground());
+        driverStatsTable.setColumnControlVisible(true);
+        driverStatsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        driverStatsTable.setFont(statsTableFont);
+        driverStatsTable.setRowHeight(40);
+        driverStatsTable.getColumnModel().getColumn(0).setPreferredWidth(150);
+
+        JScrollPane driversScroll = new JScrollPane();
+        driversScroll.setViewportView(driverStatsTable);
+        driversPanel.add(driversScroll, BorderLayout.CENTER);
+        driversPanel.setPreferredSize(new Dimension(50, driverStatsTable.getRowCount() * 30));
+        statsPanel.add(driversPanel);
+    }
+
+    /**
+     * Updates the row of a Driver in the Drivers stats table.
+     *
+     * @param row       the index of the Driver's row
+     * @param stats     the performance stats collected from the Driver
+     */
+    private void refreshDriverStatsTable(int row, DriverPerfStats stats) {
+        if (driverStatsTable == null || row >= driverStatsTable.getModel().getRowCount()) {
+            return;
+        }
+        DefaultTableModel model = (DefaultTableModel) driverStatsTable.getModel();
+        LatencyHistogram sendLag = stats.getSendLag();
+        if (sendLag.getCount() > 0) {
+            model.setValueAt(Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(50) / 1E6), row, 1);
+            model.setValueAt(Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(99) / 1E6), row, 2);
+            model.setValueAt(Globals.FLOAT_FORMAT_3.format(sendLag.getValueAtPercentile(99.9) / 1E6), row, 3);
+            model.setValueAt(Globals.FLOAT_FORMAT_3.format(sendLag.getMax() / 1E6), row, 4);
+            model.setValueAt(Globals.FLOAT_FORMAT_3.format(stats.getAvgInterArrivalError() / 1E3), row, 5);
+        }
+        model.setValueAt(Globals.LONG_FORMAT.format(stats.getProducerStalls()), row, 6);
+        model.setValueAt(stats.getBufferFillLevel() != -1
+                         ? Globals.FLOAT_FORMAT_2.format(100 * stats.getBufferFillLevel())
+                         : "-", row, 7);
+    }
+
     private void refreshGUI() {
         long now = System.currentTimeMillis();
         if (guiLastRefresh == 0) {
@@ -597,11 +664,13 @@ public final class PerformanceMonitor extends JFrame {
         }
         long interval = now - guiLastRefresh; // in milliseconds
         // For each Driver
+        int driverRow = 0;
         for (DriverConfig dr: drivers) {
             DriverRemoteFunctions remoteDr = remoteDrivers.get(dr);
             if (remoteDr != null) {
                 try {
                     DriverPerfStats stats = remoteDr.getPerfStats();
+                    refreshDriverStatsTable(driverRow, stats);
                     // Computes throughput per stream
                     for (Entry<String, Integer> e : stats.getStreamStats().entrySet()) {
                         // The throughput of this stream on this Driver
@@ -621,6 +690,7 @@ public final class PerformanceMonitor extends JFrame {
                     System.err.println(e.getMessage());
                 }
             }
+            driverRow++;
         }
 
         // For each Sink
@@ -38,7 +38,7 @@ public final class ConstantVariate extends Variate {
      *                  {@link #generate()} method
      */
     public ConstantVariate(double value) {
-        super(null);
+        super(0L); // never draws random numbers
         this.value = value;
     }
 
@@ -55,7 +55,7 @@ public final class RandomExponentialVariate extends Variate {
 
     @Override
     public double generate() {
-        return (-(1 / lambda) * (Math.log(rnd.nextDouble())));
+        return (-(1 / lambda) * (Math.log(random().nextDouble())));
     }
 
     /**
@@ -69,7 +69,7 @@ public final class RandomNormalVariate extends Variate {
 
     @Override
     public double generate() {
-        return (mean + stdev * rnd.nextGaussian());
+        return (mean + stdev * random().nextGaussian());
     }
 
     /**
@@ -0,0 +1,96 @@
+/* FINCoS Framework
+ * Copyright (C) 2013 CISUC, University of Coimbra
+ *
+ * Licensed under the terms of The GNU General Public License, Version 2.
+ * A copy of the License has been included with this distribution in the
+ * fincos-license.txt file.
+ *
+ * This program is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License as published by the Free
+ * Software Foundation; either version 2 of the License, or (at your option)
+ * any later version. This program is distributed in the hope that it will be
+ * useful, but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ *
+ * See the GNU General Public License for more details.
+ */
+
+
+package pt.uc.dei.fincos.random;
+
+import java.util.Random;
+
+/**
+ * A fast, non thread-safe random number generator (SplitMix64), meant to
+ * be confined to a single thread. Independent streams are obtained by
+ * deriving seeds from a base seed and a stream index
+ * (see {@link #streamSeed(long, long)}).
+ *
+ * @author  Marcelo R.N. Mendes
+ *
+ * @see Variate
+ */
+public final class RandomStream extends Random {
+    /** serial id. */
+    private static final long serialVersionUID = -5251430391840275426L;
+
+    /** Increment of the generator's state (the golden ratio, in 64-bit fixed point). */
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    /** The state of the generator. */
+    private long state;
+
+    /**
+     *
+     * @param seed  the initial seed
+     */
+    public RandomStream(long seed) {
+        super(0);
+        this.state = seed;
+    }
+
+    /**
+     * Derives the seed of a random number stream from a base seed, so that
+     * the streams of a same base seed are uncorrelated.
+     *
+     * @param seed          the base seed
+     * @param streamIndex   the index of the stream
+     * @return              the seed of the stream
+     */
+    public static long streamSeed(long seed, long streamIndex) {
+        return mix(seed + GOLDEN_GAMMA * (streamIndex + 1));
+    }
+
+    /**
+     * Scrambles the bits of a 64-bit value (SplitMix64 finalizer).
+     *
+     * @param z     the value
+     * @return      the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @Override
+    public void setSeed(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    protected int next(int bits) {
+        return (int) (nextLong() >>> (64 - bits));
+    }
+
+    @Override
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    @Override
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+}
@@ -52,7 +52,7 @@ public final class RandomUniformVariate extends Variate {
 
     @Override
     public double generate() {
-        return  (lower + rnd.nextDouble() * (upper - lower));
+        return  (lower + random().nextDouble() * (upper - lower));
     }
 
     /**
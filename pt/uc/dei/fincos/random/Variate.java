@@ -18,12 +18,22 @@
 
 package pt.uc.dei.fincos.random;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstract class used for generation of Random numbers.
  *
+ * Each thread that uses a Variate gets its own random number stream,
+ * derived from the Variate's seed and from a stream index, so that threads
+ * do not contend on a shared generator. Threads that generate events for a
+ * given sender should set its index through {@link #setThreadStreamIndex(int)},
+ * so that their numbers are reproducible; other threads are given indexes in
+ * the order they first use the Variate.
+ *
  * @author  Marcelo R.N. Mendes
  *
  * @see     ConstantVariate
@@ -36,8 +46,20 @@ public abstract class Variate implements Serializable {
     /** serial id. */
     private static final long serialVersionUID = 7132000136731568068L;
 
-    /** Random number generator. */
-    protected final Random rnd;
+    /** The stream index chosen by each thread, if any. */
+    private static final ThreadLocal<Integer> THREAD_STREAM_INDEX = new ThreadLocal<Integer>();
+
+    /** Seed from which the random number streams of this Variate are derived. */
+    private long seed;
+
+    /** Incremented whenever the seed changes, so that threads derive new streams. */
+    private volatile int seedVersion = 0;
+
+    /** Number of streams given to threads that have not chosen a stream index. */
+    private final AtomicInteger implicitStreamCount = new AtomicInteger();
+
+    /** The random number stream of each thread. */
+    private transient ThreadLocal<Stream> streams = new ThreadLocal<Stream>();
 
 
     /**
@@ -46,11 +68,45 @@ public abstract class Variate implements Serializable {
      * @param seed  the initial seed
      */
     public Variate(Long seed) {
-        if (seed != null) {
-            this.rnd = new Random(seed);
-        } else {
-            this.rnd = new Random();
+        this.seed = seed != null ? seed : new Random().nextLong();
+    }
+
+    /**
+     * Sets the index of the random number streams used by the calling thread.
+     *
+     * @param index     the stream index (e.g., the number of a sender thread)
+     */
+    public static void setThreadStreamIndex(int index) {
+        THREAD_STREAM_INDEX.set(index);
+    }
+
+    /**
+     * Retrieves the random number generator of the calling thread.
+     *
+     * @return  a generator to be used only by the calling thread
+     */
+    protected final Random random() {
+        Stream s = streams.get();
+        int version = seedVersion;
+        if (s == null || s.version != version) {
+            Integer index = THREAD_STREAM_INDEX.get();
+            long streamIndex = index != null ? index : implicitStreamCount.getAndIncrement();
+            s = new Stream(version, new RandomStream(RandomStream.streamSeed(seed, streamIndex)));
+            streams.set(s);
         }
+        return s.rnd;
+    }
+
+    /**
+     * Restores the per-thread streams of a deserialized Variate.
+     *
+     * @param in    the stream the Variate is read from
+     * @throws IOException              if an I/O error occurs
+     * @throws ClassNotFoundException   if a class cannot be found
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.streams = new ThreadLocal<Stream>();
     }
 
     /**
@@ -60,18 +116,57 @@ public abstract class Variate implements Serializable {
      */
     public abstract double generate();
 
+    /**
+     * Generates a number and rounds it to the closest <tt>long</tt>.
+     *
+     * @return  the generated number
+     */
+    public long generateLong() {
+        return Math.round(generate());
+    }
+
+    /**
+     * Generates a number and rounds it to the closest <tt>int</tt>.
+     *
+     * @return  the generated number
+     */
+    public int generateInt() {
+        return (int) generateLong();
+    }
+
     /**
      * Sets the seed for random number generation.
      *
      * @param seed  the new seed
      */
     public final void setRandomSeed(Long seed) {
-        if (this.rnd != null) {
-            if (seed != null) {
-                this.rnd.setSeed(seed);
-            } else {
-                this.rnd.setSeed(System.nanoTime());
-            }
+        if (seed != null) {
+            this.seed = seed;
+        } else {
+            this.seed = System.nanoTime();
+        }
+        this.implicitStreamCount.set(0);
+        this.seedVersion++;
+    }
+
+    /**
+     * The random number stream of a thread.
+     */
+    private static final class Stream {
+        /** The version of the seed the stream was derived from. */
+        private final int version;
+
+        /** The random number generator. */
+        private final RandomStream rnd;
+
+        /**
+         *
+         * @param version   the version of the seed the stream was derived from
+         * @param rnd       the random number generator
+         */
+        private Stream(int version, RandomStream rnd) {
+            this.version = version;
+            this.rnd = rnd;
         }
     }
 }